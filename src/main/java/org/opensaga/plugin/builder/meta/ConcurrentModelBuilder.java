@@ -1,16 +1,31 @@
 package org.opensaga.plugin.builder.meta;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.incremental.IncrementalModelBuild;
+import org.opensaga.plugin.builder.meta.metrics.BuildMetrics;
 import org.opensaga.plugin.builder.meta.parser.HandlerContext;
 import org.opensaga.plugin.builder.meta.parser.ModelHandler;
 import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
@@ -18,7 +33,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Contains the parts which are executed concurrently.
+ * Contains the parts which are executed concurrently. All parts share a single
+ * thread pool, which must be released by {@link #shutdown()} after the
+ * generation.
  * 
  * @author cklewes
  *
@@ -27,100 +44,556 @@ public class ConcurrentModelBuilder
 {
     private static final Logger log = LoggerFactory.getLogger(ConcurrentModelBuilder.class);
 
+    private static final Comparator<ScheduledTask> LARGEST_FIRST = new Comparator<ScheduledTask>()
+    {
+        @Override
+        public int compare(ScheduledTask task, ScheduledTask otherTask)
+        {
+            return task.size > otherTask.size ? -1 : (task.size < otherTask.size ? 1 : 0);
+        }
+    };
+
     private final Map<HandlerType, JavaSourceGenerator> generators;
 
+    private final ExecutorService taskExecutor;
+
+    private IncrementalModelBuild incrementalModelBuild;
+
+    private boolean failFast = true;
+
+    private BuildMetrics buildMetrics;
 
-    public ConcurrentModelBuilder(Map<HandlerType, JavaSourceGenerator> generators)
+
+    public ConcurrentModelBuilder(Map<HandlerType, JavaSourceGenerator> generators, int threads)
     {
         this.generators = generators;
+        this.taskExecutor = Executors.newFixedThreadPool(threads, new BuilderThreadFactory());
+
+        log.debug("Using '{}' threads for the meta model generation.", threads);
+    }
+
+
+    /**
+     * @return The thread pool shared by all tasks of the meta model
+     *         generation, it's shut down by {@link #shutdown()}.
+     */
+    public ExecutorService getTaskExecutor()
+    {
+        return taskExecutor;
     }
 
 
     /**
-     * Executes the class generation concurrently to improve performance.
+     * Defines the incremental build which decides whether a meta model must be
+     * rendered. If not set, all meta models are rendered.
      * 
+     * @param incrementalModelBuild The incremental build, may be {@code null}.
+     */
+    public void setIncrementalModelBuild(IncrementalModelBuild incrementalModelBuild)
+    {
+        this.incrementalModelBuild = incrementalModelBuild;
+    }
+
+
+    /**
+     * Defines how a failed parse or generation task is handled. A failure
+     * always fails the build, because the meta models of the failed model
+     * would be missing in the generated classes.
+     * 
+     * @param failFast {@code true} to skip all outstanding tasks after the
+     *            first failure, {@code false} to execute all parse tasks and
+     *            report all failures at once. Defaults to {@code true}.
+     */
+    public void setFailFast(boolean failFast)
+    {
+        this.failFast = failFast;
+    }
+
+
+    /**
+     * Defines the metrics which record the rendering of the meta models.
+     * 
+     * @param buildMetrics The metrics of the build, may be {@code null}.
+     */
+    public void setBuildMetrics(BuildMetrics buildMetrics)
+    {
+        this.buildMetrics = buildMetrics;
+    }
+
+
+    /**
+     * Parses the model candidates and generates the Java classes of the parsed
+     * meta models in a pipeline. There are no barriers between the phases, the
+     * meta models of a parser flow into the generation as soon as they are
+     * ready:
+     * <ol>
+     * <li>All candidates are parsed concurrently. The parse tasks of all
+     * parsers are queued by descending size of their model file, so the
+     * largest models don't delay the end of the parsing when they're taken
+     * last.</li>
+     * <li>Once all candidates of a parser are parsed,
+     * {@link PipelineStages#completeParser(TypeBasedModelParser, List)} is
+     * called and the returned independent meta models are generated
+     * immediately, while other candidates are still parsed.</li>
+     * <li>Once all parsers are completed, {@link PipelineStages#completeAllParsers()}
+     * is called and the returned dependent meta models are generated.</li>
+     * </ol>
+     * 
+     * @param parseTasks The parse tasks of the model candidates grouped by
+     *            their parser. A parser without candidates is completed with
+     *            an empty list of meta models.
+     * @param stages The stages which are executed when a parser or all parsers
+     *            are completed.
      * @param handlerContext The handler context of the parsers.
-     * @param modelHandler The model handler whose meta models should be generated.
-     * @param metaModelList The list of meta models which should be generated into java files.
+     * The stages are skipped once a parse task failed, as their meta models
+     * would be incomplete.
      * 
      * @return The amount of generated java files.
+     * @throws MetaGenerationFailedException When a stage failed.
+     * @throws ModelBuildFailedException When parse or generation tasks
+     *             failed, it contains all failures.
      */
-    public int executeClassGenerationConcurrently(final HandlerContext handlerContext,
-        final ModelHandler<MetaModel> modelHandler, final List<MetaModel> metaModelList)
+    public int executePipelined(Map<TypeBasedModelParser, List<ParseTask>> parseTasks, PipelineStages stages,
+        HandlerContext handlerContext) throws MetaGenerationFailedException
     {
-        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
-        Integer generatedFiles = 0;
+        Pipeline pipeline = new Pipeline(stages, handlerContext, parseTasks.size());
+
+        if (parseTasks.isEmpty())
+        {
+            pipeline.completeAllParsers();
+        }
 
-        for (final MetaModel metaModel : metaModelList)
+        List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>();
+
+        for (Entry<TypeBasedModelParser, List<ParseTask>> entry : parseTasks.entrySet())
+        {
+            scheduledTasks.addAll(pipeline.parse(entry.getKey(), entry.getValue()));
+        }
+
+        // Longest processing time first, the stable sort keeps the order of equal sizes
+        Collections.sort(scheduledTasks, LARGEST_FIRST);
+
+        for (ScheduledTask scheduledTask : scheduledTasks)
+        {
+            taskExecutor.execute(scheduledTask.runnable);
+        }
+
+        return pipeline.awaitGeneratedFiles();
+    }
+
+
+    private Callable<Integer> createGenerationTask(final HandlerContext handlerContext,
+        final ModelHandler<MetaModel> modelHandler, final MetaModel metaModel)
+    {
+        return new Callable<Integer>()
         {
-            callables.add(new Callable<Integer>()
+            @Override
+            public Integer call() throws Exception
             {
-                @Override
-                public Integer call() throws Exception
+                JavaSourceGenerator generator = generators.get(modelHandler.getType());
+
+                if (incrementalModelBuild != null)
                 {
-                    final JavaSourceGenerator generator = generators.get(modelHandler.getType());
-                    return modelHandler.handleModel(handlerContext, metaModel, generator);
+                    generator = incrementalModelBuild.getGenerator(metaModel, generator);
                 }
-            });
-        }
+
+                long startNanos = System.nanoTime();
+
+                try
+                {
+                    int generatedFiles = modelHandler.handleModel(handlerContext, metaModel, generator);
+
+                    if (buildMetrics != null)
+                    {
+                        buildMetrics.recordRenderedModel(metaModel.getParser().getId(), generatedFiles, startNanos);
+                    }
+
+                    return generatedFiles;
+                }
+                catch (RuntimeException e)
+                {
+                    throw new MetaGenerationFailedException("The meta model '" + metaModel.getId() + "' of '" +
+                        metaModel.getLocation() + "' couldn't be generated.", e);
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Shuts the thread pool down and waits for running tasks to finish. The
+     * builder can't be used afterwards.
+     */
+    public void shutdown()
+    {
+        taskExecutor.shutdown();
 
         try
         {
-            ExecutorService taskExecutor = Executors.newFixedThreadPool(4);
-            List<Future<Integer>> futures = taskExecutor.invokeAll(callables);
-
-            for (Future<Integer> future : futures)
+            if (!taskExecutor.awaitTermination(1, TimeUnit.MINUTES))
             {
-                final Integer generatedFilesInFuture = future.get();
-                generatedFiles += generatedFilesInFuture;
+                log.warn("The meta model builder threads didn't terminate in time.");
+                taskExecutor.shutdownNow();
             }
         }
-        catch (IllegalStateException e)
+        catch (InterruptedException e)
         {
-            log.warn("The concurrent exexcution exception failed", e);
+            taskExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
-        catch (InterruptedException e)
+    }
+
+    /**
+     * Parses a single model candidate. The size of the model file estimates
+     * the duration of the parsing and determines the order of the tasks.
+     */
+    public abstract static class ParseTask
+        implements Callable<List<MetaModel>>
+    {
+
+        private final long size;
+
+
+        /**
+         * @param size The size of the model file in bytes.
+         */
+        protected ParseTask(long size)
         {
-            log.warn("The concurrent exexcution exception failed", e);
+            this.size = size;
         }
-        catch (ExecutionException e)
+
+
+        public long getSize()
         {
-            log.warn("The execution of the future task failed.", e);
+            return size;
         }
+    }
+
+    /**
+     * A parse task of a pipeline, which is ready to be executed.
+     */
+    private static class ScheduledTask
+    {
+
+        private final long size;
+
+        private final Runnable runnable;
+
 
-        return generatedFiles;
+        public ScheduledTask(long size, Runnable runnable)
+        {
+            this.size = size;
+            this.runnable = runnable;
+        }
     }
 
+    /**
+     * The stages of the pipeline which depend on the meta models of a complete
+     * parser or of all parsers.
+     * 
+     * @see ConcurrentModelBuilder#executePipelined(Map, PipelineStages, HandlerContext)
+     */
+    public interface PipelineStages
+    {
+
+        /**
+         * Called once all model candidates of the given parser are parsed.
+         * 
+         * @param parser The completed parser.
+         * @param metaModels The parsed meta models in the order of the model
+         *            candidates.
+         * @return The meta models which can be generated immediately.
+         * @throws MetaGenerationFailedException When the meta models couldn't
+         *             be completed.
+         */
+        List<MetaModel> completeParser(TypeBasedModelParser parser, List<MetaModel> metaModels)
+            throws MetaGenerationFailedException;
+
+
+        /**
+         * Called once all parsers are completed.
+         * 
+         * @return The remaining meta models which depend on the meta models of
+         *         other parsers.
+         * @throws MetaGenerationFailedException When the meta models couldn't
+         *             be completed.
+         */
+        List<MetaModel> completeAllParsers() throws MetaGenerationFailedException;
+    }
 
-    public void handleModelCandidatesConcurrently(Map<TypeBasedModelParser, List<MetaModel>> modelParserList, List<Callable<List<MetaModel>>> callables)
+    /**
+     * The state of a single pipelined execution. The last parse task of a
+     * parser executes the parser stage, the last parser stage executes the
+     * final stage. Stages only submit further tasks and never wait for other
+     * tasks, so the shared thread pool can't be exhausted.
+     * <p>
+     * A failed task is recorded and, if the build fails fast, aborts the
+     * pipeline: the queued tasks are still executed to keep the countdown of
+     * the parsers, but return immediately without parsing or generating.
+     */
+    private class Pipeline
     {
-        try
+
+        private final PipelineStages stages;
+
+        private final HandlerContext handlerContext;
+
+        private final AtomicInteger pendingParsers;
+
+        private final CountDownLatch parsersCompleted = new CountDownLatch(1);
+
+        private final Queue<Future<Integer>> generationFutures = new ConcurrentLinkedQueue<Future<Integer>>();
+
+        private final AtomicReference<Exception> stageFailure = new AtomicReference<Exception>();
+
+        private final Queue<Exception> taskFailures = new ConcurrentLinkedQueue<Exception>();
+
+        private final AtomicBoolean aborted = new AtomicBoolean();
+
+
+        public Pipeline(PipelineStages stages, HandlerContext handlerContext, int parsers)
+        {
+            this.stages = stages;
+            this.handlerContext = handlerContext;
+            this.pendingParsers = new AtomicInteger(parsers);
+        }
+
+
+        /**
+         * Creates the tasks which parse the candidates of the given parser,
+         * the last one completes the parser. A parser without candidates is
+         * completed immediately.
+         * 
+         * @return The tasks to execute.
+         */
+        public List<ScheduledTask> parse(final TypeBasedModelParser parser, List<ParseTask> parseTasks)
         {
-            ExecutorService taskExecutor = Executors.newFixedThreadPool(4);
-            List<Future<List<MetaModel>>> futures = taskExecutor.invokeAll(callables);
+            final AtomicReferenceArray<List<MetaModel>> results = new AtomicReferenceArray<List<MetaModel>>(parseTasks.size());
+            final AtomicInteger pendingCandidates = new AtomicInteger(parseTasks.size());
+            List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>(parseTasks.size());
 
-            for (Future<List<MetaModel>> future : futures)
+            if (parseTasks.isEmpty())
             {
-                final List<MetaModel> parsedModelList = future.get();
-                
-                for (MetaModel metaModel : parsedModelList)
+                completeParser(parser, results);
+                return scheduledTasks;
+            }
+
+            for (int i = 0; i < parseTasks.size(); i++)
+            {
+                final int index = i;
+                final ParseTask callable = parseTasks.get(i);
+
+                scheduledTasks.add(new ScheduledTask(callable.getSize(), new Runnable()
                 {
-                    modelParserList.get(metaModel.getParser()).add(metaModel);
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            if (!aborted.get())
+                            {
+                                results.set(index, callable.call());
+                            }
+                        }
+                        catch (Exception e)
+                        {
+                            fail(e);
+                        }
+                        finally
+                        {
+                            if (pendingCandidates.decrementAndGet() == 0)
+                            {
+                                completeParser(parser, results);
+                            }
+                        }
+                    }
+                }));
+            }
+
+            return scheduledTasks;
+        }
+
+
+        public int awaitGeneratedFiles() throws MetaGenerationFailedException
+        {
+            try
+            {
+                parsersCompleted.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new MetaGenerationFailedException("The generation of the meta models was interrupted.", e);
+            }
+
+            // All generation tasks are submitted before the parsers are completed.
+            int generatedFiles = 0;
+
+            for (Future<Integer> future : generationFutures)
+            {
+                try
+                {
+                    generatedFiles += future.get();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new MetaGenerationFailedException("The generation of the meta models was interrupted.", e);
+                }
+                catch (ExecutionException e)
+                {
+                    // Already recorded by the generation task
                 }
             }
+
+            Exception failure = stageFailure.get();
+
+            if (failure instanceof MetaGenerationFailedException)
+            {
+                throw (MetaGenerationFailedException) failure;
+            }
+            else if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) failure;
+            }
+            else if (failure != null)
+            {
+                throw new MetaGenerationFailedException("The generation of the meta models failed.", failure);
+            }
+
+            if (!taskFailures.isEmpty())
+            {
+                throw new ModelBuildFailedException(new ArrayList<Exception>(taskFailures));
+            }
+
+            return generatedFiles;
         }
-        catch (IllegalStateException e)
+
+
+        private void completeParser(TypeBasedModelParser parser, AtomicReferenceArray<List<MetaModel>> results)
         {
-            log.warn("The concurrent exexcution exception failed", e);
+            try
+            {
+                if (stageFailure.get() == null && taskFailures.isEmpty())
+                {
+                    List<MetaModel> metaModels = new ArrayList<MetaModel>();
+
+                    for (int i = 0; i < results.length(); i++)
+                    {
+                        if (results.get(i) != null)
+                        {
+                            metaModels.addAll(results.get(i));
+                        }
+                    }
+
+                    generate(stages.completeParser(parser, metaModels));
+                }
+            }
+            catch (Exception e)
+            {
+                stageFailure.compareAndSet(null, e);
+                aborted.set(true);
+            }
+            finally
+            {
+                if (pendingParsers.decrementAndGet() == 0)
+                {
+                    completeAllParsers();
+                }
+            }
         }
-        catch (InterruptedException e)
+
+
+        private void completeAllParsers()
+        {
+            try
+            {
+                if (stageFailure.get() == null && taskFailures.isEmpty())
+                {
+                    generate(stages.completeAllParsers());
+                }
+            }
+            catch (Exception e)
+            {
+                stageFailure.compareAndSet(null, e);
+            }
+            finally
+            {
+                parsersCompleted.countDown();
+            }
+        }
+
+
+        @SuppressWarnings("unchecked")
+        private void generate(List<MetaModel> metaModels)
         {
-            log.warn("The concurrent exexcution exception failed", e);
+            for (MetaModel metaModel : metaModels)
+            {
+                if (metaModel.getParser() instanceof ModelHandler)
+                {
+                    final ModelHandler<MetaModel> modelHandler = (ModelHandler<MetaModel>) metaModel.getParser();
+                    final Callable<Integer> generationTask = createGenerationTask(handlerContext, modelHandler, metaModel);
+
+                    generationFutures.add(taskExecutor.submit(new Callable<Integer>()
+                    {
+                        @Override
+                        public Integer call() throws Exception
+                        {
+                            if (aborted.get())
+                            {
+                                return 0;
+                            }
+
+                            try
+                            {
+                                return generationTask.call();
+                            }
+                            catch (Exception e)
+                            {
+                                fail(e);
+                                throw e;
+                            }
+                        }
+                    }));
+                }
+            }
         }
 
-        catch (ExecutionException e)
+
+        private void fail(Exception failure)
         {
-            log.warn("The execution of the future task failed.", e);
+            taskFailures.add(failure);
+            log.debug("A task of the meta model build failed.", failure);
+
+            if (failFast && aborted.compareAndSet(false, true))
+            {
+                log.error("{} The outstanding tasks are skipped.", failure.getMessage());
+            }
+            else if (!failFast)
+            {
+                log.error(failure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates named daemon threads, so a not terminated pool never blocks the
+     * Maven JVM.
+     */
+    private static class BuilderThreadFactory
+        implements ThreadFactory
+    {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "opensaga-meta-builder-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
         }
     }
 }
@@ -1,34 +1,44 @@
 package org.opensaga.plugin.builder.meta;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.StopWatch;
+import org.opensaga.plugin.builder.meta.ConcurrentModelBuilder.ParseTask;
+import org.opensaga.plugin.builder.meta.ConcurrentModelBuilder.PipelineStages;
 import org.opensaga.plugin.builder.meta.ModelCandidateResolver.ModelFileSet;
+import org.opensaga.plugin.builder.meta.generator.BundledTemplateCache;
 import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
 import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
 import org.opensaga.plugin.builder.meta.generator.VelocityBasedJavaSourceGenerator;
 import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ProcessMetaModel;
 import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.incremental.BuildDigest;
+import org.opensaga.plugin.builder.meta.incremental.IncrementalModelBuild;
+import org.opensaga.plugin.builder.meta.metrics.BuildMetrics;
+import org.opensaga.plugin.builder.meta.metrics.BuildMetrics.Phase;
 import org.opensaga.plugin.builder.meta.parser.HandlerContext;
 import org.opensaga.plugin.builder.meta.parser.ModelContextDependentPostProcessor;
 import org.opensaga.plugin.builder.meta.parser.ModelHandler;
@@ -48,11 +58,11 @@ import org.opensaga.plugin.builder.meta.parser.types.ViewModelHandler;
 import org.opensaga.plugin.util.DocumentRootQNameResolver;
 import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
 import org.opensaga.plugin.util.NameUtils;
+import org.opensaga.plugin.util.RootElementCache;
+import org.opensaga.plugin.util.ThreadCount;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Predicate;
-
 /**
  * Creates java source files which contains meta informations about the domain
  * types defined in the project. The generated source files enables the use of
@@ -143,6 +153,65 @@ public class JavaBasedMetaModelClassBuilder
      */
     private Map<String, Map<String, Object>> modelParserDependentConfiguration = new HashMap<String, Map<String, Object>>();
 
+    /**
+     * The index file of the incremental build. If set, only changed model
+     * candidates are parsed and only affected meta models are rendered.
+     * Otherwise the target directories are cleaned and all meta models are
+     * generated.
+     */
+    private File incrementalIndexFile;
+
+    /**
+     * The number of threads used to parse and generate the meta models. Either
+     * an absolute number like {@code 4} or a multiplier of the available
+     * processors like {@code 1C}. If not set, one thread per available
+     * processor is used.
+     */
+    private String threads;
+
+    /**
+     * Render the Java classes into memory and write only the changed ones. The
+     * unchanged Java classes keep their modification time, so they aren't
+     * compiled again. Stale Java classes are deleted after the generation.
+     */
+    private boolean writeIfChanged;
+
+    /**
+     * The file of the build digest. If set, the generation is skipped when the
+     * models, the templates and the configuration are unchanged since the
+     * last build and the generated files are intact.
+     */
+    private File digestFile;
+
+    /**
+     * The version of the plugin, the generated classes depend on it.
+     */
+    private String pluginVersion;
+
+    /**
+     * If {@code true}, the build stops at the first model which can't be
+     * parsed or generated. Otherwise all models are parsed and all failures
+     * are reported at once.
+     */
+    private boolean failFast = true;
+
+    /**
+     * The file of the JSON report of the build metrics, if {@code null} the
+     * metrics are only logged.
+     */
+    private File metricsReportFile;
+
+    /**
+     * The number of the slowest model files which are reported.
+     */
+    private int slowestFiles = 10;
+
+    /**
+     * The file of the root element cache. If set, unchanged model candidates
+     * are classified without reading them.
+     */
+    private File rootElementCacheFile;
+
 
     public JavaBasedMetaModelClassBuilder(String targetDirectory, String targetTestDirectory, String modelBaseDirectory, String domainPrefix)
     {
@@ -153,136 +222,381 @@ public class JavaBasedMetaModelClassBuilder
     }
 
 
-    @SuppressWarnings("unchecked")
     public void generateMetaModels() throws MetaGenerationFailedException
     {
         final StopWatch stopWatch = new StopWatch();
         stopWatch.start();
+
+        final BuildDigest buildDigest = digestFile == null ? null : new BuildDigest(digestFile);
+        final String inputDigest = buildDigest == null ? null : createInputDigest();
+
+        if (buildDigest != null)
+        {
+            if (buildDigest.isUpToDate(inputDigest, getOutputDirectories()))
+            {
+                log.info("The meta models are up to date, the generation is skipped.");
+                return;
+            }
+
+            // A failed generation must not be skipped next time
+            buildDigest.invalidate();
+        }
         
-        // Delete all old generated artifacts
-        cleanupTargetDirectory(targetDirectory);
-        cleanupTargetDirectory(targetTestDirectory);
+        final IncrementalModelBuild incrementalModelBuild = createIncrementalModelBuild();
+
+        final boolean cleanupTargetDirectories = incrementalModelBuild == null || !incrementalModelBuild.isIncremental();
+
+        if (cleanupTargetDirectories && !writeIfChanged)
+        {
+            // Delete all old generated artifacts
+            cleanupTargetDirectory(targetDirectory);
+            cleanupTargetDirectory(targetTestDirectory);
+        }
 
         final Map<TypeBasedModelParser, List<MetaModel>> modelParserList = getAvailableTypeBasedModelParser();
-        Collection<ModelCandidate> candidates = findModelCandidates(modelParserList.keySet());
-        
-        
+
+        // One Velocity engine for this build, shared by all generators
+        final BundledTemplateCache templateCache = new BundledTemplateCache();
+        final VelocityBasedJavaSourceGenerator sourceGenerator = new VelocityBasedJavaSourceGenerator(targetDirectory, packageName, templateCache);
+        final VelocityBasedJavaSourceGenerator testSourceGenerator = new VelocityBasedJavaSourceGenerator(targetTestDirectory, packageName, templateCache);
+        sourceGenerator.setWriteIfChanged(writeIfChanged);
+        testSourceGenerator.setWriteIfChanged(writeIfChanged);
+
         final Map<HandlerType, JavaSourceGenerator> generators = new HashMap<HandlerType, JavaSourceGenerator>();
-        generators.put(HandlerType.SOURCE_DOMAIN, new VelocityBasedJavaSourceGenerator(targetDirectory, packageName));
-        generators.put(HandlerType.TEST_DOMAIN, new VelocityBasedJavaSourceGenerator(targetTestDirectory, packageName));
+        generators.put(HandlerType.SOURCE_DOMAIN, sourceGenerator);
+        generators.put(HandlerType.TEST_DOMAIN, testSourceGenerator);
 
-        final ConcurrentModelBuilder concurrentModelBuilder = new ConcurrentModelBuilder(generators);
-        final HandlerContext handlerContext = new HandlerContext();
+        final int threadCount = ThreadCount.resolve(threads);
+        final BuildMetrics buildMetrics = new BuildMetrics(threadCount, slowestFiles);
+        final ConcurrentModelBuilder concurrentModelBuilder = new ConcurrentModelBuilder(generators, threadCount);
+        concurrentModelBuilder.setIncrementalModelBuild(incrementalModelBuild);
+        concurrentModelBuilder.setFailFast(failFast);
+        concurrentModelBuilder.setBuildMetrics(buildMetrics);
 
-        if(integrationTestSupport)
+        try
         {
-            log.info("The integration test support is active.");
-        }
+            Collection<ModelCandidate> candidates = findModelCandidates(modelParserList.keySet(),
+                concurrentModelBuilder.getTaskExecutor(), buildMetrics);
+
+            if (incrementalModelBuild != null)
+            {
+                incrementalModelBuild.registerCandidates(candidates);
+            }
+
+            final HandlerContext handlerContext = new HandlerContext();
+
+            if(integrationTestSupport)
+            {
+                log.info("The integration test support is active.");
+            }
         
-        log.info("Found '{}' model candidates, not all may be handled.", candidates.size());
-        int generatedFiles = 0;
+            log.info("Found '{}' model candidates, not all may be handled.", candidates.size());
+            int generatedFiles = 0;
+
+            log.info("Phase 1: Parsing all meta model candidates, independent Java classes are written as soon as "
+                + "their meta models are merged.");
+            final Map<TypeBasedModelParser, List<ParseTask>> parseTasks = new LinkedHashMap<TypeBasedModelParser, List<ParseTask>>();
 
-        log.info("Phase 1: Parse all meta model candidates.");
-        List<Callable<List<MetaModel>>> callables = new ArrayList<Callable<List<MetaModel>>>();
+            for (TypeBasedModelParser typeBasedModelHandler : modelParserList.keySet())
+            {
+                parseTasks.put(typeBasedModelHandler, new ArrayList<ParseTask>());
+            }
                
-        for (final ModelCandidate candidate : candidates)
-        {
-            callables.add(new Callable<List<MetaModel>>()
+            for (final ModelCandidate candidate : candidates)
+            {
+                parseTasks.get(candidate.getHandler()).add(new ParseTask(candidate.getSize())
+                {
+                    @Override
+                    public List<MetaModel> call() throws Exception
+                    {
+                        long startNanos = System.nanoTime();
+                        TypeBasedModelParser typeBasedModelHandler = candidate.getHandler();
+
+                        try
+                        {
+                            List<MetaModel> metaModels;
+
+                            // Restored meta models are rendered by the handler, too
+                            configureTypeBasedModelHandler(typeBasedModelHandler);
+
+                            if (incrementalModelBuild != null && incrementalModelBuild.isUnchanged(candidate))
+                            {
+                                metaModels = incrementalModelBuild.restoreModels(candidate);
+                            }
+                            else
+                            {
+                                metaModels = typeBasedModelHandler.parseModel(candidate.getFile(), candidate.getContent());
+
+                                if (incrementalModelBuild != null)
+                                {
+                                    incrementalModelBuild.recordParsedModels(candidate, metaModels);
+                                }
+                            }
+
+                            buildMetrics.recordParsedFile(typeBasedModelHandler.getId(), candidate.getFile(),
+                                getSize(), metaModels.size(), startNanos);
+
+                            return metaModels;
+                        }
+                        catch (XmlParserFailureException e)
+                        {
+                            throw new MetaGenerationFailedException("A domain type model couldn't be parsed by " +
+                                "XML parser. The file name was: '" + candidate.getFile().getAbsolutePath(), e);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            throw new MetaGenerationFailedException("The model '" +
+                                candidate.getFile().getAbsolutePath() + "' couldn't be parsed.", e);
+                        }
+                        finally
+                        {
+                            candidate.releaseContent();
+                        }
+                    }
+                });
+            }
+
+            final long pipelineStartNanos = System.nanoTime();
+
+            generatedFiles += concurrentModelBuilder.executePipelined(parseTasks, new PipelineStages()
             {
                 @Override
-                public List<MetaModel> call() throws Exception
+                public List<MetaModel> completeParser(TypeBasedModelParser typeBasedModelHandler,
+                    List<MetaModel> metaModels)
                 {
-                    TypeBasedModelParser typeBasedModelHandler = candidate.getHandler();
-                    configureTypeBasedModelHandler(typeBasedModelHandler);
+                    long startNanos = System.nanoTime();
+                    List<MetaModel> metaModelList = modelParserList.get(typeBasedModelHandler);
+                    metaModelList.addAll(metaModels);
+                    mergeMetaModels(typeBasedModelHandler, metaModelList);
 
-                    try
+                    if (typeBasedModelHandler instanceof ModelHandler)
                     {
-                        return typeBasedModelHandler.parseModel(candidate.getFile());
+                        // Sorting the domain type info into a consistent stable order.
+                        // This is necessary for source controlled projects to ensure the file remains
+                        // unchanged if no changes in the domain types are performed.
+                        Collections.sort(metaModelList, new IdBasedLexicographicalMetaModelComparator());
                     }
-                    catch (XmlParserFailureException e)
+
+                    buildMetrics.addPhaseTime(Phase.MERGE, startNanos);
+                    startNanos = System.nanoTime();
+                    handlerContext.addContextForHandlerWithId(typeBasedModelHandler.getId(), metaModelList);
+                    buildMetrics.addPhaseTime(Phase.CONTEXT_PROPAGATION, startNanos);
+
+                    List<MetaModel> independentMetaModels = new ArrayList<MetaModel>();
+
+                    for (MetaModel metaModel : metaModelList)
                     {
-                        throw new MetaGenerationFailedException("A domain type model couldn't be parsed by " +
-                            "XML parser. The file name was: '" + candidate.getFile().getAbsolutePath(), e);
+                        if (!dependsOnOtherMetaModels(metaModel))
+                        {
+                            independentMetaModels.add(metaModel);
+                        }
                     }
-                }
-            });
-        }
-        
-        concurrentModelBuilder.handleModelCandidatesConcurrently(modelParserList, callables);
- 
 
-        log.info("Phase 2: Merging meta model properties.");
-        mergeMultipleMetaModels(modelParserList);
+                    log.debug("The parser '{}' completed, '{}' of '{}' meta models are written immediately.",
+                        new Object[] { typeBasedModelHandler.getId(), independentMetaModels.size(),
+                            metaModelList.size() });
 
-        log.info("Phase 3: Dereferencing domaintype properties.");
+                    return independentMetaModels;
+                }
 
-        for (List<MetaModel> metaModels : modelParserList.values())
-        {
-            for (MetaModel model : metaModels)
-            {
-                if (model instanceof DomainTypeMetaModel)
+
+                @Override
+                public List<MetaModel> completeAllParsers() throws MetaGenerationFailedException
                 {
-                    for (PropertyMetaModel propertyModel : ((DomainTypeMetaModel) model).getMetaPropertyModels())
+                    if (incrementalModelBuild != null)
                     {
-                        if (propertyModel.getPropertyRef() != null && propertyModel.getType() == null)
+                        incrementalModelBuild.determineChangedModels(modelParserList);
+                    }
+
+                    log.info("Phase 2: Dereferencing domaintype properties.");
+                    long startNanos = System.nanoTime();
+                    dereferenceDomainTypeProperties(modelParserList);
+                    buildMetrics.addPhaseTime(Phase.DEREFERENCE, startNanos);
+
+                    List<MetaModel> dependentMetaModels = new ArrayList<MetaModel>();
+
+                    for (List<MetaModel> metaModels : modelParserList.values())
+                    {
+                        for (MetaModel metaModel : metaModels)
                         {
-                            log.debug("Resolving model '{}' with reference '{}'.", propertyModel.getId(),
-                                propertyModel.getPropertyRef());
-                            PropertyType type = findReferencedPropertyType(modelParserList,
-                                propertyModel.getPropertyRef(), propertyModel.getId());
-                            propertyModel.setType(type);
+                            if (dependsOnOtherMetaModels(metaModel))
+                            {
+                                dependentMetaModels.add(metaModel);
+                            }
                         }
                     }
+
+                    log.info("Phase 3: Writing '{}' Java classes depending on further meta models.",
+                        dependentMetaModels.size());
+
+                    return dependentMetaModels;
                 }
-            }
-        }
+            }, handlerContext);
+
+            buildMetrics.recordPipeline(pipelineStartNanos);
         
-        log.info("Phase 4: Propagating the handler contexts");
-        for (Entry<TypeBasedModelParser, List<MetaModel>> entry : modelParserList.entrySet())
-        {
-            TypeBasedModelParser typeBasedModelHandler = entry.getKey();
+            log.info("Phase 4: Postprocessing generated Java classes (creating domain classes)");
 
-            if (typeBasedModelHandler instanceof TypeBasedModelParser)
+            for (ModelContextDependentPostProcessor postProcessor : getModelPostProcessors())
             {
-                handlerContext.addContextForHandlerWithId(typeBasedModelHandler.getId(), entry.getValue());
+                long startNanos = System.nanoTime();
+                JavaSourceGenerator generator = generators.get(postProcessor.getType());
+
+                if (incrementalModelBuild != null)
+                {
+                    generator = incrementalModelBuild.getGenerator(postProcessor, generator);
+                }
+
+                generatedFiles += postProcessor.handleModel(handlerContext, generator);
+                buildMetrics.addPhaseTime(Phase.POST_PROCESS, startNanos);
             }
-        }
-        
-        log.info("Phase 5: Writing Java classes");
-        for (Entry<TypeBasedModelParser, List<MetaModel>> entry : modelParserList.entrySet())
-        {
-            TypeBasedModelParser typeBasedModelHandler = entry.getKey();
 
-            if (typeBasedModelHandler instanceof ModelHandler)
+            if (incrementalModelBuild != null)
             {
-                final ModelHandler<MetaModel> modelHandler = (ModelHandler<MetaModel>) typeBasedModelHandler;
-
-                // Sorting the domain type info into a consistent stable order.
-                // This is necessary for source controlled projects to ensure the file remains
-                // unchanged if no changes in the domain types are performed.
-                
-                final List<MetaModel> metaModelList = entry.getValue();
-                Collections.sort(metaModelList, new IdBasedLexicographicalMetaModelComparator());
-                
-                final int generatedFilesByBuilder = concurrentModelBuilder.executeClassGenerationConcurrently(handlerContext, modelHandler, metaModelList);
-                log.debug("The builder '{}' generated '{}' files", typeBasedModelHandler.getId(), generatedFilesByBuilder);
-                
-                generatedFiles += generatedFilesByBuilder;
+                incrementalModelBuild.complete();
             }
+
+            if (writeIfChanged)
+            {
+                if (cleanupTargetDirectories)
+                {
+                    // Delete the old generated artifacts which weren't generated again
+                    cleanupTargetDirectory(targetDirectory, sourceGenerator.getGeneratedFiles());
+                    cleanupTargetDirectory(targetTestDirectory, testSourceGenerator.getGeneratedFiles());
+                }
+
+                log.info("Wrote '{}' Java classes, '{}' Java classes were unchanged.",
+                    sourceGenerator.getWrittenFiles() + testSourceGenerator.getWrittenFiles(),
+                    sourceGenerator.getUnchangedFiles() + testSourceGenerator.getUnchangedFiles());
+            }
+
+            if (buildDigest != null)
+            {
+                storeBuildDigest(buildDigest, inputDigest);
+            }
+
+            log.info("Generated '{}' Java classes.", (generatedFiles));
+            log.info("The complete analyzing and generation completed in '{}'.", stopWatch.toString());
+
+            buildMetrics.complete(sourceGenerator.getWrittenFiles() + testSourceGenerator.getWrittenFiles(),
+                sourceGenerator.getWrittenBytes() + testSourceGenerator.getWrittenBytes());
+            reportBuildMetrics(buildMetrics);
         }
-        
-        log.info("Phase 4: Postprocessing generated Java classes (creating domain classes)");
+        finally
+        {
+            concurrentModelBuilder.shutdown();
+        }
+    }
+
+    /**
+     * Creates the incremental build if an index file is configured.
+     * 
+     * @return Either the incremental build or {@code null}.
+     */
+    protected IncrementalModelBuild createIncrementalModelBuild()
+    {
+        if (incrementalIndexFile == null)
+        {
+            return null;
+        }
+
+        return new IncrementalModelBuild(incrementalIndexFile, createConfigurationFingerprint());
+    }
+
+
+    /**
+     * Computes the digest of all inputs of the generation. The model
+     * directories are scanned, but no model file is read.
+     * 
+     * @return The input digest.
+     * @throws MetaGenerationFailedException If a template couldn't be read.
+     */
+    protected String createInputDigest() throws MetaGenerationFailedException
+    {
+        try
+        {
+            return BuildDigest.computeInputDigest(ModelCandidateResolver.findCandidates(createModelFileSet()),
+                BundledTemplateCache.getResourceLocations(), createConfigurationFingerprint());
+        }
+        catch (IOException e)
+        {
+            throw new MetaGenerationFailedException("The digest of the models couldn't be computed.", e);
+        }
+    }
+
+
+    private void reportBuildMetrics(BuildMetrics buildMetrics)
+    {
+        buildMetrics.log(log);
+
+        if (metricsReportFile == null)
+        {
+            return;
+        }
+
+        try
+        {
+            buildMetrics.writeReport(metricsReportFile);
+            log.info("The build metrics are written to '{}'.", metricsReportFile);
+        }
+        catch (IOException e)
+        {
+            log.warn("The build metrics couldn't be written to '" + metricsReportFile + "'.", e);
+        }
+    }
+
 
-        for (ModelContextDependentPostProcessor postProcessor : getModelPostProcessors())
+    private void storeBuildDigest(BuildDigest buildDigest, String inputDigest)
+    {
+        try
+        {
+            buildDigest.store(inputDigest, getOutputDirectories());
+        }
+        catch (IOException e)
         {
-            final JavaSourceGenerator generator = generators.get(postProcessor.getType());
-            generatedFiles += postProcessor.handleModel(handlerContext, generator);
+            log.warn("The build digest couldn't be written to '" + digestFile + "', the next build won't be skipped.",
+                e);
         }
+    }
+
 
-        log.info("Generated '{}' Java classes.", (generatedFiles));
-        log.info("The complete analyzing and generation completed in '{}'.", stopWatch.toString());
+    /**
+     * @return The package directories of the generated Java classes.
+     */
+    private List<File> getOutputDirectories()
+    {
+        String packageDirectory = packageName.replace('.', File.separatorChar);
+
+        return Arrays.asList(new File(FilenameUtils.concat(targetDirectory, packageDirectory)), new File(
+            FilenameUtils.concat(targetTestDirectory, packageDirectory)));
+    }
+
+
+    /**
+     * Creates a fingerprint of all configuration values which influence the
+     * generated classes. An incremental index is discarded if the configuration
+     * changed.
+     * 
+     * @return The configuration fingerprint.
+     */
+    protected String createConfigurationFingerprint()
+    {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append("targetDirectory=").append(targetDirectory);
+        fingerprint.append(";targetTestDirectory=").append(targetTestDirectory);
+        fingerprint.append(";packageName=").append(packageName);
+        fingerprint.append(";domainPrefix=").append(domainPrefix);
+        fingerprint.append(";integrationTestSupport=").append(integrationTestSupport);
+        fingerprint.append(";excludedModels=").append(Arrays.toString(excludedModels));
+        fingerprint.append(";includedExtensions=").append(Arrays.toString(includedExtensions));
+        fingerprint.append(";excludedExtensions=").append(Arrays.toString(excludedExtensions));
+        fingerprint.append(";configuration=").append(modelParserDependentConfiguration);
+        fingerprint.append(";pluginVersion=").append(pluginVersion);
+
+        return fingerprint.toString();
     }
 
+
     /**
      * Configures the given model handler with the found configuration
      *  
@@ -300,146 +614,174 @@ public class JavaBasedMetaModelClassBuilder
     }
 
 
-    protected void mergeMultipleMetaModels(
-        Map<TypeBasedModelParser, List<MetaModel>> modelParserList)
+    /**
+     * Retrieves if the given meta model can only be generated after the meta
+     * models of all parsers are available. This applies to domain types with
+     * referenced properties, which are resolved over all domain types, and to
+     * processes, whose view states depend on the existing views.
+     * 
+     * @param metaModel The meta model to check.
+     * @return {@code true} if the meta model depends on other meta models.
+     */
+    protected boolean dependsOnOtherMetaModels(MetaModel metaModel)
     {
-        Set<Entry<TypeBasedModelParser, List<MetaModel>>> entrySet = modelParserList.entrySet();
-        for (Entry<TypeBasedModelParser, List<MetaModel>> groupedMetaModels : entrySet)
+        if (metaModel instanceof ProcessMetaModel)
         {
-            Collection<MetaModel> metaModelList = groupedMetaModels.getValue();
-            Collection<MetaModel> obsoleteMetaModels = new ArrayList<MetaModel>();
+            return true;
+        }
 
-            for (final MetaModel metaModel : metaModelList)
+        if (metaModel instanceof DomainTypeMetaModel)
+        {
+            for (PropertyMetaModel propertyModel : ((DomainTypeMetaModel) metaModel).getMetaPropertyModels())
             {
-                if (!obsoleteMetaModels.contains(metaModel))
+                if (propertyModel.getPropertyRef() != null)
                 {
-                    Collection<MetaModel> matchingMetaModels = findAllMatching(metaModelList, new Predicate<MetaModel>()
-                    {
-                        @Override
-                        public boolean apply(MetaModel input)
-                        {
-                            boolean notNull = input != null && metaModel != null;
-                            boolean notTheSameLocation = notNull && !input.getLocation().equals(metaModel.getLocation());
-                            boolean hasEqualIdentifier = notNull && input.getId().equals(metaModel.getId());
-
-                            return hasEqualIdentifier && notTheSameLocation;
-                        }
-                    });
-
-                    if (!matchingMetaModels.isEmpty())
-                    {
-                        for (MetaModel matchingMetaModel : matchingMetaModels)
-                        {
-                            String metaModelLocation = "... " +
-                                StringUtils.difference(metaModel.getLocation(), matchingMetaModel.getLocation());
-                            String matchingMetaModelLocation = "... " +
-                                StringUtils.difference(matchingMetaModel.getLocation(), metaModel.getLocation());
-
-                            log.info(
-                                "Found meta model with id '{}' and location '{}' merged with further meta model located at '{}'. ",
-                                new Object[] { metaModel.getId(), metaModelLocation, matchingMetaModelLocation });
-
-                            groupedMetaModels.getKey().mergeModel(metaModel, matchingMetaModel);
-                        }
-                    }
-
-                    obsoleteMetaModels.addAll(matchingMetaModels);
+                    return true;
                 }
             }
-
-            groupedMetaModels.getValue().removeAll(obsoleteMetaModels);
         }
+
+        return false;
     }
 
 
-    private <T> Collection<T> findAllMatching(Collection<T> collection, Predicate<T> predicate)
+    protected void dereferenceDomainTypeProperties(Map<TypeBasedModelParser, List<MetaModel>> modelParserList)
+        throws MetaGenerationFailedException
     {
-        LinkedList<T> matches = new LinkedList<T>();
+        PropertyReferenceIndex propertyReferenceIndex = new PropertyReferenceIndex(modelParserList.values());
 
-        for (T item : collection)
+        for (List<MetaModel> metaModels : modelParserList.values())
         {
-            if (predicate.apply(item))
+            for (MetaModel model : metaModels)
             {
-                matches.add(item);
+                if (model instanceof DomainTypeMetaModel)
+                {
+                    for (PropertyMetaModel propertyModel : ((DomainTypeMetaModel) model).getMetaPropertyModels())
+                    {
+                        if (propertyModel.getPropertyRef() != null && propertyModel.getType() == null)
+                        {
+                            log.debug("Resolving model '{}' with reference '{}'.", propertyModel.getId(),
+                                propertyModel.getPropertyRef());
+                            PropertyType type = propertyReferenceIndex.resolveType(propertyModel.getPropertyRef(),
+                                propertyModel.getId());
+                            propertyModel.setType(type);
+                        }
+                    }
+                }
             }
         }
-
-        return matches;
     }
 
 
-    private PropertyType findReferencedPropertyType(Map<TypeBasedModelParser, List<MetaModel>> modelParserList,
-        String propertyRef, String modelId) throws MetaGenerationFailedException
+    /**
+     * Merges all meta models of the given parser with an equal ID but a
+     * different location. The meta models are grouped by their ID and each
+     * group is merged into the meta model with the lexicographically first
+     * location, in the order of the locations. The merged meta models are
+     * removed from the list.
+     * 
+     * @param parser The parser of the meta models.
+     * @param metaModelList The meta models of the parser.
+     */
+    protected void mergeMetaModels(TypeBasedModelParser parser, List<MetaModel> metaModelList)
     {
-        PropertyMetaModel sourcePropertyTypeModel = null;
+        Map<String, List<MetaModel>> metaModelsById = new HashMap<String, List<MetaModel>>();
 
-        search: for (List<MetaModel> metaModels : modelParserList.values())
+        for (MetaModel metaModel : metaModelList)
         {
-            for (MetaModel model : metaModels)
+            if (metaModel != null)
             {
-                if (model instanceof DomainTypeMetaModel)
+                List<MetaModel> metaModelGroup = metaModelsById.get(metaModel.getId());
+
+                if (metaModelGroup == null)
                 {
-                    sourcePropertyTypeModel = ((DomainTypeMetaModel) model).findPropertyModel(propertyRef);
-                    if (sourcePropertyTypeModel != null)
-                    {
-                        break search;
-                    }
+                    metaModelGroup = new ArrayList<MetaModel>(1);
+                    metaModelsById.put(metaModel.getId(), metaModelGroup);
                 }
+
+                metaModelGroup.add(metaModel);
             }
-            
         }
 
-        if (sourcePropertyTypeModel == null)
+        if (metaModelsById.size() == metaModelList.size())
         {
-            log.warn("The model '" + propertyRef + "' referenced by model '" +
-                modelId + "' cannot be found.");
-            
-            // Take the default property type then.
-            return new PropertyType("String");
+            // Every ID is unique, nothing to merge
+            return;
         }
-        else
+
+        Set<MetaModel> obsoleteMetaModels = Collections.newSetFromMap(new IdentityHashMap<MetaModel, Boolean>());
+
+        for (List<MetaModel> metaModelGroup : metaModelsById.values())
         {
-            // We need to check recursively if we encounter another property reference.
-            if (!StringUtils.isEmpty(sourcePropertyTypeModel.getPropertyRef()))
+            if (metaModelGroup.size() < 2)
             {
-                return findReferencedPropertyType(modelParserList, sourcePropertyTypeModel.getPropertyRef()
-                    , modelId);
+                continue;
             }
-            else
+
+            Collections.sort(metaModelGroup, new LocationBasedMetaModelComparator());
+            MetaModel metaModel = metaModelGroup.get(0);
+
+            for (MetaModel matchingMetaModel : metaModelGroup.subList(1, metaModelGroup.size()))
             {
-                PropertyType modelType = sourcePropertyTypeModel.getType();
-                if (modelType == null)
+                if (!matchingMetaModel.getLocation().equals(metaModel.getLocation()))
                 {
-                    throw new MetaGenerationFailedException("model '" + modelId + "' references the model '" +
-                        sourcePropertyTypeModel.getId() + "' which has not type information set.");
-                }
-                else
-                {
-                    return modelType;
+                    String metaModelLocation = "... " +
+                        StringUtils.difference(metaModel.getLocation(), matchingMetaModel.getLocation());
+                    String matchingMetaModelLocation = "... " +
+                        StringUtils.difference(matchingMetaModel.getLocation(), metaModel.getLocation());
+
+                    log.info(
+                        "Found meta model with id '{}' and location '{}' merged with further meta model located at '{}'. ",
+                        new Object[] { metaModel.getId(), metaModelLocation, matchingMetaModelLocation });
+
+                    parser.mergeModel(metaModel, matchingMetaModel);
+                    obsoleteMetaModels.add(matchingMetaModel);
                 }
             }
         }
-    }
 
+        List<MetaModel> remainingMetaModels = new ArrayList<MetaModel>(metaModelList.size() - obsoleteMetaModels.size());
 
-    private Collection<ModelCandidate> findModelCandidates(Set<TypeBasedModelParser> modelHandlers)
-        throws MetaGenerationFailedException
-    {
-        List<String> modelDirectories = createDefaultModelDirectories();
+        for (MetaModel metaModel : metaModelList)
+        {
+            if (!obsoleteMetaModels.contains(metaModel))
+            {
+                remainingMetaModels.add(metaModel);
+            }
+        }
+
+        metaModelList.clear();
+        metaModelList.addAll(remainingMetaModels);
+    }
 
-        ModelFileSet fileSet = new ModelFileSet(modelBaseDirectory);
-        fileSet.setIncludes(includedExtensions);
-        fileSet.setExcludes(excludedExtensions);
-        fileSet.setModelDirectories(modelDirectories);
 
-        Collection<File> candidates = ModelCandidateResolver.findCandidates(fileSet);
+    private Collection<ModelCandidate> findModelCandidates(Set<TypeBasedModelParser> modelHandlers,
+        ExecutorService executorService, BuildMetrics buildMetrics) throws MetaGenerationFailedException
+    {
+        long startNanos = System.nanoTime();
+        Collection<File> candidates = ModelCandidateResolver.findCandidates(createModelFileSet(), executorService);
         Collection<ModelCandidate> modelCandidates = new ArrayList<ModelCandidate>();
+        buildMetrics.addPhaseTime(Phase.SCAN, startNanos);
+        startNanos = System.nanoTime();
+
+        RootElementCache rootElementCache = rootElementCacheFile != null ? RootElementCache.load(rootElementCacheFile)
+            : null;
 
         for (File candidate : candidates)
         {
             try
             {
-                String rootQName = DocumentRootQNameResolver.resolveRootElementName(candidate);
+                String rootQName = rootElementCache != null ? rootElementCache.getRootElementName(candidate) : null;
+                byte[] content = null;
+
+                if (rootQName == null)
+                {
+                    // The content is read once, it's used for resolving the root element and for parsing
+                    content = FileUtils.readFileToByteArray(candidate);
+                    buildMetrics.addBytesRead(content.length);
+                    rootQName = rootElementCache != null ? rootElementCache.resolveRootElement(candidate, content)
+                        : DocumentRootQNameResolver.resolveRootElement(content);
+                }
 
                 log.debug("Found candidate for model with the root element name '{}' in '{}'.", rootQName,
                     candidate.getAbsolutePath());
@@ -448,10 +790,15 @@ public class JavaBasedMetaModelClassBuilder
                 {
                     if (modelHandler.supportsType(rootQName))
                     {
-                        modelCandidates.add(new ModelCandidate(modelHandler, candidate));
+                        modelCandidates.add(new ModelCandidate(modelHandler, candidate, content));
                     }
                 }
             }
+            catch (IOException e)
+            {
+                throw new MetaGenerationFailedException("The possible candidate '" + candidate.getAbsolutePath()
+                    + "' couldn't be read.", e);
+            }
             catch (DocumentRootQNameNotFoundException e)
             {
                 throw new MetaGenerationFailedException("A possible candidate seems to be a not well-formed "
@@ -459,11 +806,38 @@ public class JavaBasedMetaModelClassBuilder
             }
         }
 
+        if (rootElementCache != null)
+        {
+            try
+            {
+                rootElementCache.save(rootElementCacheFile);
+            }
+            catch (IOException e)
+            {
+                log.warn("The root element cache '" + rootElementCacheFile + "' couldn't be saved.", e);
+            }
+        }
+
+        buildMetrics.addPhaseTime(Phase.ROOT_SNIFF, startNanos);
+
         return modelCandidates;
     }
 
 
     public void cleanupTargetDirectory(String targetDirectory)
+    {
+        cleanupTargetDirectory(targetDirectory, Collections.<String> emptySet());
+    }
+
+
+    /**
+     * Deletes the generated artifacts in the given target directory, except
+     * the retained ones.
+     * 
+     * @param targetDirectory The target directory of the generated artifacts.
+     * @param retainedFiles The absolute paths of the files which are kept.
+     */
+    private void cleanupTargetDirectory(String targetDirectory, Set<String> retainedFiles)
     {
         String concreteDirectory = FilenameUtils.concat(targetDirectory, packageName.replace('.', File.separatorChar));
         File baseFolder = new File(concreteDirectory);
@@ -478,13 +852,28 @@ public class JavaBasedMetaModelClassBuilder
             while (foundFiles.hasNext())
             {
                 File file = foundFiles.next();
-                log.debug("Deleting the old meta model file with name '{}'.", file.getName());
-                FileUtils.deleteQuietly(file);
+
+                if (!retainedFiles.contains(file.getAbsolutePath()))
+                {
+                    log.debug("Deleting the old meta model file with name '{}'.", file.getName());
+                    FileUtils.deleteQuietly(file);
+                }
             }
         }
     }
 
 
+    private ModelFileSet createModelFileSet()
+    {
+        ModelFileSet fileSet = new ModelFileSet(modelBaseDirectory);
+        fileSet.setIncludes(includedExtensions);
+        fileSet.setExcludes(excludedExtensions);
+        fileSet.setModelDirectories(createDefaultModelDirectories());
+
+        return fileSet;
+    }
+
+
     protected List<String> createDefaultModelDirectories()
     {
         return Arrays.asList("models/domain", "models/domain/types", "models/domain/external", "models/domain/joined",
@@ -567,6 +956,51 @@ public class JavaBasedMetaModelClassBuilder
         this.modelParserDependentConfiguration = modelParserDependentConfiguration;
     }
 
+    public void setIncrementalIndexFile(File incrementalIndexFile)
+    {
+        this.incrementalIndexFile = incrementalIndexFile;
+    }
+
+    public void setThreads(String threads)
+    {
+        this.threads = threads;
+    }
+
+    public void setWriteIfChanged(boolean writeIfChanged)
+    {
+        this.writeIfChanged = writeIfChanged;
+    }
+
+    public void setDigestFile(File digestFile)
+    {
+        this.digestFile = digestFile;
+    }
+
+    public void setPluginVersion(String pluginVersion)
+    {
+        this.pluginVersion = pluginVersion;
+    }
+
+    public void setFailFast(boolean failFast)
+    {
+        this.failFast = failFast;
+    }
+
+    public void setMetricsReportFile(File metricsReportFile)
+    {
+        this.metricsReportFile = metricsReportFile;
+    }
+
+    public void setSlowestFiles(int slowestFiles)
+    {
+        this.slowestFiles = slowestFiles;
+    }
+
+    public void setRootElementCacheFile(File rootElementCacheFile)
+    {
+        this.rootElementCacheFile = rootElementCacheFile;
+    }
+
     private static class IdBasedLexicographicalMetaModelComparator
         implements Comparator<MetaModel>
     {
@@ -578,4 +1012,16 @@ public class JavaBasedMetaModelClassBuilder
         }
 
     }
+
+    private static class LocationBasedMetaModelComparator
+        implements Comparator<MetaModel>
+    {
+
+        @Override
+        public int compare(MetaModel info1, MetaModel info2)
+        {
+            return ObjectUtils.compare(info1.getLocation(), info2.getLocation());
+        }
+
+    }
 }
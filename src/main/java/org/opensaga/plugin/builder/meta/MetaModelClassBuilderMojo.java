@@ -1,5 +1,6 @@
 package org.opensaga.plugin.builder.meta;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -125,6 +126,139 @@ public class MetaModelClassBuilderMojo
      *  @parameter 
      */
     private String extendViewClass;
+
+    /**
+     * Parse the domain type and view models with a single pass StAX parser
+     * instead of building a DOM and evaluating XPath expressions. The generated
+     * classes are the same.
+     * 
+     *  @parameter expression="${opensaga.streamingParser}" default-value=false
+     */
+    private boolean streamingParser = false;
+
+    /**
+     * Generate the meta models incrementally. Only changed model files are
+     * parsed and only affected classes are rendered, the state of the last
+     * generation is stored in the {@link #incrementalIndexFile}.
+     * 
+     *  @parameter default-value=false
+     */
+    private boolean incremental = false;
+
+    /**
+     * The index file of the incremental generation.
+     * 
+     * @see #incremental
+     * @parameter default-value="${project.build.directory}/opensaga/meta-model.index"
+     */
+    private File incrementalIndexFile;
+
+    /**
+     * The number of threads used to parse and generate the meta models. Either
+     * an absolute number like {@code 4} or a multiplier of the available
+     * processors like {@code 1C}, similar to the Maven {@code -T} option.
+     * 
+     * @parameter expression="${opensaga.threads}" default-value="1C"
+     */
+    private String threads;
+
+    /**
+     * Render the classes into memory and only write the classes whose content
+     * changed. Unchanged classes keep their modification time, so the compiler
+     * and IDEs don't compile them again. The generation date isn't available
+     * in the templates then.
+     * 
+     * @parameter expression="${opensaga.writeIfChanged}" default-value=false
+     */
+    private boolean writeIfChanged = false;
+
+    /**
+     * Generate the classes into the {@link #generatedSourcesDirectory} and the
+     * {@link #generatedTestSourcesDirectory} instead of the
+     * {@link #targetDirectory} and the {@link #targetTestDirectory}. The
+     * generated classes don't end up in the version control then. The
+     * directories are added to the compile and test compile source roots of
+     * the project.
+     * 
+     * @parameter expression="${opensaga.generatedSources}" default-value=false
+     */
+    private boolean generatedSources = false;
+
+    /**
+     * The target directory for the generated classes, if
+     * {@link #generatedSources} is enabled.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-sources/opensaga"
+     */
+    private String generatedSourcesDirectory;
+
+    /**
+     * The target directory for the generated integration test classes, if
+     * {@link #generatedSources} is enabled.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-test-sources/opensaga"
+     */
+    private String generatedTestSourcesDirectory;
+
+    /**
+     * Skip the generation if the models, the templates and the configuration
+     * didn't change since the last build and the generated classes are
+     * intact. The digest of the last build is stored in the
+     * {@link #digestFile}.
+     * 
+     * @parameter expression="${opensaga.skipIfUpToDate}" default-value=true
+     */
+    private boolean skipIfUpToDate = true;
+
+    /**
+     * The digest file of the last build.
+     * 
+     * @see #skipIfUpToDate
+     * @parameter default-value="${project.build.directory}/opensaga/meta-model.digest"
+     */
+    private File digestFile;
+
+    /**
+     * The version of this plugin, the generated classes depend on it.
+     * 
+     * @parameter default-value="${plugin.version}"
+     * @readonly
+     */
+    private String pluginVersion;
+
+    /**
+     * Stop the generation at the first model which can't be parsed or
+     * generated. If disabled, all models are parsed and the build fails with
+     * a list of all broken models.
+     * 
+     * @parameter expression="${opensaga.failFast}" default-value=true
+     */
+    private boolean failFast = true;
+
+    /**
+     * The JSON report of the build metrics, e.g. the time of every phase and
+     * the slowest model files. The metrics are logged in any case.
+     * 
+     * @parameter expression="${opensaga.metricsReportFile}" default-value="${project.build.directory}/opensaga/meta-model-metrics.json"
+     */
+    private File metricsReportFile;
+
+    /**
+     * The number of the slowest model files which are reported in the build
+     * metrics.
+     * 
+     * @parameter expression="${opensaga.slowestFiles}" default-value=10
+     */
+    private int slowestFiles = 10;
+
+    /**
+     * The cache of the root element names of the model candidates, so
+     * unchanged files are classified without reading them. The resource
+     * cleanup of the precompiler may share the same cache file.
+     * 
+     * @parameter expression="${opensaga.rootElementCacheFile}" default-value="${project.build.directory}/opensaga/root-elements.cache"
+     */
+    private File rootElementCacheFile;
     
     /**
      * The Maven project.
@@ -141,13 +275,33 @@ public class MetaModelClassBuilderMojo
     {
         MavenLogAppender.startPluginLog(this);
 
-        JavaBasedMetaModelClassBuilder builder = new JavaBasedMetaModelClassBuilder(targetDirectory, targetTestDirectory, modelBaseDirectory, domainPrefix);
+        final String sourceDirectory = generatedSources ? generatedSourcesDirectory : targetDirectory;
+        final String testSourceDirectory = generatedSources ? generatedTestSourcesDirectory : targetTestDirectory;
+
+        JavaBasedMetaModelClassBuilder builder = new JavaBasedMetaModelClassBuilder(sourceDirectory, testSourceDirectory, modelBaseDirectory, domainPrefix);
         
         builder.setExcludedDomainTypes(excludedModels);
         builder.setExcludedExtensions(excludedExtensions);
         builder.setIncludedExtensions(includedExtensions);
         builder.setPackageName(packageName);
         builder.setIntegrationTestSupport(integrationTestSupport);
+        builder.setThreads(threads);
+        builder.setWriteIfChanged(writeIfChanged);
+        builder.setPluginVersion(pluginVersion);
+        builder.setFailFast(failFast);
+        builder.setMetricsReportFile(metricsReportFile);
+        builder.setSlowestFiles(slowestFiles);
+        builder.setRootElementCacheFile(rootElementCacheFile);
+        
+        if (skipIfUpToDate)
+        {
+            builder.setDigestFile(digestFile);
+        }
+        
+        if (incremental)
+        {
+            builder.setIncrementalIndexFile(incrementalIndexFile);
+        }
         
         configureMetaModelBuilder(builder);
         
@@ -158,22 +312,66 @@ public class MetaModelClassBuilderMojo
             assertDependencyIsDeclaredIfRequired("org.opensaga", "opensaga-selenium", integrationTestSupport);
             builder.generateMetaModels();
         }
+        catch (ModelBuildFailedException e)
+        {
+            throw new MojoFailureException(e.getMessage(), e);
+        }
         catch (Exception e)
         {
             throw new MojoFailureException("The generation of the meta models failed due to an internal error.", e);
         }
+
+        if (generatedSources)
+        {
+            addSourceRoots(sourceDirectory, testSourceDirectory);
+        }
+    }
+
+    /**
+     * Adds the directories of the generated classes to the source roots of
+     * the project, so they're compiled in the following phases.
+     */
+    protected void addSourceRoots(String sourceDirectory, String testSourceDirectory)
+    {
+        log.info("Adding '{}' to the compile source roots.", sourceDirectory);
+        project.addCompileSourceRoot(sourceDirectory);
+
+        if (integrationTestSupport)
+        {
+            log.info("Adding '{}' to the test compile source roots.", testSourceDirectory);
+            project.addTestCompileSourceRoot(testSourceDirectory);
+        }
     }
 
     protected void configureMetaModelBuilder(JavaBasedMetaModelClassBuilder builder)
     {
+        final HashMap<String, Map<String, Object>> configuration = new HashMap<String, Map<String,Object>>();
+        final HashMap<String, Object> viewModelHandlerConfiguration = new HashMap<String, Object>();
+
         if(StringUtils.isNotEmpty(extendViewClass))
         {
-            final HashMap<String, Object> viewModelHandlerConfiguration = new HashMap<String, Object>();
             viewModelHandlerConfiguration.put(HandlerConstants.CONFIG_KEY_EXTENDS_CLASS, extendViewClass);
+        }
 
-            final HashMap<String, Map<String, Object>> configuration = new HashMap<String, Map<String,Object>>();
+        if(streamingParser)
+        {
+            final HashMap<String, Object> domainTypeModelHandlerConfiguration = new HashMap<String, Object>();
+            domainTypeModelHandlerConfiguration.put(HandlerConstants.CONFIG_KEY_STREAMING_PARSER, Boolean.TRUE);
+            viewModelHandlerConfiguration.put(HandlerConstants.CONFIG_KEY_STREAMING_PARSER, Boolean.TRUE);
+
+            configuration.put(HandlerConstants.DOMAIN_TYPE_MODEL_HANDLER, domainTypeModelHandlerConfiguration);
+            configuration.put(HandlerConstants.EXTERNAL_DOMAIN_TYPE_MODEL_HANDLER, domainTypeModelHandlerConfiguration);
+            configuration.put(HandlerConstants.TEST_DOMAIN_TYPE_MODEL_HANDLER, domainTypeModelHandlerConfiguration);
+            configuration.put(HandlerConstants.TEST_EXTERNAL_DOMAIN_TYPE_MODEL_HANDLER, domainTypeModelHandlerConfiguration);
+        }
+
+        if(!viewModelHandlerConfiguration.isEmpty())
+        {
             configuration.put(HandlerConstants.VIEW_MODEL_HANDLER, viewModelHandlerConfiguration);
-            
+        }
+
+        if(!configuration.isEmpty())
+        {
             builder.setModelParserDependentConfiguration(configuration);
         }
     }
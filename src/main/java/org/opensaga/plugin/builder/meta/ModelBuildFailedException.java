@@ -0,0 +1,52 @@
+package org.opensaga.plugin.builder.meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+
+/**
+ * Aggregates the failures of the tasks of a meta model build. The message
+ * lists the message of every failure, which contains the path of the failed
+ * model file, the first failure is the cause.
+ *
+ * @see ConcurrentModelBuilder#setFailFast(boolean)
+ */
+public class ModelBuildFailedException
+    extends MetaGenerationFailedException
+{
+    private static final long serialVersionUID = 3620947166270317531L;
+
+    private final List<Exception> failures;
+
+
+    public ModelBuildFailedException(List<Exception> failures)
+    {
+        super(createMessage(failures), failures.get(0));
+        this.failures = Collections.unmodifiableList(new ArrayList<Exception>(failures));
+    }
+
+
+    /**
+     * @return The failures in the order they occurred.
+     */
+    public List<Exception> getFailures()
+    {
+        return failures;
+    }
+
+
+    private static String createMessage(List<Exception> failures)
+    {
+        StringBuilder message = new StringBuilder();
+        message.append("The meta model build failed with '").append(failures.size()).append("' error(s):");
+
+        for (Exception failure : failures)
+        {
+            message.append("\n - ").append(failure.getMessage());
+        }
+
+        return message.toString();
+    }
+}
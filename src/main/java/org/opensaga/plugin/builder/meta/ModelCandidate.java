@@ -11,12 +11,30 @@ public class ModelCandidate
 
     private File file;
 
+    private volatile byte[] content;
+
 
     public ModelCandidate(TypeBasedModelParser handler, File file)
+    {
+        this(handler, file, null);
+    }
+
+
+    /**
+     * Creates a model candidate with the already read content of the file. The
+     * content is passed to the handler, so the file is only read once.
+     * 
+     * @param handler The handler supporting the root element of the file.
+     * @param file The model file.
+     * @param content The content of the model file or {@code null} if the
+     *            handler has to read the file itself.
+     */
+    public ModelCandidate(TypeBasedModelParser handler, File file, byte[] content)
     {
         super();
         this.handler = handler;
         this.file = file;
+        this.content = content;
     }
 
 
@@ -31,4 +49,36 @@ public class ModelCandidate
         return file;
     }
 
+
+    /**
+     * @return Either the already read content of the model file or
+     *         {@code null} if it wasn't read or is already released.
+     */
+    public byte[] getContent()
+    {
+        return content;
+    }
+
+
+    /**
+     * @return The size of the model file in bytes, taken from the read
+     *         content if available.
+     */
+    public long getSize()
+    {
+        byte[] readContent = content;
+
+        return readContent != null ? readContent.length : file.length();
+    }
+
+
+    /**
+     * Releases the content of the model file, after the candidate has been
+     * parsed the content isn't needed any longer.
+     */
+    public void releaseContent()
+    {
+        content = null;
+    }
+
 }
@@ -1,21 +1,33 @@
 package org.opensaga.plugin.builder.meta;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Finds candidates for the model generation in a specific folder. The files are
  * reviewed and tested for their applicability.
+ * <p>
+ * The model base directory is walked depth first. Subtrees which are excluded
+ * are pruned before descending into them and files are rejected by their
+ * extension first, before any further checks are made. If an executor is
+ * given, the walk fans out across the top level directories, e.g. the
+ * extension roots, in parallel.
  * 
  * @author cklewes
  */
@@ -23,6 +35,12 @@ public class ModelCandidateResolver
 {
     private static final String DEFAULT_MODEL_EXTENSION = "xml";
 
+    /**
+     * The depth up to which the directories are walked by separate tasks, all
+     * deeper directories are walked by the task of their ancestor.
+     */
+    private static final int FAN_OUT_DEPTH = 2;
+
     private static final Logger log = LoggerFactory.getLogger(ModelCandidateResolver.class);
 
     
@@ -52,6 +70,40 @@ public class ModelCandidateResolver
      * @return A collection collecting either the found candidates or nothing.
      */
     public static Collection<File> findCandidates(ModelFileSet fileSet, String modelExtension)
+    {
+        return scanCandidates(fileSet, modelExtension, null).getCandidates();
+    }
+
+
+    /**
+     * Finds candidates by the given model file set with the default model
+     * extension. The directories are walked in parallel by the given executor.
+     * 
+     * @see #scanCandidates(ModelFileSet, String, ExecutorService)
+     * @param fileSet The file set which configures the search
+     * @param executorService The executor walking the directories, if
+     *            {@code null} the current thread walks all directories.
+     * @return A collection collecting either the found candidates or nothing.
+     */
+    public static Collection<File> findCandidates(ModelFileSet fileSet, ExecutorService executorService)
+    {
+        return scanCandidates(fileSet, DEFAULT_MODEL_EXTENSION, executorService).getCandidates();
+    }
+
+
+    /**
+     * Scans the model base directory for candidates. Besides the candidates,
+     * the result reports how many directories and files were visited and how
+     * many were skipped. The candidates are sorted by their path.
+     * 
+     * @param fileSet The file set which configures the search
+     * @param modelExtension The extension of the models
+     * @param executorService The executor walking the directories, if
+     *            {@code null} the current thread walks all directories.
+     * @return The result of the scan.
+     */
+    public static CandidateScan scanCandidates(ModelFileSet fileSet, String modelExtension,
+        ExecutorService executorService)
     {
         String normalized = FilenameUtils.normalize(fileSet.getBaseDirectory());
 
@@ -63,17 +115,205 @@ public class ModelCandidateResolver
             log.info("Extensions excluded: " + Arrays.toString(fileSet.getIncludes()));
         }
 
+        CandidateScan scan = new CandidateScan();
         File file = new File(normalized);
 
         if (file.exists())
         {
             ModelCandidateFilter candidateFilter = new ModelCandidateFilter(fileSet, modelExtension);
-            Collection<File> candidates = FileUtils.listFiles(file, candidateFilter, TrueFileFilter.INSTANCE);
+            new DirectoryWalk(candidateFilter, scan, executorService).walk(file);
+
+            log.info("Visited '{}' directories and '{}' files, skipped '{}' directories and '{}' files.",
+                new Object[] { scan.getVisitedDirectories(), scan.getVisitedFiles(), scan.getSkippedDirectories(),
+                    scan.getSkippedFiles() });
+        }
+
+        return scan;
+    }
+
+    /**
+     * The result of a candidate scan. The counters are updated concurrently
+     * while the directories are walked.
+     * 
+     * @see ModelCandidateResolver#scanCandidates(ModelFileSet, String,
+     *      ExecutorService)
+     */
+    public static class CandidateScan
+    {
+
+        private final List<File> candidates = new ArrayList<File>();
+
+        private final AtomicInteger visitedDirectories = new AtomicInteger();
+
+        private final AtomicInteger skippedDirectories = new AtomicInteger();
+
+        private final AtomicInteger visitedFiles = new AtomicInteger();
 
+        private final AtomicInteger skippedFiles = new AtomicInteger();
+
+
+        /**
+         * @return The found candidates, sorted by their path.
+         */
+        public List<File> getCandidates()
+        {
             return candidates;
         }
 
-        return Collections.emptyList();
+
+        /**
+         * @return The number of directories which were listed.
+         */
+        public int getVisitedDirectories()
+        {
+            return visitedDirectories.get();
+        }
+
+
+        /**
+         * @return The number of directories which were pruned without listing
+         *         them.
+         */
+        public int getSkippedDirectories()
+        {
+            return skippedDirectories.get();
+        }
+
+
+        /**
+         * @return The number of files which were checked completely.
+         */
+        public int getVisitedFiles()
+        {
+            return visitedFiles.get();
+        }
+
+
+        /**
+         * @return The number of files which were rejected by their extension
+         *         without further checks.
+         */
+        public int getSkippedFiles()
+        {
+            return skippedFiles.get();
+        }
+    }
+
+    /**
+     * Walks the directories depth first. Up to the {@link #FAN_OUT_DEPTH} every
+     * directory is walked by a separate task if an executor is available.
+     * 
+     * @see ModelCandidateResolver#scanCandidates(ModelFileSet, String,
+     *      ExecutorService)
+     */
+    private static class DirectoryWalk
+    {
+
+        private final ModelCandidateFilter candidateFilter;
+
+        private final CandidateScan scan;
+
+        private final ExecutorService executorService;
+
+        private final Queue<Future<List<File>>> pendingWalks = new ConcurrentLinkedQueue<Future<List<File>>>();
+
+
+        public DirectoryWalk(ModelCandidateFilter candidateFilter, CandidateScan scan,
+            ExecutorService executorService)
+        {
+            this.candidateFilter = candidateFilter;
+            this.scan = scan;
+            this.executorService = executorService;
+        }
+
+
+        public void walk(File baseDirectory)
+        {
+            List<File> candidates = scan.getCandidates();
+            walk(baseDirectory, 0, candidates);
+
+            Future<List<File>> pendingWalk;
+
+            // Every walk adds the walks of its subdirectories before it's done
+            while ((pendingWalk = pendingWalks.poll()) != null)
+            {
+                try
+                {
+                    candidates.addAll(pendingWalk.get());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("The search for model candidates was interrupted.", e);
+                }
+                catch (ExecutionException e)
+                {
+                    throw new IllegalStateException("The search for model candidates failed.", e.getCause());
+                }
+            }
+
+            Collections.sort(candidates);
+        }
+
+
+        private void walk(File directory, int depth, List<File> candidates)
+        {
+            File[] children = directory.listFiles();
+            scan.visitedDirectories.incrementAndGet();
+
+            if (children == null)
+            {
+                return;
+            }
+
+            for (final File child : children)
+            {
+                if (candidateFilter.hasModelExtension(child.getName()))
+                {
+                    if (!child.isDirectory())
+                    {
+                        scan.visitedFiles.incrementAndGet();
+
+                        if (candidateFilter.accept(child))
+                        {
+                            candidates.add(child);
+                        }
+
+                        continue;
+                    }
+                }
+                else if (!child.isDirectory())
+                {
+                    scan.skippedFiles.incrementAndGet();
+                    continue;
+                }
+
+                if (candidateFilter.isExcludedDirectory(child))
+                {
+                    scan.skippedDirectories.incrementAndGet();
+                }
+                else if (executorService != null && depth < FAN_OUT_DEPTH)
+                {
+                    final int childDepth = depth + 1;
+
+                    pendingWalks.add(executorService.submit(new Callable<List<File>>()
+                    {
+                        @Override
+                        public List<File> call()
+                        {
+                            List<File> childCandidates = new ArrayList<File>();
+                            walk(child, childDepth, childCandidates);
+
+                            return childCandidates;
+                        }
+                    }));
+                }
+                else
+                {
+                    walk(child, depth + 1, candidates);
+                }
+            }
+        }
     }
 
     /**
@@ -116,6 +356,28 @@ public class ModelCandidateResolver
         }
 
 
+        /**
+         * Checks if the given directory is excluded, including all files and
+         * directories below it. The paths of all of them start with the path
+         * of the directory, so they contain an excluded part as well.
+         * 
+         * @param directory The directory to check.
+         * @return Either {@code true} if the directory can be pruned or
+         *         {@code false} if not.
+         */
+        public boolean isExcludedDirectory(File directory)
+        {
+            return fileSet.getExcludes().length > 0 &&
+                pathMatchesDirectories(FilenameUtils.separatorsToUnix(directory.getAbsolutePath()) + "/",
+                    Arrays.asList(fileSet.getExcludes()));
+        }
+
+
+        public boolean hasModelExtension(String name)
+        {
+            return FilenameUtils.isExtension(name, modelExtension);
+        }
+
         /**
          * Checks if the given location is excluded from the search.
          * 
@@ -155,9 +417,13 @@ public class ModelCandidateResolver
          */
         private boolean pathMatchesDirectories(File location, List<String> directories)
         {
-            boolean pathMatches = false;
+            return pathMatchesDirectories(FilenameUtils.separatorsToUnix(location.getAbsolutePath()), directories);
+        }
 
-            String normalizedLocation = FilenameUtils.separatorsToUnix(location.getAbsolutePath());
+
+        private boolean pathMatchesDirectories(String normalizedLocation, List<String> directories)
+        {
+            boolean pathMatches = false;
 
             for (String directoryPart : directories)
             {
@@ -172,9 +438,7 @@ public class ModelCandidateResolver
         @Override
         public boolean accept(File dir, String name)
         {
-            boolean isMatchingExtension = FilenameUtils.isExtension(name, modelExtension);
-
-            return isMatchingExtension;
+            return hasModelExtension(name);
         }
 
     }
@@ -0,0 +1,144 @@
+package org.opensaga.plugin.builder.meta;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.parser.PropertyType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexes the properties of all domain type meta models by their ID to resolve
+ * property references. The index is built once after all meta models are
+ * merged. If several domain types contain a property with the same ID, the
+ * first one wins.
+ * <p>
+ * A property reference may point to a property which references another
+ * property itself. The type at the end of such a chain is memoized for every
+ * property of the chain, so each chain is followed only once. A chain which
+ * visits an indexed property twice is reported with all properties of the
+ * cycle.
+ * <p>
+ * The index isn't thread safe.
+ *
+ * @see JavaBasedMetaModelClassBuilder#dereferenceDomainTypeProperties(Map)
+ */
+public class PropertyReferenceIndex
+{
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyReferenceIndex.class);
+
+    private final Map<String, PropertyMetaModel> propertiesById = new HashMap<String, PropertyMetaModel>();
+
+    private final Map<String, PropertyType> resolvedTypes = new HashMap<String, PropertyType>();
+
+
+    /**
+     * Creates the index of all properties of the domain type meta models in the
+     * given meta model lists.
+     *
+     * @param metaModelLists The meta model lists, e.g. per parser.
+     */
+    public PropertyReferenceIndex(Collection<List<MetaModel>> metaModelLists)
+    {
+        for (List<MetaModel> metaModels : metaModelLists)
+        {
+            for (MetaModel model : metaModels)
+            {
+                if (model instanceof DomainTypeMetaModel)
+                {
+                    for (PropertyMetaModel propertyModel : ((DomainTypeMetaModel) model).getMetaPropertyModels())
+                    {
+                        if (!propertiesById.containsKey(propertyModel.getId()))
+                        {
+                            propertiesById.put(propertyModel.getId(), propertyModel);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Resolves the type of the property with the given ID. If the property
+     * references another property, the reference is followed.
+     *
+     * @param propertyRef The ID of the referenced property.
+     * @param modelId The ID of the referencing property, used for reporting.
+     * @return The type of the referenced property or the type {@code String}
+     *         if the referenced property can't be found.
+     * @throws MetaGenerationFailedException If the property at the end of the
+     *             chain has no type or the chain is a cycle.
+     */
+    public PropertyType resolveType(String propertyRef, String modelId) throws MetaGenerationFailedException
+    {
+        // The referencing property isn't part of the chain, its ID may belong to another indexed property
+        return resolveType(propertyRef, modelId, new LinkedHashSet<String>());
+    }
+
+
+    private PropertyType resolveType(String propertyRef, String modelId, Set<String> chain)
+        throws MetaGenerationFailedException
+    {
+        PropertyType resolvedType = resolvedTypes.get(propertyRef);
+
+        if (resolvedType != null)
+        {
+            return resolvedType;
+        }
+
+        PropertyMetaModel sourcePropertyTypeModel = propertiesById.get(propertyRef);
+
+        if (sourcePropertyTypeModel == null)
+        {
+            log.warn("The model '" + propertyRef + "' referenced by model '" + modelId + "' cannot be found.");
+
+            // Take the default property type then.
+            return new PropertyType("String");
+        }
+
+        if (!chain.add(propertyRef))
+        {
+            throw new MetaGenerationFailedException("model '" + modelId + "' references a cycle of models: " +
+                StringUtils.join(chain, " -> ") + " -> " + propertyRef);
+        }
+
+        PropertyType modelType;
+
+        // We need to check recursively if we encounter another property reference.
+        if (!StringUtils.isEmpty(sourcePropertyTypeModel.getPropertyRef()))
+        {
+            modelType = resolveType(sourcePropertyTypeModel.getPropertyRef(), modelId, chain);
+
+            // Chains ending in a missing model aren't memoized, every reference is reported
+            if (resolvedTypes.containsKey(sourcePropertyTypeModel.getPropertyRef()))
+            {
+                resolvedTypes.put(propertyRef, modelType);
+            }
+        }
+        else
+        {
+            modelType = sourcePropertyTypeModel.getType();
+
+            if (modelType == null)
+            {
+                throw new MetaGenerationFailedException("model '" + modelId + "' references the model '" +
+                    sourcePropertyTypeModel.getId() + "' which has not type information set.");
+            }
+
+            resolvedTypes.put(propertyRef, modelType);
+        }
+
+        return modelType;
+    }
+}
@@ -0,0 +1,181 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.exception.VelocityException;
+import org.opensaga.plugin.builder.meta.parser.types.view.QueryConvenientMethodTemplates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns a dedicated Velocity engine and holds the parsed templates which are
+ * bundled with the plugin. The engine is configured once with the
+ * {@value #VELOCITY_PROPERTIES}, the global Velocity singleton isn't used, so
+ * builds running concurrently in the same JVM don't share the runtime. The
+ * bundled templates are parsed when the cache is created and kept in an
+ * immutable map. A parsed {@link Template} may be merged by several threads at
+ * once with different contexts, so the templates are shared without any
+ * locking. Templates which aren't bundled are requested from the engine. The
+ * engine knows the {@link ConvenientMethodDirective}, which renders the
+ * method snippets of the cached templates.
+ * <p>
+ * A cache is created once per build and shared by all generators of the
+ * build.
+ *
+ * @see VelocityBasedJavaSourceGenerator
+ * @see ConvenientMethodDirective
+ */
+public final class BundledTemplateCache
+{
+
+    private static final Logger log = LoggerFactory.getLogger(BundledTemplateCache.class);
+
+    /**
+     * The location of the velocity properties
+     */
+    private static final String VELOCITY_PROPERTIES = "velocity.properties";
+
+    static final String JAVA_MODELS_FOLDER = "templates/java-models/";
+
+    static final String JAVA_SNIPPETS_FOLDER = "templates/java-snippets/";
+
+    private static final String[] JAVA_MODEL_TEMPLATES = { "domain-meta-model.vtl", "domain-type-meta-model.vtl",
+        "process-domain-meta-model.vtl", "process-meta-model.vtl", "test-domain-meta-model.vtl",
+        "test-domain-type-meta-model.vtl", "view-meta-model.vtl" };
+
+    private final VelocityEngine engine;
+
+    private final Map<String, Template> templates;
+
+
+    /**
+     * Creates and initializes the Velocity engine and parses the bundled
+     * templates.
+     */
+    public BundledTemplateCache()
+    {
+        engine = new VelocityEngine();
+        engine.setApplicationAttribute(BundledTemplateCache.class.getName(), this);
+        engine.init(getProperties());
+        engine.loadDirective(ConvenientMethodDirective.class.getName());
+
+        templates = loadTemplates();
+    }
+
+
+    /**
+     * Returns the parsed template for the given location.
+     *
+     * @param templateLocation The location of the template on the classpath.
+     * @return The parsed template.
+     * @throws ResourceNotFoundException If the template couldn't be found.
+     * @throws ParseErrorException If the template couldn't be parsed.
+     */
+    public Template getTemplate(String templateLocation) throws ResourceNotFoundException, ParseErrorException
+    {
+        Template template = templates.get(templateLocation);
+
+        return template != null ? template : engine.getTemplate(templateLocation);
+    }
+
+
+    /**
+     * Returns the classpath locations of the Velocity configuration and of all
+     * bundled templates. The generated classes depend on their content.
+     *
+     * @return The resource locations.
+     */
+    public static List<String> getResourceLocations()
+    {
+        List<String> resourceLocations = new ArrayList<String>();
+        resourceLocations.add(VELOCITY_PROPERTIES);
+        resourceLocations.addAll(getTemplateLocations());
+
+        return resourceLocations;
+    }
+
+
+    private static List<String> getTemplateLocations()
+    {
+        List<String> templateLocations = new ArrayList<String>();
+
+        for (String template : JAVA_MODEL_TEMPLATES)
+        {
+            templateLocations.add(JAVA_MODELS_FOLDER + template);
+        }
+
+        for (QueryConvenientMethodTemplates method : QueryConvenientMethodTemplates.values())
+        {
+            templateLocations.add(JAVA_SNIPPETS_FOLDER + method.getTemplate());
+        }
+
+        return templateLocations;
+    }
+
+
+    private Map<String, Template> loadTemplates()
+    {
+        Map<String, Template> bundledTemplates = new HashMap<String, Template>();
+
+        for (String templateLocation : getTemplateLocations())
+        {
+            loadTemplate(bundledTemplates, templateLocation);
+        }
+
+        return Collections.unmodifiableMap(bundledTemplates);
+    }
+
+
+    private void loadTemplate(Map<String, Template> bundledTemplates, String templateLocation)
+    {
+        try
+        {
+            bundledTemplates.put(templateLocation, engine.getTemplate(templateLocation));
+        }
+        catch (VelocityException e)
+        {
+            // Not cached, the failure is reported when the template is requested.
+            log.debug("The template '" + templateLocation + "' couldn't be cached.", e);
+        }
+    }
+
+
+    /**
+     * Load the velocity properties from the classpath.
+     *
+     * @return The properties, either filled from the classpath or a empty
+     *         property object.
+     */
+    private Properties getProperties()
+    {
+        Properties properties = new Properties();
+        InputStream configuration = getClass().getClassLoader().getResourceAsStream(VELOCITY_PROPERTIES);
+
+        try
+        {
+            properties.load(configuration);
+        }
+        catch (IOException e)
+        {
+            log.error("Error while loading properties from logging configuration '" + configuration + "'.", e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(configuration);
+        }
+
+        return properties;
+    }
+}
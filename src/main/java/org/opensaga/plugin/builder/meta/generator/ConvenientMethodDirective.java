@@ -0,0 +1,81 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.InternalContextAdapter;
+import org.apache.velocity.exception.MethodInvocationException;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.directive.Directive;
+import org.apache.velocity.runtime.parser.node.Node;
+import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
+import org.opensaga.plugin.builder.meta.parser.ModelNamingStrategy;
+import org.opensaga.plugin.builder.meta.parser.types.view.QueryConvenientMethodTemplates;
+
+/**
+ * Renders a convenient method of a view component with its snippet template.
+ * The snippet is merged directly into the writer of the enclosing template,
+ * so no intermediate string is created:
+ *
+ * <pre>
+ * #convenientMethod($method $namingStrategy $componentModel)
+ * </pre>
+ *
+ * The snippet is rendered with its own context, which contains the component
+ * as {@code model}, the naming strategy and {@code stringUtils}. Variables
+ * set by the snippet don't leak into the enclosing template. The snippet
+ * templates are taken from the {@link BundledTemplateCache} of the engine.
+ *
+ * @see QueryConvenientMethodTemplates
+ */
+public class ConvenientMethodDirective
+    extends Directive
+{
+
+    private static final StringUtils STRING_UTILS = new StringUtils();
+
+
+    @Override
+    public String getName()
+    {
+        return "convenientMethod";
+    }
+
+
+    @Override
+    public int getType()
+    {
+        return LINE;
+    }
+
+
+    @Override
+    public boolean render(InternalContextAdapter context, Writer writer, Node node)
+        throws IOException, ResourceNotFoundException, ParseErrorException, MethodInvocationException
+    {
+        if (node.jjtGetNumChildren() != 3)
+        {
+            throw new ParseErrorException("#" + getName() + " needs the method, the naming strategy and the "
+                + "component in " + getTemplateName() + " at line " + getLine());
+        }
+
+        QueryConvenientMethodTemplates method = (QueryConvenientMethodTemplates) node.jjtGetChild(0).value(context);
+        ModelNamingStrategy namingStrategy = (ModelNamingStrategy) node.jjtGetChild(1).value(context);
+        ViewComponentMetaModel componentMetaModel = (ViewComponentMetaModel) node.jjtGetChild(2).value(context);
+
+        VelocityContext snippetContext = new VelocityContext();
+        snippetContext.put("model", componentMetaModel);
+        snippetContext.put("namingStrategy", namingStrategy);
+        snippetContext.put("stringUtils", STRING_UTILS);
+
+        BundledTemplateCache templateCache = (BundledTemplateCache) rsvc.getApplicationAttribute(
+            BundledTemplateCache.class.getName());
+        templateCache.getTemplate(BundledTemplateCache.JAVA_SNIPPETS_FOLDER + method.getTemplate()).merge(
+            snippetContext, writer);
+
+        return true;
+    }
+}
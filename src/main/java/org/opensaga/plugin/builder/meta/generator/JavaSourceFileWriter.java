@@ -0,0 +1,181 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes rendered java source files in UTF-8. A file is rendered into a
+ * buffer of the current thread with {@link #startRendering()} and written
+ * with {@link #writeRendered(File, boolean)}. The char and byte buffers of a
+ * thread are reused for all of its files, they only grow up to the size of
+ * the largest file. The content is written with a single channel write, so
+ * there is no writer chain with its own buffers per file. Every package
+ * directory is created once, before the first file of the package is
+ * written.
+ * <p>
+ * The writer is thread safe, a thread must write its rendered file before it
+ * starts rendering the next one.
+ *
+ * @see VelocityBasedJavaSourceGenerator
+ */
+class JavaSourceFileWriter
+{
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Set<String> createdDirectories = Collections.newSetFromMap(
+        new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    private final ThreadLocal<RenderBuffer> renderBuffers = new ThreadLocal<RenderBuffer>()
+    {
+        @Override
+        protected RenderBuffer initialValue()
+        {
+            return new RenderBuffer();
+        }
+    };
+
+
+    /**
+     * Returns the emptied render buffer of the current thread.
+     *
+     * @return The writer for the content of the next file.
+     */
+    Writer startRendering()
+    {
+        RenderBuffer renderBuffer = renderBuffers.get();
+        renderBuffer.reset();
+
+        return renderBuffer;
+    }
+
+
+    /**
+     * Writes the content rendered by the current thread to the given file.
+     *
+     * @param javaClassFile The java class file.
+     * @param onlyIfChanged {@code true} to keep an existing file with the same
+     *            content untouched, so its modification time remains.
+     * @return {@code true} if the file was written, {@code false} if it was
+     *         unchanged.
+     * @throws IOException If the existing file couldn't be read or the file
+     *             couldn't be written.
+     */
+    boolean writeRendered(File javaClassFile, boolean onlyIfChanged) throws IOException
+    {
+        ByteBuffer content = renderBuffers.get().encode();
+
+        if (onlyIfChanged && javaClassFile.isFile() && javaClassFile.length() == content.remaining() &&
+            ByteBuffer.wrap(FileUtils.readFileToByteArray(javaClassFile)).equals(content))
+        {
+            return false;
+        }
+
+        createDirectory(javaClassFile.getParentFile());
+
+        int length = content.remaining();
+        FileOutputStream outputStream = new FileOutputStream(javaClassFile);
+
+        try
+        {
+            FileChannel channel = outputStream.getChannel();
+
+            while (content.hasRemaining())
+            {
+                channel.write(content);
+            }
+
+            outputStream.close();
+            writtenBytes.addAndGet(length);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @return The number of bytes of all written files.
+     */
+    long getWrittenBytes()
+    {
+        return writtenBytes.get();
+    }
+
+
+    private void createDirectory(File directory) throws IOException
+    {
+        String path = directory.getPath();
+
+        if (!createdDirectories.contains(path))
+        {
+            FileUtils.forceMkdir(directory);
+            createdDirectories.add(path);
+        }
+    }
+
+
+    /**
+     * The char buffer of a thread with the encoder and byte buffer to encode
+     * its content.
+     */
+    private static final class RenderBuffer
+        extends CharArrayWriter
+    {
+
+        private final CharsetEncoder encoder = UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+
+        RenderBuffer()
+        {
+            super(8192);
+        }
+
+
+        /**
+         * @return The encoded content, valid until the next call.
+         */
+        ByteBuffer encode()
+        {
+            int maxLength = (int) Math.ceil(count * (double) encoder.maxBytesPerChar());
+
+            if (bytes.capacity() < maxLength)
+            {
+                bytes = ByteBuffer.allocate(maxLength);
+            }
+
+            bytes.clear();
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(buf, 0, count), bytes, true);
+            encoder.flush(bytes);
+            bytes.flip();
+
+            return bytes;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.opensaga.plugin.builder.meta.generator;
 
+import java.io.File;
 import java.util.Map;
 
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
@@ -31,4 +32,16 @@ public interface JavaSourceGenerator
     void generateJavaSourceFile(String templateFileName, String outputFileName, String subPackage,
         Map<String, Object> specificContext, MetaModel... metaModel)
         throws MetaGenerationFailedException;
+
+
+    /**
+     * Resolves the Java source file which would be written by
+     * {@link #generateJavaSourceFile(String, String, String, Map, MetaModel...)}
+     * for the given output file name and sub package. The file is not created.
+     * 
+     * @param outputFileName The name of the java source output file.
+     * @param subPackage The sub package for this java class e.g. "domain"
+     * @return The location of the java source file.
+     */
+    File getJavaSourceFile(String outputFileName, String subPackage);
 }
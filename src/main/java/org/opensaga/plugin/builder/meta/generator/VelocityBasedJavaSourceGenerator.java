@@ -1,24 +1,19 @@
 package org.opensaga.plugin.builder.meta.generator;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
@@ -37,11 +32,6 @@ public class VelocityBasedJavaSourceGenerator
 
     private static final Logger log = LoggerFactory.getLogger(VelocityBasedJavaSourceGenerator.class);
 
-    /**
-     * The location of the velocity properties
-     */
-    private static final String VELOCITY_PROPERTIES = "velocity.properties";
-
     /**
      * The base directory where to search for candidates
      */
@@ -52,21 +42,53 @@ public class VelocityBasedJavaSourceGenerator
      */
     private final String packageName;
 
+    /**
+     * The templates and the Velocity engine of the current build
+     */
+    private final BundledTemplateCache templateCache;
 
     /**
-     * Creates a {@code JavaMetaModelGenerator} for the given parameters.
+     * Only write the java files if their content differs from the existing
+     * files.
+     */
+    private boolean writeIfChanged;
+
+    private final AtomicInteger writtenFiles = new AtomicInteger();
+
+    private final AtomicInteger unchangedFiles = new AtomicInteger();
+
+    private final JavaSourceFileWriter fileWriter = new JavaSourceFileWriter();
+
+    private final Set<String> generatedFiles = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+
+    /**
+     * Creates a {@code JavaMetaModelGenerator} for the given parameters with
+     * its own Velocity engine.
      * 
-     * @param javaClassTemplateLocation The template location of the java files
      * @param baseDirectory The base directory where to perform the model search.
      * @param packageName The package name for the generated Java files
      */
     public VelocityBasedJavaSourceGenerator(String baseDirectory, String packageName)
+    {
+        this(baseDirectory, packageName, new BundledTemplateCache());
+    }
+
+
+    /**
+     * Creates a {@code JavaMetaModelGenerator} for the given parameters.
+     * 
+     * @param baseDirectory The base directory where to perform the model search.
+     * @param packageName The package name for the generated Java files
+     * @param templateCache The template cache of the current build, which may
+     *            be shared by several generators.
+     */
+    public VelocityBasedJavaSourceGenerator(String baseDirectory, String packageName,
+        BundledTemplateCache templateCache)
     {
         this.baseDirectory = baseDirectory;
         this.packageName = packageName;
-        
-        InputStream configuration = this.getClass().getClassLoader().getResourceAsStream(VELOCITY_PROPERTIES);
-        Velocity.init(getProperties(configuration));
+        this.templateCache = templateCache;
     }
 
 
@@ -78,26 +100,27 @@ public class VelocityBasedJavaSourceGenerator
         Map<String, Object> specificContext, MetaModel... metaModel) throws MetaGenerationFailedException
     {
 
-        String directory = FilenameUtils.concat(baseDirectory, packageName.replace('.', '/'));
-        String concreteDirectory = FilenameUtils.concat(directory, subPackage.replace('.', '/'));
-
-        // Startup velocity engine.
-
-        File javaClassFile = new File(concreteDirectory, fileName);
-        Writer writer = null;
+        File javaClassFile = getJavaSourceFile(fileName, subPackage);
+        generatedFiles.add(javaClassFile.getAbsolutePath());
 
         try
         {
-            createNewFile(javaClassFile);
-
             VelocityContext velocityContext = createDefaultContext(subPackage, metaModel);
             mergeWithSpecificContext(specificContext, velocityContext);
             
-            Template template = Velocity.getTemplate(javaClassTemplateLocation);
+            Template template = templateCache.getTemplate(javaClassTemplateLocation);
+            template.merge(velocityContext, fileWriter.startRendering());
 
-            writer = new BufferedWriter(new OutputStreamWriter(
-                new FileOutputStream(javaClassFile), "UTF-8"));
-            template.merge(velocityContext, writer);
+            if (fileWriter.writeRendered(javaClassFile, writeIfChanged))
+            {
+                log.debug("The java class '{}' is written.", javaClassFile.getAbsolutePath());
+                writtenFiles.incrementAndGet();
+            }
+            else
+            {
+                log.debug("The java class '{}' is unchanged.", javaClassFile.getAbsolutePath());
+                unchangedFiles.incrementAndGet();
+            }
         }
         catch (ParseErrorException e)
         {
@@ -112,10 +135,19 @@ public class VelocityBasedJavaSourceGenerator
             throw new MetaGenerationFailedException("The java class file for model '" + fileName +
                 "' was not writeable.", e);
         }
-        finally
-        {
-            IOUtils.closeQuietly(writer);
-        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getJavaSourceFile(String outputFileName, String subPackage)
+    {
+        String directory = FilenameUtils.concat(baseDirectory, packageName.replace('.', '/'));
+        String concreteDirectory = FilenameUtils.concat(directory, subPackage.replace('.', '/'));
+
+        return new File(concreteDirectory, outputFileName);
     }
 
 
@@ -142,10 +174,15 @@ public class VelocityBasedJavaSourceGenerator
     {
         VelocityContext context = new VelocityContext();
         
-        final SimpleDateFormat ISO_8601_FORMATTER = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-        String currentDate = ISO_8601_FORMATTER.format(new Date());
-        
-        context.put("date", currentDate);
+        // The current date would change the content of every file
+        if (!writeIfChanged)
+        {
+            final SimpleDateFormat ISO_8601_FORMATTER = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            String currentDate = ISO_8601_FORMATTER.format(new Date());
+
+            context.put("date", currentDate);
+        }
+
         context.put("website", "http://www.opensaga.org");
         context.put("comment", "This class is generated by OpenSAGA.");
         context.put("model", metaModel);
@@ -156,54 +193,52 @@ public class VelocityBasedJavaSourceGenerator
 
 
     /**
-     * Try to create a new file and return the result. Either {@code true} if
-     * the creation was successful or {@code false} otherwise.
+     * Enables the comparison with the existing files. The java files are only
+     * written if their content changed and the current date isn't available
+     * in the templates.
      * 
-     * @param javaClassFile
-     * @return Either {@code true} if the creation was successful or
-     *         {@code false} otherwise.
-     * @throws IOException
+     * @param writeIfChanged {@code true} to write only changed java files.
      */
-    private boolean createNewFile(File javaClassFile) throws IOException
+    public void setWriteIfChanged(boolean writeIfChanged)
     {
-        FileUtils.forceMkdir(new File(javaClassFile.getParent()));
-        boolean createdNewFile = javaClassFile.createNewFile();
+        this.writeIfChanged = writeIfChanged;
+    }
 
-        if (createdNewFile)
-        {
-            log.debug("The java class '" + javaClassFile.getAbsolutePath() + "' is created.");
-        }
-        else
-        {
-            log.debug(
-                "The java class '" + javaClassFile.getAbsolutePath() + "' already exists and will be overwritten");
-        }
-        return createdNewFile;
+
+    /**
+     * @return The number of java files which were written.
+     */
+    public int getWrittenFiles()
+    {
+        return writtenFiles.get();
     }
 
 
     /**
-     * Load properties from input stream
-     * 
-     * @param configuration The input stream which is used to load the
-     *            properties.
-     * @return The properties, either filled by the input stream or a empty
-     *         property object.
+     * @return The number of java files which were rendered, but not written
+     *         because their content was unchanged.
      */
-    private Properties getProperties(InputStream configuration)
+    public int getUnchangedFiles()
     {
-        Properties properties = new Properties();
+        return unchangedFiles.get();
+    }
 
-        try
-        {
-            properties.load(configuration);
-        }
-        catch (IOException e)
-        {
-            log.error(
-                "Error while loading properties from logging configuration '" + configuration + "'.", e);
-        }
 
-        return properties;
+    /**
+     * @return The number of bytes of all written java files.
+     */
+    public long getWrittenBytes()
+    {
+        return fileWriter.getWrittenBytes();
+    }
+
+
+    /**
+     * @return The absolute paths of all java files which were generated,
+     *         either written or unchanged.
+     */
+    public Set<String> getGeneratedFiles()
+    {
+        return generatedFiles;
     }
 }
@@ -1,15 +1,21 @@
 package org.opensaga.plugin.builder.meta.generator.model;
 
+import java.io.Serializable;
+
 import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
 
 /**
- * The default abstract implementation of a meta model.
+ * The default abstract implementation of a meta model. Meta models are
+ * serializable to allow caching parsed models between builds, the parser is
+ * not part of the serialized state and must be restored by the caller.
  * 
  * @author cklewes
  *
  */
-public abstract class AbstractMetaModel implements EditableMetaModel
+public abstract class AbstractMetaModel implements EditableMetaModel, Serializable
 {
+
+    private static final long serialVersionUID = -3161393972459310028L;
     
     private String id;
 
@@ -17,7 +23,7 @@ public abstract class AbstractMetaModel implements EditableMetaModel
     
     private String location;
 
-    private TypeBasedModelParser parser;
+    private transient TypeBasedModelParser parser;
     
     @Override
     public String getId()
@@ -17,6 +17,8 @@ public class DomainTypeMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = 3322268703226730823L;
+
     private final HashMap<String, PropertyMetaModel> metaPropertyModels = new HashMap<String, PropertyMetaModel>();
 
 
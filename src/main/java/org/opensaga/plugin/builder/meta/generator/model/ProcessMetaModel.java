@@ -14,6 +14,8 @@ public class ProcessMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = 1402248313160740717L;
+
     private List<StartStateMetaModel> startStateMetaModels = new ArrayList<StartStateMetaModel>();
 
     private List<ViewStateMetaModel> viewStateMetaModels = new ArrayList<ViewStateMetaModel>();
@@ -13,6 +13,8 @@ public class PropertyMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = -3868341292189174358L;
+
     private PropertyType type;
 
     private String propertyRef;
@@ -10,4 +10,6 @@ public class RelationMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = 746465444755906637L;
+
 }
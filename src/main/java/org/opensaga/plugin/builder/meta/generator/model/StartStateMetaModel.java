@@ -10,4 +10,6 @@ public class StartStateMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = -2891345762989028017L;
+
 }
@@ -19,6 +19,8 @@ public class ViewComponentMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = 2094832050691787054L;
+
     private static final Logger log = LoggerFactory.getLogger(ViewComponentMetaModel.class);
 
     private Query query;
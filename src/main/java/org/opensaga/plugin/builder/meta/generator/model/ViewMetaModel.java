@@ -13,6 +13,8 @@ public class ViewMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = -942890899654785415L;
+
     private List<ViewComponentMetaModel> componentMetaModels = new ArrayList<ViewComponentMetaModel>();
 
 
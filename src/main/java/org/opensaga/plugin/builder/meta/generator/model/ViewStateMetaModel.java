@@ -9,6 +9,8 @@ public class ViewStateMetaModel
     extends AbstractMetaModel
 {
 
+    private static final long serialVersionUID = -619208103024506160L;
+
     private String viewReference;
 
 
@@ -0,0 +1,292 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The digest of the inputs and outputs of the last successful meta model
+ * build. The input digest covers everything the generated classes depend on:
+ * the path, size and modification time of every model file, the plugin
+ * version, the content of the templates and the builder configuration. The
+ * outputs are recorded with their size and modification time.
+ * <p>
+ * A build is up to date, if the input digest didn't change and all recorded
+ * outputs are still present and untouched. Then the whole generation can be
+ * skipped. Checking this needs a scan of the model directories, but no model
+ * file is read.
+ *
+ * @see ModelFingerprintIndex
+ */
+public class BuildDigest
+{
+
+    private static final Logger log = LoggerFactory.getLogger(BuildDigest.class);
+
+    private static final String HASH_ALGORITHM = "SHA-1";
+
+    private static final String INPUT_DIGEST_KEY = "input.digest";
+
+    private static final String OUTPUT_KEY_PREFIX = "output.";
+
+    private final File digestFile;
+
+
+    /**
+     * Creates a build digest, which is stored in the given file.
+     *
+     * @param digestFile The file of the digest.
+     */
+    public BuildDigest(File digestFile)
+    {
+        this.digestFile = digestFile;
+    }
+
+
+    /**
+     * Computes the digest of the given inputs.
+     *
+     * @param modelFiles The model files of the build.
+     * @param resources The classpath resources the generation depends on, e.g.
+     *            the templates.
+     * @param configuration The configuration fingerprint of the builder
+     *            including the plugin version.
+     * @return The input digest.
+     * @throws IOException When a resource couldn't be read.
+     */
+    public static String computeInputDigest(Collection<File> modelFiles, Collection<String> resources,
+        String configuration) throws IOException
+    {
+        MessageDigest digest = createMessageDigest();
+        update(digest, configuration);
+
+        for (String resource : resources)
+        {
+            update(digest, resource);
+            InputStream inputStream = BuildDigest.class.getClassLoader().getResourceAsStream(resource);
+
+            if (inputStream == null)
+            {
+                continue;
+            }
+
+            try
+            {
+                digest.update(IOUtils.toByteArray(inputStream));
+            }
+            finally
+            {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+
+        List<String> modelFileStates = new ArrayList<String>(modelFiles.size());
+
+        for (File modelFile : modelFiles)
+        {
+            modelFileStates.add(modelFile.getAbsolutePath() + ':' + modelFile.length() + ':' +
+                modelFile.lastModified());
+        }
+
+        // The order of the candidates depends on the directory scan
+        Collections.sort(modelFileStates);
+
+        for (String modelFileState : modelFileStates)
+        {
+            update(digest, modelFileState);
+        }
+
+        return CandidateFingerprint.toHex(digest.digest());
+    }
+
+
+    /**
+     * Checks if the last build had the same inputs and its outputs are intact.
+     *
+     * @param inputDigest The digest of the actual inputs.
+     * @param outputDirectories The directories containing the generated
+     *            files.
+     * @return Either {@code true} if the build may be skipped, otherwise
+     *         {@code false}.
+     */
+    public boolean isUpToDate(String inputDigest, Collection<File> outputDirectories)
+    {
+        Properties storedDigest = load();
+
+        if (storedDigest == null)
+        {
+            return false;
+        }
+
+        if (!inputDigest.equals(storedDigest.getProperty(INPUT_DIGEST_KEY)))
+        {
+            log.info("The models, templates or configuration changed since the last build.");
+            return false;
+        }
+
+        Map<String, String> outputs = listOutputs(outputDirectories);
+        Map<String, String> storedOutputs = new TreeMap<String, String>();
+
+        for (String key : storedDigest.stringPropertyNames())
+        {
+            if (key.startsWith(OUTPUT_KEY_PREFIX))
+            {
+                storedOutputs.put(key.substring(OUTPUT_KEY_PREFIX.length()), storedDigest.getProperty(key));
+            }
+        }
+
+        if (!outputs.equals(storedOutputs))
+        {
+            log.info("The generated files changed since the last build.");
+            return false;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Deletes the stored digest, so the next build isn't skipped if this one
+     * fails.
+     */
+    public void invalidate()
+    {
+        FileUtils.deleteQuietly(digestFile);
+    }
+
+
+    /**
+     * Stores the digest of a successful build.
+     *
+     * @param inputDigest The digest of the inputs of the build.
+     * @param outputDirectories The directories containing the generated
+     *            files.
+     * @throws IOException When the digest couldn't be written.
+     */
+    public void store(String inputDigest, Collection<File> outputDirectories) throws IOException
+    {
+        Properties digest = new Properties();
+        digest.setProperty(INPUT_DIGEST_KEY, inputDigest);
+
+        for (Map.Entry<String, String> output : listOutputs(outputDirectories).entrySet())
+        {
+            digest.setProperty(OUTPUT_KEY_PREFIX + output.getKey(), output.getValue());
+        }
+
+        FileUtils.forceMkdir(digestFile.getAbsoluteFile().getParentFile());
+        OutputStream outputStream = null;
+
+        try
+        {
+            outputStream = new BufferedOutputStream(new FileOutputStream(digestFile));
+            digest.store(outputStream, "The digest of the last meta model build");
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+
+    private Properties load()
+    {
+        if (!digestFile.isFile())
+        {
+            return null;
+        }
+
+        InputStream inputStream = null;
+
+        try
+        {
+            inputStream = new BufferedInputStream(new FileInputStream(digestFile));
+
+            Properties digest = new Properties();
+            digest.load(inputStream);
+
+            return digest;
+        }
+        catch (IOException e)
+        {
+            log.debug("The build digest '" + digestFile + "' couldn't be read.", e);
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+
+    /**
+     * @return The size and modification time of all files in the given
+     *         directories by their absolute path.
+     */
+    private Map<String, String> listOutputs(Collection<File> outputDirectories)
+    {
+        Map<String, String> outputs = new TreeMap<String, String>();
+
+        for (File outputDirectory : outputDirectories)
+        {
+            if (!outputDirectory.isDirectory())
+            {
+                continue;
+            }
+
+            for (File output : FileUtils.listFiles(outputDirectory, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE))
+            {
+                outputs.put(output.getAbsolutePath(), output.length() + ":" + output.lastModified());
+            }
+        }
+
+        return outputs;
+    }
+
+
+    private static void update(MessageDigest digest, String value)
+    {
+        try
+        {
+            digest.update(value.getBytes("UTF-8"));
+            digest.update((byte) 0);
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException("UTF-8 must be supported by every JVM.", e);
+        }
+    }
+
+
+    private static MessageDigest createMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("The hash algorithm '" + HASH_ALGORITHM + "' is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Describes the state of a model candidate file at the time it was handled by
+ * the meta model builder. The fingerprint consists of the file size, the last
+ * modification time and a content hash. Additionally the serialized meta
+ * models which were parsed from the file are stored per parser ID.
+ *
+ * @see ModelFingerprintIndex
+ */
+public class CandidateFingerprint
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -4186542387813620357L;
+
+    private static final String HASH_ALGORITHM = "SHA-1";
+
+    private final String path;
+
+    private final long size;
+
+    private final long lastModified;
+
+    private final String contentHash;
+
+    private final Map<String, byte[]> serializedModels = new ConcurrentHashMap<String, byte[]>();
+
+
+    private CandidateFingerprint(String path, long size, long lastModified, String contentHash)
+    {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+    }
+
+
+    /**
+     * Creates a fingerprint for the given file. The content of the file is
+     * read to compute the content hash.
+     *
+     * @param file The model candidate file, must not be {@code null}.
+     * @return A fingerprint without any serialized meta models.
+     * @throws IOException When the file couldn't be read.
+     */
+    public static CandidateFingerprint of(File file) throws IOException
+    {
+        return new CandidateFingerprint(file.getAbsolutePath(), file.length(), file.lastModified(), computeHash(file));
+    }
+
+
+    /**
+     * Creates a fingerprint for the given file from its already read content.
+     *
+     * @see #of(File)
+     * @param file The model candidate file, must not be {@code null}.
+     * @param content The content of the file or {@code null} if the file has
+     *            to be read.
+     * @return A fingerprint without any serialized meta models.
+     * @throws IOException When the file couldn't be read.
+     */
+    public static CandidateFingerprint of(File file, byte[] content) throws IOException
+    {
+        if (content == null)
+        {
+            return of(file);
+        }
+
+        return new CandidateFingerprint(file.getAbsolutePath(), content.length, file.lastModified(),
+            computeHash(content));
+    }
+
+
+    /**
+     * Checks if the given file still matches this fingerprint. The size and
+     * modification time are compared first. If only the modification time
+     * differs the content hash decides, so touched but unchanged files are
+     * still recognized as unchanged.
+     *
+     * @param file The file to compare with this fingerprint.
+     * @return Either {@code true} if the file content is unchanged, otherwise
+     *         {@code false}.
+     * @throws IOException When the file couldn't be read.
+     */
+    public boolean matches(File file) throws IOException
+    {
+        return matches(file, null);
+    }
+
+
+    /**
+     * Checks if the given file still matches this fingerprint. If the content
+     * hash decides, the already read content is hashed instead of the file.
+     *
+     * @see #matches(File)
+     * @param file The file to compare with this fingerprint.
+     * @param content The content of the file or {@code null} if the file has
+     *            to be read.
+     * @return Either {@code true} if the file content is unchanged, otherwise
+     *         {@code false}.
+     * @throws IOException When the file couldn't be read.
+     */
+    public boolean matches(File file, byte[] content) throws IOException
+    {
+        if (!file.isFile() || file.length() != size)
+        {
+            return false;
+        }
+
+        if (file.lastModified() == lastModified)
+        {
+            return true;
+        }
+
+        return contentHash.equals(content == null ? computeHash(file) : computeHash(content));
+    }
+
+
+    /**
+     * Creates a copy of this fingerprint for the given, unchanged file. The
+     * serialized meta models are taken over, the modification time is updated.
+     *
+     * @param file The unchanged file.
+     * @return The updated fingerprint.
+     */
+    public CandidateFingerprint renew(File file)
+    {
+        CandidateFingerprint fingerprint = new CandidateFingerprint(path, size, file.lastModified(), contentHash);
+        fingerprint.serializedModels.putAll(serializedModels);
+
+        return fingerprint;
+    }
+
+
+    public String getPath()
+    {
+        return path;
+    }
+
+
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+
+    /**
+     * Retrieves the serialized meta models which were parsed by the parser
+     * with the given ID.
+     *
+     * @param parserId The ID of the parser.
+     * @return Either the serialized meta models or {@code null} if the parser
+     *         didn't handle this file yet.
+     */
+    public byte[] getSerializedModels(String parserId)
+    {
+        return serializedModels.get(parserId);
+    }
+
+
+    public void putSerializedModels(String parserId, byte[] models)
+    {
+        serializedModels.put(parserId, models);
+    }
+
+
+    public Map<String, byte[]> getSerializedModels()
+    {
+        return serializedModels;
+    }
+
+
+    private static String computeHash(File file) throws IOException
+    {
+        InputStream inputStream = null;
+
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            inputStream = new FileInputStream(file);
+
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+
+            return toHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("The hash algorithm '" + HASH_ALGORITHM + "' is not available.", e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+
+    private static String computeHash(byte[] content)
+    {
+        try
+        {
+            return toHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(content));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("The hash algorithm '" + HASH_ALGORITHM + "' is not available.", e);
+        }
+    }
+
+
+    static String toHex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes)
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,466 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.opensaga.plugin.builder.meta.ModelCandidate;
+import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ProcessMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewMetaModel;
+import org.opensaga.plugin.builder.meta.parser.ModelContextDependentPostProcessor;
+import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controls an incremental run of the meta model builder. The state of the last
+ * run is read from a {@link ModelFingerprintIndex}. Unchanged model candidates
+ * are restored from the index instead of being parsed again, only meta models
+ * affected by a changed candidate are rendered and generated files which are
+ * no longer produced by any meta model are deleted.
+ * <p>
+ * A meta model is affected by a change when
+ * <ul>
+ * <li>one of the candidates which contributed to it changed or was removed,</li>
+ * <li>it's a domain type referencing a property of an affected domain type,</li>
+ * <li>it's a process and any view changed, because the view states depend on
+ * the existing views.</li>
+ * </ul>
+ * The aggregating domain classes are rendered whenever any candidate changed.
+ */
+public class IncrementalModelBuild
+{
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalModelBuild.class);
+
+    private static final String POST_PROCESSOR_KEY_PREFIX = "post-processor#";
+
+    private final File indexFile;
+
+    private final ModelFingerprintIndex previousIndex;
+
+    private final ModelFingerprintIndex index;
+
+    private final Set<String> unchangedFiles = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final Set<String> changedModelKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final List<MetaModel> outdatedMetaModels = Collections.synchronizedList(new ArrayList<MetaModel>());
+
+    private final AtomicInteger renderedFiles = new AtomicInteger();
+
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+
+    private volatile boolean candidatesChanged;
+
+
+    /**
+     * Creates an incremental build for the given index file. The previous
+     * index is only used if it matches the given configuration fingerprint.
+     *
+     * @param indexFile The location of the index.
+     * @param configurationFingerprint The fingerprint of the builder
+     *            configuration.
+     */
+    public IncrementalModelBuild(File indexFile, String configurationFingerprint)
+    {
+        this.indexFile = indexFile;
+        this.previousIndex = ModelFingerprintIndex.load(indexFile, configurationFingerprint);
+        this.index = new ModelFingerprintIndex(configurationFingerprint);
+        this.candidatesChanged = previousIndex == null;
+    }
+
+
+    /**
+     * Retrieves if a valid index of a previous build exists. If not, the
+     * builder has to clean up the target directories and generate everything.
+     *
+     * @return {@code true} if the build runs incrementally.
+     */
+    public boolean isIncremental()
+    {
+        return previousIndex != null;
+    }
+
+
+    /**
+     * Registers the model candidates of this run. The files are compared with
+     * the fingerprints of the previous build.
+     *
+     * @param candidates The model candidates found in this run.
+     * @throws MetaGenerationFailedException When a candidate couldn't be read.
+     */
+    public void registerCandidates(Collection<ModelCandidate> candidates) throws MetaGenerationFailedException
+    {
+        for (ModelCandidate candidate : candidates)
+        {
+            File file = candidate.getFile();
+            String path = file.getAbsolutePath();
+
+            if (index.getCandidate(path) != null)
+            {
+                continue;
+            }
+
+            try
+            {
+                CandidateFingerprint previousFingerprint = previousIndex == null ? null : previousIndex.getCandidate(path);
+
+                if (previousFingerprint != null && previousFingerprint.matches(file, candidate.getContent()))
+                {
+                    index.putCandidate(previousFingerprint.renew(file));
+                    unchangedFiles.add(path);
+                }
+                else
+                {
+                    index.putCandidate(CandidateFingerprint.of(file, candidate.getContent()));
+                    candidatesChanged = true;
+                    addOutdatedMetaModels(previousFingerprint);
+                }
+            }
+            catch (IOException e)
+            {
+                throw new MetaGenerationFailedException("The model candidate '" + path + "' couldn't be read.", e);
+            }
+        }
+
+        if (previousIndex != null)
+        {
+            for (CandidateFingerprint previousFingerprint : previousIndex.getCandidates().values())
+            {
+                if (index.getCandidate(previousFingerprint.getPath()) == null)
+                {
+                    log.debug("The model candidate '{}' was removed.", previousFingerprint.getPath());
+                    candidatesChanged = true;
+                    addOutdatedMetaModels(previousFingerprint);
+                }
+            }
+        }
+
+        log.info("Incremental build: '{}' of '{}' model candidates are unchanged.", unchangedFiles.size(),
+            index.getCandidates().size());
+    }
+
+
+    /**
+     * Retrieves if the given candidate can be restored from the index instead
+     * of being parsed.
+     *
+     * @param candidate The model candidate.
+     * @return {@code true} if the parsed meta models are available.
+     */
+    public boolean isUnchanged(ModelCandidate candidate)
+    {
+        String path = candidate.getFile().getAbsolutePath();
+
+        return unchangedFiles.contains(path) &&
+            index.getCandidate(path).getSerializedModels(candidate.getHandler().getId()) != null;
+    }
+
+
+    /**
+     * Restores the meta models of an unchanged candidate.
+     *
+     * @see #isUnchanged(ModelCandidate)
+     * @param candidate The model candidate.
+     * @return The restored meta models.
+     * @throws MetaGenerationFailedException When the meta models couldn't be
+     *             restored.
+     */
+    public List<MetaModel> restoreModels(ModelCandidate candidate) throws MetaGenerationFailedException
+    {
+        TypeBasedModelParser parser = candidate.getHandler();
+        CandidateFingerprint fingerprint = index.getCandidate(candidate.getFile().getAbsolutePath());
+
+        try
+        {
+            return MetaModelSerializer.deserialize(fingerprint.getSerializedModels(parser.getId()), parser);
+        }
+        catch (IOException e)
+        {
+            throw new MetaGenerationFailedException("The meta models of '" + fingerprint.getPath() +
+                "' couldn't be restored from the index.", e);
+        }
+    }
+
+
+    /**
+     * Stores the freshly parsed meta models of a candidate in the index. This
+     * must be called before the meta models are merged or modified.
+     *
+     * @param candidate The model candidate.
+     * @param metaModels The parsed meta models.
+     * @throws MetaGenerationFailedException When the meta models couldn't be
+     *             serialized.
+     */
+    public void recordParsedModels(ModelCandidate candidate, List<MetaModel> metaModels)
+        throws MetaGenerationFailedException
+    {
+        CandidateFingerprint fingerprint = index.getCandidate(candidate.getFile().getAbsolutePath());
+
+        try
+        {
+            fingerprint.putSerializedModels(candidate.getHandler().getId(), MetaModelSerializer.serialize(metaModels));
+        }
+        catch (IOException e)
+        {
+            throw new MetaGenerationFailedException("The meta models of '" + fingerprint.getPath() +
+                "' couldn't be stored in the index.", e);
+        }
+
+        for (MetaModel metaModel : metaModels)
+        {
+            changedModelKeys.add(getModelKey(metaModel));
+        }
+
+        candidatesChanged = true;
+    }
+
+
+    /**
+     * Determines all meta models affected by the changed candidates. Must be
+     * called after the meta models are merged.
+     *
+     * @param modelParserList The merged meta models grouped by their parser.
+     */
+    public void determineChangedModels(Map<TypeBasedModelParser, List<MetaModel>> modelParserList)
+    {
+        Set<String> changedPropertyIds = new HashSet<String>();
+
+        boolean viewsChanged = false;
+
+        synchronized (outdatedMetaModels)
+        {
+            for (MetaModel outdatedMetaModel : outdatedMetaModels)
+            {
+                addPropertyIds(outdatedMetaModel, changedPropertyIds);
+                viewsChanged |= outdatedMetaModel instanceof ViewMetaModel;
+            }
+        }
+
+        for (List<MetaModel> metaModels : modelParserList.values())
+        {
+            for (MetaModel metaModel : metaModels)
+            {
+                if (changedModelKeys.contains(getModelKey(metaModel)))
+                {
+                    addPropertyIds(metaModel, changedPropertyIds);
+                    viewsChanged |= metaModel instanceof ViewMetaModel;
+                }
+            }
+        }
+
+        boolean propagated;
+
+        do
+        {
+            propagated = false;
+
+            for (List<MetaModel> metaModels : modelParserList.values())
+            {
+                for (MetaModel metaModel : metaModels)
+                {
+                    String modelKey = getModelKey(metaModel);
+
+                    if (changedModelKeys.contains(modelKey))
+                    {
+                        continue;
+                    }
+
+                    if (metaModel instanceof DomainTypeMetaModel &&
+                        referencesChangedProperty((DomainTypeMetaModel) metaModel, changedPropertyIds))
+                    {
+                        log.debug("The domain type '{}' references a changed property.", metaModel.getId());
+                        changedModelKeys.add(modelKey);
+                        addPropertyIds(metaModel, changedPropertyIds);
+                        propagated = true;
+                    }
+                    else if (viewsChanged && metaModel instanceof ProcessMetaModel)
+                    {
+                        changedModelKeys.add(modelKey);
+                    }
+                }
+            }
+        }
+        while (propagated);
+    }
+
+
+    /**
+     * Creates the generator for the given meta model. The generator records the
+     * generated files and skips the rendering if the meta model is unchanged.
+     *
+     * @param metaModel The meta model which should be generated.
+     * @param generator The generator which renders the Java source files.
+     * @return The recording generator.
+     */
+    public JavaSourceGenerator getGenerator(MetaModel metaModel, JavaSourceGenerator generator)
+    {
+        String modelKey = getModelKey(metaModel);
+        boolean changed = !isIncremental() || changedModelKeys.contains(modelKey);
+
+        return new OutputRecordingJavaSourceGenerator(generator, changed, index.getGeneratedFiles(modelKey), this);
+    }
+
+
+    /**
+     * Creates the generator for the given post processor. The aggregated
+     * classes are rendered whenever any candidate changed.
+     *
+     * @param postProcessor The post processor.
+     * @param generator The generator which renders the Java source files.
+     * @return The recording generator.
+     */
+    public JavaSourceGenerator getGenerator(ModelContextDependentPostProcessor postProcessor,
+        JavaSourceGenerator generator)
+    {
+        String postProcessorKey = POST_PROCESSOR_KEY_PREFIX + postProcessor.getClass().getName();
+
+        return new OutputRecordingJavaSourceGenerator(generator, candidatesChanged,
+            index.getGeneratedFiles(postProcessorKey), this);
+    }
+
+
+    /**
+     * Deletes all files which were generated by the previous build but are not
+     * generated by this build anymore.
+     *
+     * @return The amount of deleted files.
+     */
+    public int deleteOrphanedFiles()
+    {
+        if (previousIndex == null)
+        {
+            return 0;
+        }
+
+        Set<String> orphanedFiles = previousIndex.getAllGeneratedFiles();
+        orphanedFiles.removeAll(index.getAllGeneratedFiles());
+
+        int deletedFiles = 0;
+
+        for (String orphanedFile : orphanedFiles)
+        {
+            log.debug("Deleting the orphaned meta model file '{}'.", orphanedFile);
+
+            if (FileUtils.deleteQuietly(new File(orphanedFile)))
+            {
+                deletedFiles++;
+            }
+        }
+
+        return deletedFiles;
+    }
+
+
+    /**
+     * Finishes this build by deleting orphaned files and saving the index.
+     *
+     * @throws MetaGenerationFailedException When the index couldn't be saved.
+     */
+    public void complete() throws MetaGenerationFailedException
+    {
+        int deletedFiles = deleteOrphanedFiles();
+
+        log.info("Incremental build: '{}' classes rendered, '{}' classes up to date, '{}' orphaned classes deleted.",
+            new Object[] { renderedFiles.get(), skippedFiles.get(), deletedFiles });
+
+        try
+        {
+            index.save(indexFile);
+        }
+        catch (IOException e)
+        {
+            throw new MetaGenerationFailedException("The meta model index couldn't be saved to '" + indexFile + "'.", e);
+        }
+    }
+
+
+    void countRenderedFile()
+    {
+        renderedFiles.incrementAndGet();
+    }
+
+
+    void countSkippedFile()
+    {
+        skippedFiles.incrementAndGet();
+    }
+
+
+    private void addOutdatedMetaModels(CandidateFingerprint previousFingerprint)
+    {
+        if (previousFingerprint == null)
+        {
+            return;
+        }
+
+        for (Entry<String, byte[]> serializedModels : previousFingerprint.getSerializedModels().entrySet())
+        {
+            try
+            {
+                List<MetaModel> metaModels = MetaModelSerializer.deserialize(serializedModels.getValue(), null);
+
+                for (MetaModel metaModel : metaModels)
+                {
+                    changedModelKeys.add(serializedModels.getKey() + "#" + metaModel.getId());
+                }
+
+                outdatedMetaModels.addAll(metaModels);
+            }
+            catch (IOException e)
+            {
+                log.debug("The outdated meta models of '" + previousFingerprint.getPath() +
+                    "' couldn't be restored.", e);
+                candidatesChanged = true;
+            }
+        }
+    }
+
+
+    private boolean referencesChangedProperty(DomainTypeMetaModel metaModel, Set<String> changedPropertyIds)
+    {
+        for (PropertyMetaModel propertyModel : metaModel.getMetaPropertyModels())
+        {
+            if (propertyModel.getPropertyRef() != null && changedPropertyIds.contains(propertyModel.getPropertyRef()))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    private void addPropertyIds(MetaModel metaModel, Set<String> propertyIds)
+    {
+        if (metaModel instanceof DomainTypeMetaModel)
+        {
+            for (PropertyMetaModel propertyModel : ((DomainTypeMetaModel) metaModel).getMetaPropertyModels())
+            {
+                propertyIds.add(propertyModel.getId());
+            }
+        }
+    }
+
+
+    private String getModelKey(MetaModel metaModel)
+    {
+        return metaModel.getParser().getId() + "#" + metaModel.getId();
+    }
+}
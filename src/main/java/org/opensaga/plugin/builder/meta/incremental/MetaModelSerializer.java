@@ -0,0 +1,120 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.opensaga.plugin.builder.meta.generator.model.EditableMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
+
+/**
+ * Serializes parsed meta models into a byte array and restores them. The
+ * parser of a meta model isn't serialized and is restored by the given parser.
+ */
+public class MetaModelSerializer
+{
+
+    private MetaModelSerializer()
+    {
+    }
+
+
+    /**
+     * Serializes the given list of meta models.
+     *
+     * @param metaModels The meta models to serialize.
+     * @return The serialized meta models.
+     * @throws IOException When a meta model isn't serializable.
+     */
+    public static byte[] serialize(List<MetaModel> metaModels) throws IOException
+    {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream outputStream = new ObjectOutputStream(byteStream);
+
+        try
+        {
+            outputStream.writeObject(new ArrayList<MetaModel>(metaModels));
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        return byteStream.toByteArray();
+    }
+
+
+    /**
+     * Restores a list of meta models serialized by {@link #serialize(List)}.
+     * Every restored meta model is assigned to the given parser.
+     *
+     * @param serializedModels The serialized meta models.
+     * @param parser The parser which originally parsed the meta models.
+     * @return A new list of restored meta models.
+     * @throws IOException When the meta models couldn't be restored.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<MetaModel> deserialize(byte[] serializedModels, TypeBasedModelParser parser) throws IOException
+    {
+        ObjectInputStream inputStream = new PluginObjectInputStream(new ByteArrayInputStream(serializedModels));
+
+        try
+        {
+            List<MetaModel> metaModels = (List<MetaModel>) inputStream.readObject();
+
+            for (MetaModel metaModel : metaModels)
+            {
+                if (metaModel instanceof EditableMetaModel)
+                {
+                    ((EditableMetaModel) metaModel).setParser(parser);
+                }
+            }
+
+            return metaModels;
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new IOException("The serialized meta models couldn't be restored: " + e.getMessage());
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Resolves classes by the plugin class loader instead of the class loader
+     * of the Maven core.
+     */
+    private static class PluginObjectInputStream
+        extends ObjectInputStream
+    {
+
+        public PluginObjectInputStream(InputStream inputStream) throws IOException
+        {
+            super(inputStream);
+        }
+
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException
+        {
+            try
+            {
+                return Class.forName(description.getName(), false, MetaModelSerializer.class.getClassLoader());
+            }
+            catch (ClassNotFoundException e)
+            {
+                return super.resolveClass(description);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The persistent index of an incremental meta model build. The index contains
+ * the fingerprints of all handled model candidates and the generated Java
+ * source files per meta model. The index is only valid for the builder
+ * configuration it was created with.
+ *
+ * @see CandidateFingerprint
+ * @see IncrementalModelBuild
+ */
+public class ModelFingerprintIndex
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 3370458466731093482L;
+
+    private static final Logger log = LoggerFactory.getLogger(ModelFingerprintIndex.class);
+
+    private final String configurationFingerprint;
+
+    private final Map<String, CandidateFingerprint> candidates = new ConcurrentHashMap<String, CandidateFingerprint>();
+
+    private final Map<String, Set<String>> generatedFiles = new ConcurrentHashMap<String, Set<String>>();
+
+
+    public ModelFingerprintIndex(String configurationFingerprint)
+    {
+        this.configurationFingerprint = configurationFingerprint;
+    }
+
+
+    /**
+     * Loads the index from the given file. The index is discarded if it
+     * couldn't be read or was created for another configuration.
+     *
+     * @param indexFile The file of the index.
+     * @param configurationFingerprint The fingerprint of the actual builder
+     *            configuration.
+     * @return Either the loaded index or {@code null}.
+     */
+    public static ModelFingerprintIndex load(File indexFile, String configurationFingerprint)
+    {
+        if (!indexFile.isFile())
+        {
+            log.info("No meta model index found at '{}', all models will be generated.", indexFile);
+            return null;
+        }
+
+        ObjectInputStream inputStream = null;
+
+        try
+        {
+            inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            ModelFingerprintIndex index = (ModelFingerprintIndex) inputStream.readObject();
+
+            if (!configurationFingerprint.equals(index.configurationFingerprint))
+            {
+                log.info("The configuration changed since the last build, all models will be generated.");
+                return null;
+            }
+
+            return index;
+        }
+        catch (IOException e)
+        {
+            log.info("The meta model index '{}' couldn't be read, all models will be generated.", indexFile);
+            log.debug("Reading the meta model index failed.", e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            log.info("The meta model index '{}' is outdated, all models will be generated.", indexFile);
+            log.debug("Reading the meta model index failed.", e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Saves this index to the given file. The index is written to a temporary
+     * file first, which replaces the existing index afterwards.
+     *
+     * @param indexFile The file of the index.
+     * @throws IOException When the index couldn't be written.
+     */
+    public void save(File indexFile) throws IOException
+    {
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(parent);
+
+        File temporaryFile = new File(parent, indexFile.getName() + ".tmp");
+        ObjectOutputStream outputStream = null;
+
+        try
+        {
+            outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+            outputStream.writeObject(this);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        FileUtils.deleteQuietly(indexFile);
+
+        if (!temporaryFile.renameTo(indexFile))
+        {
+            FileUtils.deleteQuietly(temporaryFile);
+            throw new IOException("The meta model index couldn't be moved to '" + indexFile + "'.");
+        }
+    }
+
+
+    public CandidateFingerprint getCandidate(String path)
+    {
+        return candidates.get(path);
+    }
+
+
+    public void putCandidate(CandidateFingerprint fingerprint)
+    {
+        candidates.put(fingerprint.getPath(), fingerprint);
+    }
+
+
+    public Map<String, CandidateFingerprint> getCandidates()
+    {
+        return candidates;
+    }
+
+
+    /**
+     * Retrieves the set of generated files for the given meta model key. The
+     * set is created if it doesn't exist yet.
+     *
+     * @param modelKey The key of the meta model.
+     * @return The thread safe set of generated files.
+     */
+    public Set<String> getGeneratedFiles(String modelKey)
+    {
+        Set<String> files = generatedFiles.get(modelKey);
+
+        if (files == null)
+        {
+            synchronized (generatedFiles)
+            {
+                files = generatedFiles.get(modelKey);
+
+                if (files == null)
+                {
+                    files = Collections.synchronizedSet(new HashSet<String>());
+                    generatedFiles.put(modelKey, files);
+                }
+            }
+        }
+
+        return files;
+    }
+
+
+    /**
+     * Retrieves all generated files of all meta models.
+     *
+     * @return A new set containing all generated files.
+     */
+    public Set<String> getAllGeneratedFiles()
+    {
+        Set<String> files = new HashSet<String>();
+
+        for (Set<String> modelFiles : generatedFiles.values())
+        {
+            synchronized (modelFiles)
+            {
+                files.addAll(modelFiles);
+            }
+        }
+
+        return files;
+    }
+}
@@ -0,0 +1,76 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates a {@link JavaSourceGenerator} to record the generated files of a
+ * meta model. If the meta model is unchanged the rendering is skipped as long
+ * as the previously generated file still exists.
+ *
+ * @see IncrementalModelBuild
+ */
+public class OutputRecordingJavaSourceGenerator
+    implements JavaSourceGenerator
+{
+
+    private static final Logger log = LoggerFactory.getLogger(OutputRecordingJavaSourceGenerator.class);
+
+    private final JavaSourceGenerator delegate;
+
+    private final boolean changed;
+
+    private final Set<String> generatedFiles;
+
+    private final IncrementalModelBuild incrementalModelBuild;
+
+
+    public OutputRecordingJavaSourceGenerator(JavaSourceGenerator delegate, boolean changed,
+        Set<String> generatedFiles, IncrementalModelBuild incrementalModelBuild)
+    {
+        this.delegate = delegate;
+        this.changed = changed;
+        this.generatedFiles = generatedFiles;
+        this.incrementalModelBuild = incrementalModelBuild;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateJavaSourceFile(String templateFileName, String outputFileName, String subPackage,
+        Map<String, Object> specificContext, MetaModel... metaModel) throws MetaGenerationFailedException
+    {
+        File javaSourceFile = getJavaSourceFile(outputFileName, subPackage);
+        generatedFiles.add(javaSourceFile.getAbsolutePath());
+
+        if (changed || !javaSourceFile.isFile())
+        {
+            delegate.generateJavaSourceFile(templateFileName, outputFileName, subPackage, specificContext, metaModel);
+            incrementalModelBuild.countRenderedFile();
+        }
+        else
+        {
+            log.debug("The java class '{}' is up to date.", javaSourceFile);
+            incrementalModelBuild.countSkippedFile();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getJavaSourceFile(String outputFileName, String subPackage)
+    {
+        return delegate.getJavaSourceFile(outputFileName, subPackage);
+    }
+}
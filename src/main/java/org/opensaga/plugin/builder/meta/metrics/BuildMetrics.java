@@ -0,0 +1,490 @@
+package org.opensaga.plugin.builder.meta.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+
+/**
+ * Collects the timings and throughput of a meta model build. All methods
+ * recording values are thread safe, they're called by the tasks of the build
+ * concurrently.
+ * <p>
+ * The time of a phase is the sum of the time all tasks of the phase took. The
+ * phases which are executed by the thread pool may therefore take longer than
+ * the build itself, their share of the pipeline time and the number of threads
+ * is reported as the utilization of the threads.
+ *
+ * @see #log(Logger)
+ * @see #writeReport(File)
+ */
+public class BuildMetrics
+{
+
+    private static final Comparator<FileMetrics> SLOWEST_FIRST = new Comparator<FileMetrics>()
+    {
+        @Override
+        public int compare(FileMetrics file, FileMetrics otherFile)
+        {
+            return file.nanos > otherFile.nanos ? -1 : (file.nanos < otherFile.nanos ? 1 : 0);
+        }
+    };
+
+    /**
+     * The phases of a meta model build in the order of their start.
+     */
+    public enum Phase
+    {
+        SCAN("scan"),
+        ROOT_SNIFF("root-sniff"),
+        PARSE("parse"),
+        MERGE("merge"),
+        CONTEXT_PROPAGATION("context-propagation"),
+        DEREFERENCE("dereference"),
+        RENDER("render"),
+        POST_PROCESS("post-process");
+
+        private final String name;
+
+
+        private Phase(String name)
+        {
+            this.name = name;
+        }
+
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    private final int threads;
+
+    private final int slowestFiles;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long buildNanos;
+
+    private volatile long pipelineNanos;
+
+    private final Map<Phase, PhaseMetrics> phases = new EnumMap<Phase, PhaseMetrics>(Phase.class);
+
+    private final ConcurrentMap<String, HandlerMetrics> handlers = new ConcurrentHashMap<String, HandlerMetrics>();
+
+    private final Queue<FileMetrics> parsedFiles = new ConcurrentLinkedQueue<FileMetrics>();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private volatile long bytesWritten;
+
+    private volatile int filesWritten;
+
+
+    /**
+     * Starts the metrics of a build.
+     *
+     * @param threads The number of threads of the build.
+     * @param slowestFiles The number of slowest files which are reported.
+     */
+    public BuildMetrics(int threads, int slowestFiles)
+    {
+        this.threads = threads;
+        this.slowestFiles = slowestFiles;
+
+        // All phases are known upfront, so the map is only read concurrently
+        for (Phase phase : Phase.values())
+        {
+            phases.put(phase, new PhaseMetrics());
+        }
+    }
+
+
+    /**
+     * Adds the time of a task of a phase.
+     *
+     * @param phase The phase of the task.
+     * @param startNanos The {@link System#nanoTime()} at the start of the
+     *            task.
+     */
+    public void addPhaseTime(Phase phase, long startNanos)
+    {
+        phases.get(phase).add(System.nanoTime() - startNanos);
+    }
+
+
+    /**
+     * Records the bytes read from the model files.
+     *
+     * @param bytes The number of bytes.
+     */
+    public void addBytesRead(long bytes)
+    {
+        bytesRead.addAndGet(bytes);
+    }
+
+
+    /**
+     * Records a parsed model file.
+     *
+     * @param handlerId The id of the parser of the file.
+     * @param file The model file.
+     * @param bytes The size of the model file.
+     * @param metaModels The number of the parsed meta models.
+     * @param startNanos The {@link System#nanoTime()} at the start of the
+     *            parsing.
+     */
+    public void recordParsedFile(String handlerId, File file, long bytes, int metaModels, long startNanos)
+    {
+        long nanos = System.nanoTime() - startNanos;
+        phases.get(Phase.PARSE).add(nanos);
+        parsedFiles.add(new FileMetrics(file.getPath(), handlerId, bytes, nanos));
+
+        HandlerMetrics handler = getHandler(handlerId);
+        handler.candidates.incrementAndGet();
+        handler.bytesRead.addAndGet(bytes);
+        handler.metaModels.addAndGet(metaModels);
+        handler.parseNanos.addAndGet(nanos);
+    }
+
+
+    /**
+     * Records a rendered meta model.
+     *
+     * @param handlerId The id of the handler of the meta model.
+     * @param generatedFiles The number of the generated Java classes.
+     * @param startNanos The {@link System#nanoTime()} at the start of the
+     *            rendering.
+     */
+    public void recordRenderedModel(String handlerId, int generatedFiles, long startNanos)
+    {
+        long nanos = System.nanoTime() - startNanos;
+        phases.get(Phase.RENDER).add(nanos);
+
+        HandlerMetrics handler = getHandler(handlerId);
+        handler.generatedFiles.addAndGet(generatedFiles);
+        handler.renderNanos.addAndGet(nanos);
+    }
+
+
+    /**
+     * Records the wall clock time of the pipeline of parsing, merging and
+     * rendering, which is executed by the thread pool.
+     *
+     * @param startNanos The {@link System#nanoTime()} at the start of the
+     *            pipeline.
+     */
+    public void recordPipeline(long startNanos)
+    {
+        pipelineNanos = System.nanoTime() - startNanos;
+    }
+
+
+    /**
+     * Completes the metrics of the build.
+     *
+     * @param filesWritten The number of written Java classes.
+     * @param bytesWritten The number of written bytes.
+     */
+    public void complete(int filesWritten, long bytesWritten)
+    {
+        this.filesWritten = filesWritten;
+        this.bytesWritten = bytesWritten;
+        this.buildNanos = System.nanoTime() - startNanos;
+    }
+
+
+    /**
+     * @return The share of the time of the threads which were busy with the
+     *         tasks of the pipeline, between {@code 0} and {@code 1}.
+     */
+    public double getThreadUtilization()
+    {
+        if (pipelineNanos <= 0 || threads <= 0)
+        {
+            return 0;
+        }
+
+        long busyNanos = phases.get(Phase.PARSE).nanos.get() + phases.get(Phase.MERGE).nanos.get() +
+            phases.get(Phase.CONTEXT_PROPAGATION).nanos.get() + phases.get(Phase.DEREFERENCE).nanos.get() +
+            phases.get(Phase.RENDER).nanos.get();
+
+        return Math.min(1, busyNanos / ((double) pipelineNanos * threads));
+    }
+
+
+    /**
+     * @return The slowest parsed files, the slowest first.
+     */
+    public List<FileMetrics> getSlowestFiles()
+    {
+        List<FileMetrics> files = new ArrayList<FileMetrics>(parsedFiles);
+        Collections.sort(files, SLOWEST_FIRST);
+
+        return files.subList(0, Math.min(slowestFiles, files.size()));
+    }
+
+
+    /**
+     * Logs the metrics.
+     *
+     * @param log The log of the build.
+     */
+    public void log(Logger log)
+    {
+        log.info("Build metrics: '{}' ms in total, '{}' ms in the pipeline, thread utilization '{}'%.", new Object[] {
+            toMillis(buildNanos), toMillis(pipelineNanos), Math.round(getThreadUtilization() * 100) });
+        log.info("Read '{}' bytes of models, wrote '{}' bytes in '{}' Java classes.", new Object[] { bytesRead.get(),
+            bytesWritten, filesWritten });
+
+        for (Map.Entry<Phase, PhaseMetrics> phase : phases.entrySet())
+        {
+            log.info("  Phase '{}': '{}' ms in '{}' tasks.", new Object[] { phase.getKey().getName(),
+                toMillis(phase.getValue().nanos.get()), phase.getValue().tasks.get() });
+        }
+
+        for (Map.Entry<String, HandlerMetrics> handler : new TreeMap<String, HandlerMetrics>(handlers).entrySet())
+        {
+            HandlerMetrics metrics = handler.getValue();
+            log.info("  Handler '{}': '{}' files with '{}' bytes parsed into '{}' meta models in '{}' ms, "
+                + "'{}' Java classes rendered in '{}' ms.", new Object[] { handler.getKey(), metrics.candidates.get(),
+                metrics.bytesRead.get(), metrics.metaModels.get(), toMillis(metrics.parseNanos.get()),
+                metrics.generatedFiles.get(), toMillis(metrics.renderNanos.get()) });
+        }
+
+        for (FileMetrics file : getSlowestFiles())
+        {
+            log.info("  Slow model '{}' of '{}': '{}' ms for '{}' bytes.", new Object[] { file.path, file.handlerId,
+                toMillis(file.nanos), file.bytes });
+        }
+    }
+
+
+    /**
+     * Writes the metrics as a JSON report.
+     *
+     * @param reportFile The file of the report.
+     * @throws IOException When the report couldn't be written.
+     */
+    public void writeReport(File reportFile) throws IOException
+    {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"startTime\": ").append(quote(dateFormat.format(new Date(startTime)))).append(",\n");
+        json.append("  \"totalMillis\": ").append(toMillis(buildNanos)).append(",\n");
+        json.append("  \"pipelineMillis\": ").append(toMillis(pipelineNanos)).append(",\n");
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"threadUtilization\": ").append(Math.round(getThreadUtilization() * 1000) / 1000d).append(",\n");
+        json.append("  \"bytesRead\": ").append(bytesRead.get()).append(",\n");
+        json.append("  \"bytesWritten\": ").append(bytesWritten).append(",\n");
+        json.append("  \"filesWritten\": ").append(filesWritten).append(",\n");
+
+        json.append("  \"phases\": [");
+        String separator = "\n";
+
+        for (Map.Entry<Phase, PhaseMetrics> phase : phases.entrySet())
+        {
+            json.append(separator).append("    { \"name\": ").append(quote(phase.getKey().getName()));
+            json.append(", \"millis\": ").append(toMillis(phase.getValue().nanos.get()));
+            json.append(", \"tasks\": ").append(phase.getValue().tasks.get()).append(" }");
+            separator = ",\n";
+        }
+
+        json.append("\n  ],\n");
+        json.append("  \"handlers\": [");
+        separator = "\n";
+
+        for (Map.Entry<String, HandlerMetrics> handler : new TreeMap<String, HandlerMetrics>(handlers).entrySet())
+        {
+            HandlerMetrics metrics = handler.getValue();
+            json.append(separator).append("    { \"id\": ").append(quote(handler.getKey()));
+            json.append(", \"files\": ").append(metrics.candidates.get());
+            json.append(", \"bytesRead\": ").append(metrics.bytesRead.get());
+            json.append(", \"metaModels\": ").append(metrics.metaModels.get());
+            json.append(", \"parseMillis\": ").append(toMillis(metrics.parseNanos.get()));
+            json.append(", \"generatedFiles\": ").append(metrics.generatedFiles.get());
+            json.append(", \"renderMillis\": ").append(toMillis(metrics.renderNanos.get())).append(" }");
+            separator = ",\n";
+        }
+
+        json.append("\n  ],\n");
+        json.append("  \"slowestFiles\": [");
+        separator = "\n";
+
+        for (FileMetrics file : getSlowestFiles())
+        {
+            json.append(separator).append("    { \"path\": ").append(quote(file.path));
+            json.append(", \"handler\": ").append(quote(file.handlerId));
+            json.append(", \"bytes\": ").append(file.bytes);
+            json.append(", \"millis\": ").append(toMillis(file.nanos)).append(" }");
+            separator = ",\n";
+        }
+
+        json.append("\n  ]\n");
+        json.append("}\n");
+
+        FileUtils.writeStringToFile(reportFile, json.toString(), "UTF-8");
+    }
+
+
+    private HandlerMetrics getHandler(String handlerId)
+    {
+        HandlerMetrics handler = handlers.get(handlerId);
+
+        if (handler == null)
+        {
+            HandlerMetrics newHandler = new HandlerMetrics();
+            handler = handlers.putIfAbsent(handlerId, newHandler);
+
+            if (handler == null)
+            {
+                handler = newHandler;
+            }
+        }
+
+        return handler;
+    }
+
+
+    private static long toMillis(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+
+    static String quote(String value)
+    {
+        if (value == null)
+        {
+            return "null";
+        }
+
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+
+        for (int i = 0; i < value.length(); i++)
+        {
+            char character = value.charAt(i);
+
+            switch (character)
+            {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20)
+                    {
+                        quoted.append(String.format("\\u%04x", (int) character));
+                    }
+                    else
+                    {
+                        quoted.append(character);
+                    }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * The metrics of a parsed model file.
+     */
+    public static class FileMetrics
+    {
+
+        private final String path;
+
+        private final String handlerId;
+
+        private final long bytes;
+
+        private final long nanos;
+
+
+        FileMetrics(String path, String handlerId, long bytes, long nanos)
+        {
+            this.path = path;
+            this.handlerId = handlerId;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+
+        public String getPath()
+        {
+            return path;
+        }
+
+
+        public long getNanos()
+        {
+            return nanos;
+        }
+    }
+
+    private static class PhaseMetrics
+    {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        private final AtomicLong tasks = new AtomicLong();
+
+
+        void add(long taskNanos)
+        {
+            nanos.addAndGet(taskNanos);
+            tasks.incrementAndGet();
+        }
+    }
+
+    private static class HandlerMetrics
+    {
+
+        private final AtomicLong candidates = new AtomicLong();
+
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        private final AtomicLong metaModels = new AtomicLong();
+
+        private final AtomicLong parseNanos = new AtomicLong();
+
+        private final AtomicLong generatedFiles = new AtomicLong();
+
+        private final AtomicLong renderNanos = new AtomicLong();
+    }
+}
@@ -1,5 +1,6 @@
 package org.opensaga.plugin.builder.meta.parser;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,8 +12,11 @@ import org.opensaga.plugin.builder.meta.generator.model.EditableMetaModel;
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
 
+import com.mycila.xmltool.XMLDoc;
 import com.mycila.xmltool.XMLDocumentException;
+import com.mycila.xmltool.XMLTag;
 
 public abstract class AbstractModelHandler<M extends MetaModel>
     implements TypeBasedModelParser
@@ -89,19 +93,53 @@ public abstract class AbstractModelHandler<M extends MetaModel>
      * Defines the effective implementation of the specific parsing.
      * 
      * @param modelFile The XML file of the model.
+     * @param content The already read content of the XML file or {@code null}
+     *            if the file must be read.
      * @return  A list of parsed meta models.
      * 
+     * @see #readDocument(File, byte[])
      * @throws XMLDocumentException
      */
-    protected abstract List<MetaModel> parseModelImpl(File modelFile) throws XMLDocumentException;
+    protected abstract List<MetaModel> parseModelImpl(File modelFile, byte[] content) throws XMLDocumentException;
+
+
+    /**
+     * Reads the XML document of a model. If the content of the model file was
+     * already read, the document is built from the content, otherwise from the
+     * file itself. Namespaces are ignored in both cases.
+     * 
+     * @param modelFile The XML file of the model.
+     * @param content The already read content of the XML file or {@code null}.
+     * @return The root tag of the XML document.
+     * @throws XMLDocumentException When the document isn't well formed.
+     */
+    protected XMLTag readDocument(File modelFile, byte[] content) throws XMLDocumentException
+    {
+        if (content == null)
+        {
+            return XMLDoc.from(modelFile, true);
+        }
+
+        InputSource inputSource = new InputSource(new ByteArrayInputStream(content));
+        inputSource.setSystemId(modelFile.toURI().toString());
+
+        return XMLDoc.from(inputSource, true);
+    }
 
 
     @Override
     public final List<MetaModel> parseModel(File modelFile) throws XmlParserFailureException
+    {
+        return parseModel(modelFile, null);
+    }
+
+
+    @Override
+    public final List<MetaModel> parseModel(File modelFile, byte[] content) throws XmlParserFailureException
     {
         try
         {
-            List<MetaModel> modelInfos = parseModelImpl(modelFile);
+            List<MetaModel> modelInfos = parseModelImpl(modelFile, content);
             List<MetaModel> filteredModels = filterModelList(modelInfos);
             
             for (MetaModel metaModel : filteredModels)
@@ -24,6 +24,12 @@ public class HandlerConstants
     public static final String TEST_EXTERNAL_DOMAIN_TYPE_MODEL_HANDLER = "opensaga.EXTERNAL_DOMAIN_TEST_TYPE_MODEL_HANDLER";
     
     public static final String CONFIG_KEY_EXTENDS_CLASS = VIEW_MODEL_HANDLER + "EXTENDS_CLASS";
+
+    /**
+     * Enables the single pass StAX parser of the domain type and view model
+     * handlers instead of the XPath based parsing.
+     */
+    public static final String CONFIG_KEY_STREAMING_PARSER = DOMAIN_TYPE_MODEL_HANDLER + "STREAMING_PARSER";
     
     
 }
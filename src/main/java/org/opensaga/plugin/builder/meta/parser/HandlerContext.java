@@ -1,15 +1,16 @@
 package org.opensaga.plugin.builder.meta.parser;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
 
 /**
  * The handler context is a global context which collects retrieved meta models
  * from all handlers. The context contains a list of meta models which are
- * produced by the handler.
+ * produced by the handler. The context is thread safe, handlers may add their
+ * meta models while other handlers are already generating.
  * 
  * @see HandlerConstants
  * @author cklewes
@@ -17,7 +18,7 @@ import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
 public class HandlerContext
 {
 
-    private Map<String, List<MetaModel>> context = new HashMap<String, List<MetaModel>>();
+    private Map<String, List<MetaModel>> context = new ConcurrentHashMap<String, List<MetaModel>>();
 
     /**
      * Retrieves the list of meta models for the given handler ID.
@@ -39,7 +40,7 @@ public class HandlerContext
      * @param id The ID of the handler.
      * @param metaModels The list of meta models procuded by the handler.
      */
-    public void addContextForHandlerWithId(String id, List<MetaModel> metaModels)
+    public synchronized void addContextForHandlerWithId(String id, List<MetaModel> metaModels)
     {
         if (context.containsKey(id))
         {
@@ -1,8 +1,12 @@
 package org.opensaga.plugin.builder.meta.parser;
 
-public class PropertyType
+import java.io.Serializable;
+
+public class PropertyType implements Serializable
 {
 
+    private static final long serialVersionUID = 6207615326510384183L;
+
     private String typeClass;
 
 
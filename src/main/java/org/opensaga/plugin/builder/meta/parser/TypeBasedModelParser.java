@@ -35,6 +35,23 @@ public interface TypeBasedModelParser
     List<MetaModel> parseModel(File modelFile) throws XmlParserFailureException;
 
 
+    /**
+     * Parses the given content of a model file. The content was already read
+     * from the model file, so the file isn't read again. The model file is
+     * used as the location of the parsed meta models.
+     * 
+     * @see #parseModel(File)
+     * @param modelFile The model file the content was read from.
+     * @param content The content of the model file, if {@code null} the model
+     *            file is read.
+     * @return A list with either one parsed meta model or more.
+     * @throws XmlParserFailureException When the content is not XML or the
+     *             internal structure doesn't match this
+     *             {@link TypeBasedModelParser}.
+     */
+    List<MetaModel> parseModel(File modelFile, byte[] content) throws XmlParserFailureException;
+
+
     /**
      * Retrieves a list of supported types of this model parser. A supported
      * type is mainly the root node of the XML file. The XML which should be
@@ -23,7 +23,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import com.mycila.xmltool.CallBack;
-import com.mycila.xmltool.XMLDoc;
 import com.mycila.xmltool.XMLDocumentException;
 import com.mycila.xmltool.XMLTag;
 
@@ -33,6 +32,8 @@ public class DomainTypeModelHandler
 
     private static final Logger log = LoggerFactory.getLogger(DomainTypeModelHandler.class);
 
+    private static final StreamingDomainTypeParser STREAMING_PARSER = new StreamingDomainTypeParser();
+
     private final List<String> excludedModels;
 
 
@@ -43,11 +44,16 @@ public class DomainTypeModelHandler
 
 
     @Override
-    protected List<MetaModel> parseModelImpl(File modelFile) throws XMLDocumentException
+    protected List<MetaModel> parseModelImpl(File modelFile, byte[] content) throws XMLDocumentException
     {
+        if (Boolean.TRUE.equals(getConfiguration().get(HandlerConstants.CONFIG_KEY_STREAMING_PARSER)))
+        {
+            return Arrays.asList((MetaModel) STREAMING_PARSER.parse(modelFile, content));
+        }
+
         DomainTypeMetaModel domainTypeModel = new DomainTypeMetaModel();
 
-        XMLTag domainType = XMLDoc.from(modelFile, true);
+        XMLTag domainType = readDocument(modelFile, content);
 
         domainTypeModel.setId(domainType.findAttribute("id"));
         domainTypeModel.setName(domainType.findAttribute("name"));
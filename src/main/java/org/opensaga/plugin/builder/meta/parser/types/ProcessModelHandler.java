@@ -25,7 +25,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import com.mycila.xmltool.CallBack;
-import com.mycila.xmltool.XMLDoc;
 import com.mycila.xmltool.XMLDocumentException;
 import com.mycila.xmltool.XMLTag;
 
@@ -137,12 +136,12 @@ public class ProcessModelHandler
 
 
     @Override
-    protected List<MetaModel> parseModelImpl(File modelFile) throws XMLDocumentException
+    protected List<MetaModel> parseModelImpl(File modelFile, byte[] content) throws XMLDocumentException
     {
         final ProcessMetaModel processMetaModel = new ProcessMetaModel();
         processMetaModel.setLocation(modelFile.getAbsolutePath());
 
-        XMLTag processMetaModelType = XMLDoc.from(modelFile, true);
+        XMLTag processMetaModelType = readDocument(modelFile, content);
 
         processMetaModel.setId(processMetaModelType.findAttribute("id"));
         processMetaModel.setName(processMetaModelType.findAttribute("name"));
@@ -14,7 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mycila.xmltool.CallBack;
-import com.mycila.xmltool.XMLDoc;
 import com.mycila.xmltool.XMLDocumentException;
 import com.mycila.xmltool.XMLTag;
 
@@ -41,14 +40,14 @@ public class RelationModelHandler
 
 
     @Override
-    protected List<MetaModel> parseModelImpl(File modelFile) throws XMLDocumentException
+    protected List<MetaModel> parseModelImpl(File modelFile, byte[] content) throws XMLDocumentException
     {
         List<MetaModel> relationMetaModels = new ArrayList<MetaModel>();
         CreateRelationMetaModelClosure createRelationMetaModel = new CreateRelationMetaModelClosure(modelFile, relationMetaModels);
 
         try
         {
-            XMLTag relationModel = XMLDoc.from(modelFile, true);
+            XMLTag relationModel = readDocument(modelFile, content);
             relationModel.forEach(createRelationMetaModel, "//relation");
         }
         catch (XMLDocumentException e)
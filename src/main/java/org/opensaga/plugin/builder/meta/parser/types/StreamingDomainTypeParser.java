@@ -0,0 +1,277 @@
+package org.opensaga.plugin.builder.meta.parser.types;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.parser.OpenSAGATypeMapper;
+
+import com.mycila.xmltool.XMLDocumentException;
+
+/**
+ * Parses a domain type model in a single forward pass with a StAX reader. No
+ * DOM is built and no XPath expression is evaluated, but the result is the same
+ * as the one of the XPath based parsing in {@link DomainTypeModelHandler}:
+ * <ul>
+ * <li>Namespaces of elements are ignored, the elements are matched by their
+ * local name. Attributes are matched by their qualified name.</li>
+ * <li>Properties are matched anywhere in the document by their parent
+ * elements, e.g. {@code //property-set/enum-property-set/enum-property}.</li>
+ * <li>All domain type properties are added first, followed by the formula
+ * properties and the enum properties, each in document order.</li>
+ * </ul>
+ * The parser is thread safe.
+ *
+ * @see DomainTypeModelHandler
+ */
+public class StreamingDomainTypeParser
+{
+
+    private static final String PROPERTY_SET = "property-set";
+
+    private static final String DOMAIN_TYPE_PROPERTY = "domain-type-property";
+
+    private static final String FORMULA_PROPERTY = "formula-property";
+
+    private static final String ENUM_PROPERTY = "enum-property";
+
+    private final XMLInputFactory inputFactory;
+
+
+    public StreamingDomainTypeParser()
+    {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+
+    /**
+     * Parses the given domain type model file.
+     *
+     * @param modelFile The domain type model file.
+     * @return The parsed domain type meta model.
+     * @throws XMLDocumentException When the file couldn't be read or isn't a
+     *             well formed XML document.
+     */
+    public DomainTypeMetaModel parse(File modelFile) throws XMLDocumentException
+    {
+        InputStream inputStream = null;
+
+        try
+        {
+            inputStream = new BufferedInputStream(new FileInputStream(modelFile));
+            return parse(inputStream, modelFile.getAbsolutePath());
+        }
+        catch (IOException e)
+        {
+            throw new XMLDocumentException("Error reading the domain type model '" + modelFile + "': " +
+                e.getMessage(), e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+
+    /**
+     * Parses the already read content of the given domain type model file. If there
+     * is no content, the file is read.
+     *
+     * @param modelFile The domain type model file.
+     * @param content The content of the model file or {@code null}.
+     * @return The parsed domain type meta model.
+     * @throws XMLDocumentException When the file couldn't be read or isn't a
+     *             well formed XML document.
+     */
+    public DomainTypeMetaModel parse(File modelFile, byte[] content) throws XMLDocumentException
+    {
+        if (content == null)
+        {
+            return parse(modelFile);
+        }
+
+        return parse(new ByteArrayInputStream(content), modelFile.getAbsolutePath());
+    }
+
+
+    /**
+     * Parses a domain type model from the given stream. The stream isn't
+     * closed.
+     *
+     * @param inputStream The stream of the domain type model.
+     * @param location The location of the domain type model.
+     * @return The parsed domain type meta model.
+     * @throws XMLDocumentException When the stream isn't a well formed XML
+     *             document.
+     */
+    public DomainTypeMetaModel parse(InputStream inputStream, String location) throws XMLDocumentException
+    {
+        DomainTypeMetaModel domainTypeModel = new DomainTypeMetaModel();
+        domainTypeModel.setLocation(location);
+
+        List<PropertyMetaModel> domainTypeProperties = new ArrayList<PropertyMetaModel>();
+        List<PropertyMetaModel> formulaProperties = new ArrayList<PropertyMetaModel>();
+        List<PropertyMetaModel> enumProperties = new ArrayList<PropertyMetaModel>();
+
+        XMLStreamReader reader = null;
+
+        try
+        {
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            LinkedList<String> elementPath = new LinkedList<String>();
+
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    String elementName = reader.getLocalName();
+
+                    if (elementPath.isEmpty())
+                    {
+                        domainTypeModel.setId(findAttribute(reader, "id"));
+                        domainTypeModel.setName(findAttribute(reader, "name"));
+                    }
+                    else if (isPropertyOfSet(elementPath, elementName, DOMAIN_TYPE_PROPERTY))
+                    {
+                        domainTypeProperties.add(createPropertyModel(reader, location));
+                    }
+                    else if (isPropertyOfSet(elementPath, elementName, FORMULA_PROPERTY))
+                    {
+                        formulaProperties.add(createPropertyModel(reader, location));
+                    }
+                    else if (isPropertyOfSet(elementPath, elementName, ENUM_PROPERTY))
+                    {
+                        enumProperties.add(createPropertyModel(reader, location));
+                    }
+
+                    elementPath.addFirst(elementName);
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    elementPath.removeFirst();
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new XMLDocumentException("Error parsing the domain type model '" + location + "': " +
+                e.getMessage(), e);
+        }
+        finally
+        {
+            closeQuietly(reader);
+        }
+
+        for (PropertyMetaModel propertyModel : domainTypeProperties)
+        {
+            domainTypeModel.addMetaPropertyModels(propertyModel);
+        }
+
+        for (PropertyMetaModel propertyModel : formulaProperties)
+        {
+            domainTypeModel.addMetaPropertyModels(propertyModel);
+        }
+
+        for (PropertyMetaModel propertyModel : enumProperties)
+        {
+            domainTypeModel.addMetaPropertyModels(propertyModel);
+        }
+
+        return domainTypeModel;
+    }
+
+
+    /**
+     * Checks if the element is a property of the given type inside its
+     * property set, e.g. {@code property-set/enum-property-set/enum-property}.
+     */
+    private boolean isPropertyOfSet(LinkedList<String> elementPath, String elementName, String propertyName)
+    {
+        return propertyName.equals(elementName) && elementPath.size() >= 2 &&
+            (propertyName + "-set").equals(elementPath.get(0)) && PROPERTY_SET.equals(elementPath.get(1));
+    }
+
+
+    private PropertyMetaModel createPropertyModel(XMLStreamReader reader, String location)
+    {
+        PropertyMetaModel propertyModel = new PropertyMetaModel();
+
+        propertyModel.setId(findAttribute(reader, "id"));
+        propertyModel.setName(findAttribute(reader, "name"));
+        propertyModel.setLocation(location);
+
+        // The XPath based parser compares the qualified tag name
+        if (ENUM_PROPERTY.equals(getQualifiedName(reader)))
+        {
+            propertyModel.setPropertyRef(findAttribute(reader, "property-ref"));
+        }
+        else
+        {
+            propertyModel.setType(OpenSAGATypeMapper.getType(findAttribute(reader, "type")));
+        }
+
+        return propertyModel;
+    }
+
+
+    private String getQualifiedName(XMLStreamReader reader)
+    {
+        String prefix = reader.getPrefix();
+
+        return StringUtils.isEmpty(prefix) ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+
+
+    /**
+     * Retrieves the value of the unprefixed attribute with the given name.
+     *
+     * @return Either the attribute value or {@code null} if not present.
+     */
+    private String findAttribute(XMLStreamReader reader, String name)
+    {
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+        {
+            if (name.equals(reader.getAttributeLocalName(i)) && StringUtils.isEmpty(reader.getAttributePrefix(i)))
+            {
+                return reader.getAttributeValue(i);
+            }
+        }
+
+        return null;
+    }
+
+
+    private void closeQuietly(XMLStreamReader reader)
+    {
+        if (reader != null)
+        {
+            try
+            {
+                reader.close();
+            }
+            catch (XMLStreamException e)
+            {
+                // Nothing to do here, the reader was only used for reading.
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.opensaga.plugin.builder.meta.parser.types;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewMetaModel;
+import org.opensaga.plugin.builder.meta.parser.types.view.ComponentIdentifier;
+import org.opensaga.plugin.builder.meta.parser.types.view.Query;
+
+import com.mycila.xmltool.XMLDocumentException;
+
+/**
+ * Parses a view model in a single forward pass with a StAX reader. Instead of
+ * evaluating a XPath union over all component tags, every element is
+ * dispatched by its tag name to the matching {@link Query}. The result is the
+ * same as the one of the XPath based parsing in {@link ViewModelHandler}:
+ * <ul>
+ * <li>Components are collected in document order, including nested ones.
+ * Prefixed elements are no components.</li>
+ * <li>The identifier of a component is resolved from its unprefixed attributes
+ * in alphabetical order, like the attributes of a DOM element.</li>
+ * <li>Duplicate components are dropped and the components are sorted by their
+ * identifier.</li>
+ * </ul>
+ * The parser is thread safe.
+ *
+ * @see ViewModelHandler
+ */
+public class StreamingViewParser
+{
+
+    private final Map<String, Query> queriesByTag;
+
+    private final XMLInputFactory inputFactory;
+
+
+    /**
+     * Creates a parser for the given queries.
+     *
+     * @param queriesByTag The queries of the view components by their tag.
+     */
+    public StreamingViewParser(Map<String, Query> queriesByTag)
+    {
+        this.queriesByTag = queriesByTag;
+
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+
+    /**
+     * Parses the given view model file.
+     *
+     * @param modelFile The view model file.
+     * @return The parsed view meta model.
+     * @throws XMLDocumentException When the file couldn't be read or isn't a
+     *             well formed XML document.
+     */
+    public ViewMetaModel parse(File modelFile) throws XMLDocumentException
+    {
+        InputStream inputStream = null;
+
+        try
+        {
+            inputStream = new BufferedInputStream(new FileInputStream(modelFile));
+            return parse(inputStream, modelFile.getAbsolutePath());
+        }
+        catch (IOException e)
+        {
+            throw new XMLDocumentException("Error reading the view model '" + modelFile + "': " + e.getMessage(), e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+
+    /**
+     * Parses the already read content of the given view model file. If there
+     * is no content, the file is read.
+     *
+     * @param modelFile The view model file.
+     * @param content The content of the model file or {@code null}.
+     * @return The parsed view meta model.
+     * @throws XMLDocumentException When the file couldn't be read or isn't a
+     *             well formed XML document.
+     */
+    public ViewMetaModel parse(File modelFile, byte[] content) throws XMLDocumentException
+    {
+        if (content == null)
+        {
+            return parse(modelFile);
+        }
+
+        return parse(new ByteArrayInputStream(content), modelFile.getAbsolutePath());
+    }
+
+
+    /**
+     * Parses a view model from the given stream. The stream isn't closed.
+     *
+     * @param inputStream The stream of the view model.
+     * @param location The location of the view model.
+     * @return The parsed view meta model.
+     * @throws XMLDocumentException When the stream isn't a well formed XML
+     *             document.
+     */
+    public ViewMetaModel parse(InputStream inputStream, String location) throws XMLDocumentException
+    {
+        ViewMetaModel viewMetaModel = new ViewMetaModel();
+        viewMetaModel.setLocation(location);
+
+        XMLStreamReader reader = null;
+
+        try
+        {
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            boolean rootElement = true;
+
+            while (reader.hasNext())
+            {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                {
+                    continue;
+                }
+
+                boolean component = StringUtils.isEmpty(reader.getPrefix()) &&
+                    queriesByTag.containsKey(reader.getLocalName());
+
+                if (!component && !rootElement)
+                {
+                    continue;
+                }
+
+                SortedMap<String, String> attributes = getUnprefixedAttributes(reader);
+
+                if (rootElement)
+                {
+                    viewMetaModel.setId(attributes.get("id"));
+                    viewMetaModel.setName(attributes.get("name"));
+                    rootElement = false;
+                }
+
+                if (component)
+                {
+                    String tagName = reader.getLocalName();
+
+                    ViewComponentMetaModel componentMetaModel = new ViewComponentMetaModel();
+                    componentMetaModel.setId(attributes.get("id"));
+                    componentMetaModel.setName(attributes.get("name"));
+                    componentMetaModel.setTagName(tagName);
+                    componentMetaModel.setQuery(queriesByTag.get(tagName));
+                    componentMetaModel.setLocation(location);
+
+                    resolveAndSetIdentifierForComponent(attributes, componentMetaModel);
+                    ViewModelHandler.addComponentMetaModel(viewMetaModel, componentMetaModel);
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new XMLDocumentException("Error parsing the view model '" + location + "': " + e.getMessage(), e);
+        }
+        finally
+        {
+            closeQuietly(reader);
+        }
+
+        ViewModelHandler.sortComponentMetaModels(viewMetaModel);
+        return viewMetaModel;
+    }
+
+
+    private void resolveAndSetIdentifierForComponent(SortedMap<String, String> attributes,
+        ViewComponentMetaModel componentMetaModel)
+    {
+        for (Map.Entry<String, String> attribute : attributes.entrySet())
+        {
+            ComponentIdentifier identifier = ComponentIdentifier.getIdentifierForAttribute(attribute.getKey());
+
+            if (identifier != null && componentMetaModel.getQuery().getModelElementQuery(identifier) != null &&
+                StringUtils.isNotEmpty(attribute.getValue()))
+            {
+                componentMetaModel.setIdentifier(identifier, attribute.getValue());
+                break;
+            }
+        }
+    }
+
+
+    private SortedMap<String, String> getUnprefixedAttributes(XMLStreamReader reader)
+    {
+        SortedMap<String, String> attributes = new TreeMap<String, String>();
+
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+        {
+            if (StringUtils.isEmpty(reader.getAttributePrefix(i)))
+            {
+                attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+        }
+
+        return attributes;
+    }
+
+
+    private void closeQuietly(XMLStreamReader reader)
+    {
+        if (reader != null)
+        {
+            try
+            {
+                reader.close();
+            }
+            catch (XMLStreamException e)
+            {
+                // Nothing to do here, the reader was only used for reading.
+            }
+        }
+    }
+}
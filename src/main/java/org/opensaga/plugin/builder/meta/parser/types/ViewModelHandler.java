@@ -8,13 +8,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
 import org.opensaga.plugin.builder.meta.HandlerType;
 import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
 import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
-import org.opensaga.plugin.builder.meta.generator.VelocityBasedMethodGenerator;
 import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
 import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
 import org.opensaga.plugin.builder.meta.generator.model.ViewMetaModel;
@@ -46,7 +47,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mycila.xmltool.CallBack;
-import com.mycila.xmltool.XMLDoc;
 import com.mycila.xmltool.XMLDocumentException;
 import com.mycila.xmltool.XMLTag;
 
@@ -56,23 +56,34 @@ public class ViewModelHandler
 
     private static final Logger log = LoggerFactory.getLogger(ViewModelHandler.class);
 
-    private List<String> uniqueViewNamingRegistry = new ArrayList<String>();
+    private final Set<String> uniqueViewNamingRegistry = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     
     private static final List<? extends Query> QUERIES = Arrays.asList(new ButtonQuery(), new TextFieldQuery(),
         new CheckBoxQuery(), new TextAreaQuery(), new MultiConnectQuery(), new LinkQuery(), new CategorySelectQuery(),
         new TabSetQuery(), new DataGridQuery(), new PlainTextPropertyQuery(), new SelectFieldQuery(), new HelpButtonQuery(),
         new ListIteratorQuery(), new ErrorMessageListQuery(), new RadioButtonsQuery(), new ExportButtonQuery(), new RefreshButtonQuery());
 
-    private VelocityBasedMethodGenerator methodGenerator = new VelocityBasedMethodGenerator();
+    /**
+     * The queries by their tag. If several queries share a tag, the last one
+     * wins, as the tags are unique this is just a safeguard.
+     */
+    private static final Map<String, Query> QUERIES_BY_TAG = createQueriesByTag();
+
+    private static final StreamingViewParser STREAMING_PARSER = new StreamingViewParser(QUERIES_BY_TAG);
 
 
     @Override
-    protected List<MetaModel> parseModelImpl(File modelFile) throws XMLDocumentException
+    protected List<MetaModel> parseModelImpl(File modelFile, byte[] content) throws XMLDocumentException
     {
+        if (Boolean.TRUE.equals(getConfiguration().get(HandlerConstants.CONFIG_KEY_STREAMING_PARSER)))
+        {
+            return Arrays.asList((MetaModel) STREAMING_PARSER.parse(modelFile, content));
+        }
+
         final ViewMetaModel viewMetaModel = new ViewMetaModel();
         viewMetaModel.setLocation(modelFile.getAbsolutePath());
 
-        XMLTag viewModelType = XMLDoc.from(modelFile, true);
+        XMLTag viewModelType = readDocument(modelFile, content);
 
         viewMetaModel.setId(viewModelType.findAttribute("id"));
         viewMetaModel.setName(viewModelType.findAttribute("name"));
@@ -94,22 +105,7 @@ public class ViewModelHandler
                     componentMetaModel.setLocation(viewMetaModel.getLocation());
 
                     resolveAndSetIdentifierForComponent(component, componentMetaModel);
-
-                    if (componentMetaModel.isIdentifiable())
-                    {
-                        if (viewMetaModel.getComponentMetaModels().contains(componentMetaModel))
-                        {
-                            log.info("Found duplicate element with identifier '{}' of type '{}' in file '{}'",
-                                new Object[] { componentMetaModel.getIdentifier(), componentMetaModel.getTagName(),
-                                    componentMetaModel.getLocation() });
-
-                            // We remove both occurances of this duplicate.
-                            viewMetaModel.getComponentMetaModels().remove(componentMetaModel);
-                            return;
-                        }
-
-                        viewMetaModel.getComponentMetaModels().add(componentMetaModel);
-                    }
+                    addComponentMetaModel(viewMetaModel, componentMetaModel);
                 }
             }, getQueriesAsXPathExpression());
         }
@@ -120,11 +116,45 @@ public class ViewModelHandler
             // so we have to guess the structure and may fail.
         }
 
-        Collections.sort(viewMetaModel.getComponentMetaModels(), new LexicographicalMetaModelComparator());
+        sortComponentMetaModels(viewMetaModel);
         return Arrays.asList((MetaModel) viewMetaModel);
     }
 
 
+    /**
+     * Adds the given component to the view if it's identifiable. If the view
+     * already contains an equal component, both are dropped, because they
+     * can't be distinguished.
+     * 
+     * @param viewMetaModel The view containing the component.
+     * @param componentMetaModel The component to add.
+     */
+    static void addComponentMetaModel(ViewMetaModel viewMetaModel, ViewComponentMetaModel componentMetaModel)
+    {
+        if (componentMetaModel.isIdentifiable())
+        {
+            if (viewMetaModel.getComponentMetaModels().contains(componentMetaModel))
+            {
+                log.info("Found duplicate element with identifier '{}' of type '{}' in file '{}'",
+                    new Object[] { componentMetaModel.getIdentifier(), componentMetaModel.getTagName(),
+                        componentMetaModel.getLocation() });
+
+                // We remove both occurances of this duplicate.
+                viewMetaModel.getComponentMetaModels().remove(componentMetaModel);
+                return;
+            }
+
+            viewMetaModel.getComponentMetaModels().add(componentMetaModel);
+        }
+    }
+
+
+    static void sortComponentMetaModels(ViewMetaModel viewMetaModel)
+    {
+        Collections.sort(viewMetaModel.getComponentMetaModels(), new LexicographicalMetaModelComparator());
+    }
+
+
     @Override
     public int handleModel(HandlerContext handlerContext, ViewMetaModel metaModel, JavaSourceGenerator sourceGenerator)
         throws MetaGenerationFailedException
@@ -134,7 +164,6 @@ public class ViewModelHandler
 
         Map<String, Object> context = new HashMap<String, Object>();
         context.put("namingStrategy", namingStrategy);
-        context.put("methodGenerator", methodGenerator);
         context.put("extendsClass", false);
 
         if (getConfiguration().containsKey(HandlerConstants.CONFIG_KEY_EXTENDS_CLASS))
@@ -155,14 +184,12 @@ public class ViewModelHandler
         throws MetaGenerationFailedException
     {
         final String viewName = namingStrategy.getJavaClassNameForViewModel(metaModel);
-        if (uniqueViewNamingRegistry.contains(viewName))
+
+        // The views are generated concurrently, so the view name is verified and registered at once.
+        if (!uniqueViewNamingRegistry.add(viewName))
         {
             throw new MetaGenerationFailedException("The view name '" + viewName + "' for view with ID '" + metaModel.getId() + "' is a duplicate, please adjust it.");
         }
-        else
-        {
-            uniqueViewNamingRegistry.add(viewName);
-        }
     }
 
 
@@ -181,16 +208,20 @@ public class ViewModelHandler
 
     private Query resolveMatchingQuery(String tagName)
     {
-        Query matchingQuery = null;
+        return QUERIES_BY_TAG.get(tagName);
+    }
+
+
+    private static Map<String, Query> createQueriesByTag()
+    {
+        Map<String, Query> queriesByTag = new HashMap<String, Query>();
 
         for (Query query : QUERIES)
         {
-            if (query.getTag().equals(tagName))
-            {
-                matchingQuery = query;
-            }
+            queriesByTag.put(query.getTag(), query);
         }
-        return matchingQuery;
+
+        return queriesByTag;
     }
 
 
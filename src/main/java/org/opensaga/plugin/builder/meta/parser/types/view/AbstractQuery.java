@@ -1,5 +1,6 @@
 package org.opensaga.plugin.builder.meta.parser.types.view;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,9 +10,11 @@ import org.openqa.selenium.WebElement;
 import org.opensaga.selenium.query.ModelElementQuery;
 
 public abstract class AbstractQuery
-    implements Query
+    implements Query, Serializable
 {
 
+    private static final long serialVersionUID = -3313905604561027467L;
+
     private Map<ComponentIdentifier, ModelElementQuery> modelElementQueries = new HashMap<ComponentIdentifier, ModelElementQuery>();
 
     private final List<QueryConvenientMethodTemplates> methodList = new ArrayList<QueryConvenientMethodTemplates>();
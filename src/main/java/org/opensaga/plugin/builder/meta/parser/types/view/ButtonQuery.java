@@ -6,6 +6,9 @@ public class ButtonQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -1154290774417772786L;
+
+
     @Override
     public String getTag()
     {
@@ -7,6 +7,9 @@ public class CategorySelectQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -2299797294696060307L;
+
+
     @Override
     public String getTag()
     {
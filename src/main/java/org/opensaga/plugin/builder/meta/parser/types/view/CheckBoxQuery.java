@@ -6,6 +6,9 @@ public class CheckBoxQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 8252077390593849090L;
+
+
     @Override
     public String getTag()
     {
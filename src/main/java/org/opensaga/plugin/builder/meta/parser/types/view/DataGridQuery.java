@@ -7,6 +7,9 @@ public class DataGridQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -4613084688322774839L;
+
+
     @Override
     public String getTag()
     {
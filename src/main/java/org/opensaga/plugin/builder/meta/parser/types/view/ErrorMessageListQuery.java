@@ -6,6 +6,9 @@ public class ErrorMessageListQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 6617684049176108565L;
+
+
     @Override
     public String getTag()
     {
@@ -6,6 +6,9 @@ public class ExportButtonQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 4412339359459431662L;
+
+
     @Override
     public String getTag()
     {
@@ -6,6 +6,9 @@ public class HelpButtonQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -5640969784981316141L;
+
+
     @Override
     public String getTag()
     {
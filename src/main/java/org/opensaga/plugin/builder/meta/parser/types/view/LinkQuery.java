@@ -6,6 +6,9 @@ public class LinkQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -8992466553309511754L;
+
+
     @Override
     public String getTag()
     {
@@ -7,6 +7,9 @@ public class ListIteratorQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 5561890823930303138L;
+
+
     @Override
     public String getTag()
     {
@@ -7,6 +7,9 @@ public class MultiConnectQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -894115694730194423L;
+
+
     @Override
     public String getTag()
     {
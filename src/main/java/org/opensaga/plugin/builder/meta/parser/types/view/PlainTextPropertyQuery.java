@@ -6,6 +6,9 @@ public class PlainTextPropertyQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 8888282654321759748L;
+
+
     @Override
     public String getTag()
     {
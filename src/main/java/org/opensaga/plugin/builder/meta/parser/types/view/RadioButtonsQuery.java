@@ -7,6 +7,9 @@ public class RadioButtonsQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -2149020704869330998L;
+
+
     @Override
     public String getTag()
     {
@@ -6,6 +6,9 @@ public class RefreshButtonQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 277744529258969725L;
+
+
     @Override
     public String getTag()
     {
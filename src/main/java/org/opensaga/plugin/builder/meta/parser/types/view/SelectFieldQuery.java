@@ -6,6 +6,9 @@ public class SelectFieldQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -576416371794860480L;
+
+
     @Override
     public String getTag()
     {
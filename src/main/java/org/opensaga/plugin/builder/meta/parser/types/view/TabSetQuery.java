@@ -7,6 +7,9 @@ public class TabSetQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = 825310189003304199L;
+
+
     @Override
     public String getTag()
     {
@@ -6,6 +6,9 @@ public class TextAreaQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -869922443201340799L;
+
+
     @Override
     public String getTag()
     {
@@ -6,6 +6,9 @@ public class TextFieldQuery
     extends AbstractQuery
 {
 
+    private static final long serialVersionUID = -2410491957839264750L;
+
+
     @Override
     public String getTag()
     {
@@ -2,15 +2,17 @@ package org.opensaga.plugin.compiler;
 
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
-import org.opensaga.plugin.compiler.cleanup.DeleteCandidateStrategy;
 import org.opensaga.plugin.compiler.cleanup.OpenSAGADeleteCandidateStrategy;
 import org.opensaga.plugin.compiler.cleanup.OpenSAGAResourceCleaner;
 import org.opensaga.plugin.util.MavenLogAppender;
+import org.opensaga.plugin.util.RootElementCache;
 import org.opensaga.runtime.model.precompile.FileSystemBasedServletContextMock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +65,78 @@ public class ApplicationCompilerMojo
      */
     private boolean cleanUpAfterCompile;
 
+    /**
+     * The number of threads checking and deleting the files during the
+     * cleanup. Either an absolute number like {@code 4} or a multiplier of the
+     * available processors like {@code 1C}.
+     * 
+     * @parameter expression="${opensaga.cleanupThreads}" default-value="1C"
+     */
+    private String cleanupThreads;
+
+    /**
+     * The number of threads shrinking the {@code opensaga-*.jar} files during
+     * the cleanup, in the same format as {@link #cleanupThreads}.
+     * 
+     * @parameter expression="${opensaga.cleanupJarThreads}" default-value="1"
+     */
+    private String cleanupJarThreads;
+
+    /**
+     * What the cleanup does: {@code delete} removes the obsolete resources,
+     * {@code dry-run} only lists them in the {@link #cleanupManifest} and
+     * {@code apply-manifest} removes the resources listed in the manifest of a
+     * previous cleanup without examining them again.
+     * 
+     * @parameter expression="${opensaga.cleanupMode}" default-value="delete"
+     */
+    private String cleanupMode;
+
+    /**
+     * The manifest listing the resources removed by the cleanup with their
+     * size and the reason.
+     * 
+     * @parameter expression="${opensaga.cleanupManifest}"
+     *            default-value="${project.build.directory}/opensaga/cleanup-manifest.txt"
+     */
+    private File cleanupManifest;
+
+    /**
+     * Determines if the shrunk {@code opensaga-*.jar} files are cached in the
+     * {@link #cleanupJarCacheDirectory}, so the same jars aren't shrunk again
+     * on every build.
+     * 
+     * @parameter expression="${opensaga.cleanupJarCache}" default-value="true"
+     */
+    private boolean cleanupJarCache;
+
+    /**
+     * The directory of the shrunk jar cache. It may be shared by all builds.
+     * 
+     * @parameter expression="${opensaga.cleanupJarCacheDirectory}"
+     *            default-value="${user.home}/.m2/opensaga-cleaned"
+     */
+    private File cleanupJarCacheDirectory;
+
+    /**
+     * The number of days a shrunk jar is kept in the
+     * {@link #cleanupJarCacheDirectory} without being used. Older jars are
+     * deleted by the cleanup.
+     * 
+     * @parameter expression="${opensaga.cleanupJarCacheMaxAge}" default-value="30"
+     */
+    private int cleanupJarCacheMaxAge;
+
+    /**
+     * The cache of the root element names of the XML files, so unchanged
+     * files aren't examined again by the cleanup. The meta model builder may
+     * share the same cache file. If not set, every XML file is examined.
+     * 
+     * @parameter expression="${opensaga.rootElementCacheFile}"
+     *            default-value="${project.build.directory}/opensaga/root-elements.cache"
+     */
+    private File rootElementCacheFile;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException
     {
@@ -75,10 +149,55 @@ public class ApplicationCompilerMojo
 
         if (cleanUpAfterCompile)
         {
-            DeleteCandidateStrategy removeStrategy = new OpenSAGADeleteCandidateStrategy();
+            OpenSAGADeleteCandidateStrategy removeStrategy = new OpenSAGADeleteCandidateStrategy();
+            RootElementCache rootElementCache = rootElementCacheFile != null ? RootElementCache.load(
+                rootElementCacheFile) : null;
+            removeStrategy.setRootElementCache(rootElementCache);
+
             OpenSAGAResourceCleaner resourceCleaner = new OpenSAGAResourceCleaner(removeStrategy, baseDirectory);
+            resourceCleaner.setFileThreads(cleanupThreads);
+            resourceCleaner.setJarThreads(cleanupJarThreads);
+            resourceCleaner.setMode(getCleanupMode());
+            resourceCleaner.setManifestFile(cleanupManifest);
+
+            if (cleanupJarCache)
+            {
+                resourceCleaner.setJarCacheDirectory(cleanupJarCacheDirectory);
+                resourceCleaner.setJarCacheMaxAge(cleanupJarCacheMaxAge);
+            }
 
             resourceCleaner.cleanUp();
+            saveRootElementCache(rootElementCache);
+        }
+    }
+
+
+    private void saveRootElementCache(RootElementCache rootElementCache)
+    {
+        if (rootElementCache != null)
+        {
+            try
+            {
+                rootElementCache.save(rootElementCacheFile);
+            }
+            catch (IOException e)
+            {
+                log.warn("The root element cache '" + rootElementCacheFile + "' couldn't be saved.", e);
+            }
+        }
+    }
+
+
+    private OpenSAGAResourceCleaner.Mode getCleanupMode() throws MojoExecutionException
+    {
+        try
+        {
+            return OpenSAGAResourceCleaner.Mode.valueOf(cleanupMode.toUpperCase(Locale.ENGLISH).replace('-', '_'));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new MojoExecutionException("The cleanup mode '" + cleanupMode +
+                "' is invalid, use 'delete', 'dry-run' or 'apply-manifest'.", e);
         }
     }
     
@@ -0,0 +1,206 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Lists everything the {@link OpenSAGAResourceCleaner} removes, with its size
+ * and the reason. Every line of the manifest file describes one removal:
+ *
+ * <pre>
+ * action	size	path	reason
+ * </pre>
+ *
+ * The fields are separated by tabs, the path is relative to the base
+ * directory of the cleaner with {@code /} as separator, so a manifest can be
+ * applied to another build of the same portal. Lines starting with {@code #}
+ * are comments. Entries are added concurrently, the manifest is written
+ * sorted by path.
+ */
+public class CleanupManifest
+{
+
+    private static final String COMMENT = "#";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final Comparator<Entry> BY_PATH = new Comparator<Entry>()
+    {
+        @Override
+        public int compare(Entry entry, Entry otherEntry)
+        {
+            return entry.path.compareTo(otherEntry.path);
+        }
+    };
+
+    /**
+     * The kind of a removal.
+     */
+    public enum Action
+    {
+        /**
+         * The file is deleted.
+         */
+        DELETE_FILE,
+
+        /**
+         * The removable entries of the jar are removed.
+         */
+        SHRINK_JAR,
+
+        /**
+         * The jar is deleted, it only contains removable entries.
+         */
+        DELETE_JAR
+    }
+
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<Entry>();
+
+
+    /**
+     * Adds a removal.
+     *
+     * @param action The kind of the removal.
+     * @param path The path relative to the base directory.
+     * @param size The bytes gained by the removal.
+     * @param reason Why it's removed.
+     */
+    public void add(Action action, String path, long size, String reason)
+    {
+        entries.add(new Entry(action, FilenameUtils.separatorsToUnix(path), size, reason));
+    }
+
+
+    /**
+     * @return The removals sorted by their path.
+     */
+    public List<Entry> getEntries()
+    {
+        List<Entry> sortedEntries = new ArrayList<Entry>(entries);
+        Collections.sort(sortedEntries, BY_PATH);
+
+        return sortedEntries;
+    }
+
+
+    /**
+     * Writes the manifest.
+     *
+     * @param manifestFile The file of the manifest.
+     * @throws IOException When the manifest couldn't be written.
+     */
+    public void write(File manifestFile) throws IOException
+    {
+        List<String> lines = new ArrayList<String>();
+        lines.add(COMMENT + " The resources removed by the OpenSAGA resource cleaner");
+        lines.add(COMMENT + " action" + SEPARATOR + "size" + SEPARATOR + "path" + SEPARATOR + "reason");
+
+        for (Entry entry : getEntries())
+        {
+            lines.add(entry.action + SEPARATOR + entry.size + SEPARATOR + entry.path + SEPARATOR +
+                StringUtils.defaultString(entry.reason));
+        }
+
+        FileUtils.writeLines(manifestFile, "UTF-8", lines, "\n");
+    }
+
+
+    /**
+     * Reads a manifest.
+     *
+     * @param manifestFile The file of the manifest.
+     * @return The manifest.
+     * @throws IOException When the manifest couldn't be read or is invalid.
+     */
+    public static CleanupManifest read(File manifestFile) throws IOException
+    {
+        CleanupManifest manifest = new CleanupManifest();
+        int lineNumber = 0;
+
+        for (String line : FileUtils.readLines(manifestFile, "UTF-8"))
+        {
+            lineNumber++;
+
+            if (StringUtils.isBlank(line) || line.startsWith(COMMENT))
+            {
+                continue;
+            }
+
+            String[] fields = StringUtils.splitPreserveAllTokens(line, SEPARATOR, 4);
+
+            try
+            {
+                manifest.add(Action.valueOf(fields[0]), fields[2], Long.parseLong(fields[1]), fields[3]);
+            }
+            catch (RuntimeException e)
+            {
+                throw new IOException("The line '" + lineNumber + "' of the cleanup manifest '" + manifestFile +
+                    "' is invalid: " + line, e);
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * A single removal of the manifest.
+     */
+    public static class Entry
+    {
+
+        private final Action action;
+
+        private final String path;
+
+        private final long size;
+
+        private final String reason;
+
+
+        Entry(Action action, String path, long size, String reason)
+        {
+            this.action = action;
+            this.path = path;
+            this.size = size;
+            this.reason = reason;
+        }
+
+
+        public Action getAction()
+        {
+            return action;
+        }
+
+
+        /**
+         * @return The path relative to the base directory with {@code /} as
+         *         separator.
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+
+        public long getSize()
+        {
+            return size;
+        }
+
+
+        public String getReason()
+        {
+            return reason;
+        }
+    }
+}
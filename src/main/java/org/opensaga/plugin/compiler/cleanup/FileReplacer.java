@@ -0,0 +1,67 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Replaces a file by a replacement written into the same directory. The
+ * replacement is renamed to the file, which replaces it atomically on POSIX
+ * file systems. Other systems refuse to rename onto an existing file, there
+ * the file is renamed to a backup first. The backup is restored if the
+ * replacement can't be renamed, so the file is never lost.
+ */
+final class FileReplacer
+{
+
+    private FileReplacer()
+    {
+    }
+
+
+    /**
+     * Replaces the target by the replacement. The target must not be open, some
+     * systems refuse to rename open files.
+     *
+     * @param replacement The replacement, in the directory of the target.
+     * @param target The file to replace, it may not exist yet.
+     * @throws IOException When the target couldn't be replaced, it's left
+     *             untouched then.
+     */
+    static void replace(File replacement, File target) throws IOException
+    {
+        if (replacement.renameTo(target))
+        {
+            return;
+        }
+
+        if (!target.exists())
+        {
+            throw new IOException("The file '" + replacement + "' couldn't be renamed to '" + target + "'.");
+        }
+
+        File backup = File.createTempFile("." + target.getName() + ".", ".bak", target.getAbsoluteFile()
+            .getParentFile());
+
+        // The backup is only reserved, the target can't be renamed onto it on all systems
+        if (!backup.delete() || !target.renameTo(backup))
+        {
+            FileUtils.deleteQuietly(backup);
+            throw new IOException("The file '" + target + "' couldn't be renamed to the backup '" + backup + "'.");
+        }
+
+        if (!replacement.renameTo(target))
+        {
+            if (!backup.renameTo(target))
+            {
+                throw new IOException("The file '" + replacement + "' couldn't be renamed to '" + target +
+                    "', the original file is kept at '" + backup + "'.");
+            }
+
+            throw new IOException("The file '" + replacement + "' couldn't be renamed to '" + target + "'.");
+        }
+
+        FileUtils.deleteQuietly(backup);
+    }
+}
@@ -0,0 +1,155 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the shrunk {@code opensaga-*.jar} files across builds. The versioned
+ * extension jars come unchanged from the local repository, so instead of
+ * shrinking the same jar on every build, the already shrunk jar is copied
+ * from the cache. The cached jars are stored by the
+ * {@linkplain JarShrinker.Result#getCacheKey() cache key} of the original jar,
+ * which covers its content and the removal rules.
+ * <p>
+ * Jars are written into the cache with a temporary name and renamed
+ * afterwards, so concurrent builds sharing the cache never see a partially
+ * written jar.
+ * <p>
+ * Every restore renews the modification time of the cached jar. Jars which
+ * weren't used for a while, e.g. of extension versions no build depends on
+ * anymore, are {@linkplain #evict(long) evicted}, so the cache doesn't grow
+ * without bounds.
+ *
+ * @see OpenSAGAResourceCleaner
+ */
+class JarCache
+{
+
+    private static final Logger log = LoggerFactory.getLogger(JarCache.class);
+
+    private final File directory;
+
+
+    /**
+     * @param directory The directory of the cached jars, it's created on
+     *            demand.
+     */
+    public JarCache(File directory)
+    {
+        this.directory = directory;
+    }
+
+
+    /**
+     * Replaces the jar with the cached shrunk jar.
+     *
+     * @param cacheKey The cache key of the original jar.
+     * @param jar The original jar.
+     * @return Either {@code true} if the jar was replaced or {@code false} if
+     *         the jar isn't cached yet.
+     * @throws IOException When the cached jar couldn't be copied, the jar is
+     *             left untouched.
+     */
+    public boolean restore(String cacheKey, File jar) throws IOException
+    {
+        File cachedJar = getCachedJar(cacheKey);
+
+        if (!cachedJar.isFile())
+        {
+            return false;
+        }
+
+        copy(cachedJar, jar);
+        log.debug("Restored '{}' from the cache '{}'.", jar.getName(), cachedJar);
+
+        if (!cachedJar.setLastModified(System.currentTimeMillis()))
+        {
+            log.debug("The last use of the cached jar '{}' couldn't be recorded.", cachedJar);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Stores the shrunk jar in the cache.
+     *
+     * @param cacheKey The cache key of the original jar.
+     * @param jar The shrunk jar.
+     * @throws IOException When the jar couldn't be stored.
+     */
+    public void store(String cacheKey, File jar) throws IOException
+    {
+        File cachedJar = getCachedJar(cacheKey);
+
+        if (!cachedJar.isFile())
+        {
+            FileUtils.forceMkdir(directory);
+            copy(jar, cachedJar);
+            log.debug("Stored '{}' in the cache '{}'.", jar.getName(), cachedJar);
+        }
+    }
+
+
+    /**
+     * Deletes the cached jars which weren't stored or restored within the
+     * given time. Leftovers of interrupted builds are deleted, too.
+     *
+     * @param maxAge The time in milliseconds a jar is kept without being used.
+     * @return The number of deleted jars.
+     */
+    public int evict(long maxAge)
+    {
+        File[] cachedFiles = directory.listFiles();
+
+        if (cachedFiles == null)
+        {
+            return 0;
+        }
+
+        long oldestUse = System.currentTimeMillis() - maxAge;
+        int evictedJars = 0;
+
+        for (File cachedFile : cachedFiles)
+        {
+            if (cachedFile.isFile() && cachedFile.lastModified() < oldestUse && cachedFile.delete())
+            {
+                log.debug("Evicted '{}' from the cache.", cachedFile);
+                evictedJars++;
+            }
+        }
+
+        return evictedJars;
+    }
+
+
+    private File getCachedJar(String cacheKey)
+    {
+        return new File(directory, cacheKey + ".jar");
+    }
+
+
+    /**
+     * Copies the file into a temporary file next to the target, which replaces
+     * the target afterwards.
+     */
+    private static void copy(File source, File target) throws IOException
+    {
+        File targetTemp = File.createTempFile("." + target.getName() + ".", ".tmp", target.getAbsoluteFile()
+            .getParentFile());
+
+        try
+        {
+            FileUtils.copyFile(source, targetTemp);
+            FileReplacer.replace(targetTemp, target);
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(targetTemp);
+        }
+    }
+}
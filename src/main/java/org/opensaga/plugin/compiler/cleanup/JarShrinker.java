@@ -0,0 +1,525 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes entries from a jar file without recompressing the remaining ones.
+ * Only the central directory at the end of the jar is read to decide which
+ * entries are removed. If nothing must be removed, the jar isn't rewritten at
+ * all. Otherwise the local headers and the compressed data of the preserved
+ * entries are copied byte by byte into a temporary file next to the jar, a new
+ * central directory is appended and the temporary file replaces the jar once
+ * the jar is closed.
+ * <p>
+ * Only plain single disk archives are supported, as they're written by the
+ * Maven jar plugin. ZIP64 archives and archives with leading data are
+ * rejected with a {@link ZipException} and must be left untouched.
+ *
+ * @see OpenSAGAResourceCleaner
+ */
+class JarShrinker
+{
+
+    private static final Logger log = LoggerFactory.getLogger(JarShrinker.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    /**
+     * The general purpose flag of entries followed by a data descriptor.
+     */
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    /**
+     * Must be increased whenever the shrunk jars change for the same input,
+     * so cached jars of older versions aren't used anymore.
+     */
+    private static final int CACHE_KEY_VERSION = 1;
+
+    private final Collection<String> removablePaths;
+
+    private final Collection<String> removableFiles;
+
+
+    /**
+     * @param removablePaths The entries starting with one of these paths are
+     *            removed.
+     * @param removableFiles The entries with one of these names are removed.
+     */
+    public JarShrinker(Collection<String> removablePaths, Collection<String> removableFiles)
+    {
+        this.removablePaths = removablePaths;
+        this.removableFiles = removableFiles;
+    }
+
+
+    /**
+     * Removes the removable entries from the given jar. The jar is replaced
+     * only if there are removable and preserved entries. If all entries are
+     * removable, the jar is left untouched and it's up to the caller to
+     * delete it.
+     *
+     * @param jar The jar to shrink.
+     * @return The entries of the jar.
+     * @throws IOException When the jar couldn't be read or replaced, the jar
+     *             is left untouched.
+     */
+    public Result shrink(File jar) throws IOException
+    {
+        return process(jar, true);
+    }
+
+
+    /**
+     * Determines what {@link #shrink(File)} would remove without touching the
+     * jar.
+     *
+     * @param jar The jar to inspect.
+     * @return The entries of the jar.
+     * @throws IOException When the jar couldn't be read.
+     */
+    public Result inspect(File jar) throws IOException
+    {
+        return process(jar, false);
+    }
+
+
+    private Result process(File jar, boolean replace) throws IOException
+    {
+        File jarTemp = null;
+
+        try
+        {
+            RandomAccessFile input = new RandomAccessFile(jar, "r");
+            Result result;
+
+            try
+            {
+                FileChannel channel = input.getChannel();
+                CentralDirectory centralDirectory = readCentralDirectory(channel);
+                List<Entry> preservedEntries = new ArrayList<Entry>();
+                int removedEntries = 0;
+                long removedBytes = 0;
+
+                for (Entry entry : centralDirectory.entries)
+                {
+                    if (isRemovable(entry.name))
+                    {
+                        log.debug("Removing: {}", entry.name);
+                        removedEntries++;
+                        removedBytes += getLocalRecordLength(channel, entry) + entry.centralHeader.length;
+                    }
+                    else
+                    {
+                        log.debug("Preserving: {}", entry.name);
+                        preservedEntries.add(entry);
+                    }
+                }
+
+                if (replace && removedEntries > 0 && !preservedEntries.isEmpty())
+                {
+                    jarTemp = File.createTempFile("." + jar.getName() + ".", ".tmp", jar.getAbsoluteFile()
+                        .getParentFile());
+                    write(jarTemp, channel, centralDirectory, preservedEntries);
+                }
+
+                result = new Result(preservedEntries.size(), removedEntries, removedBytes,
+                    getCacheKey(centralDirectory));
+            }
+            finally
+            {
+                IOUtils.closeQuietly(input);
+            }
+
+            // The jar is replaced after it's closed, some systems refuse to rename open files
+            if (jarTemp != null)
+            {
+                FileReplacer.replace(jarTemp, jar);
+            }
+
+            return result;
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(jarTemp);
+        }
+    }
+
+
+    /**
+     * The central directory contains the name, the sizes and the CRC-32 of
+     * every entry, so its digest identifies the content of the jar without
+     * reading the entries.
+     */
+    private String getCacheKey(CentralDirectory centralDirectory)
+    {
+        MessageDigest digest;
+
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("The hash algorithm 'SHA-1' is not available.", e);
+        }
+
+        digest.update(("version=" + CACHE_KEY_VERSION + "\npaths=" + removablePaths + "\nfiles=" + removableFiles + "\n").getBytes(UTF_8));
+
+        for (Entry entry : centralDirectory.entries)
+        {
+            digest.update(entry.centralHeader);
+        }
+
+        digest.update(centralDirectory.comment);
+
+        StringBuilder cacheKey = new StringBuilder();
+
+        for (byte b : digest.digest())
+        {
+            cacheKey.append(Character.forDigit((b >> 4) & 0xF, 16));
+            cacheKey.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return cacheKey.toString();
+    }
+
+
+    private boolean isRemovable(String entryName)
+    {
+        if (removableFiles.contains(entryName))
+        {
+            return true;
+        }
+
+        for (String path : removablePaths)
+        {
+            if (entryName.startsWith(path))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    private void write(File jarTemp, FileChannel input, CentralDirectory centralDirectory, List<Entry> entries)
+        throws IOException
+    {
+        FileOutputStream outputStream = new FileOutputStream(jarTemp);
+
+        try
+        {
+            FileChannel output = outputStream.getChannel();
+            int centralDirectorySize = 0;
+
+            for (Entry entry : entries)
+            {
+                entry.newOffset = output.position();
+                transfer(input, entry.localOffset, getLocalRecordLength(input, entry), output);
+                centralDirectorySize += entry.centralHeader.length;
+            }
+
+            long centralDirectoryOffset = output.position();
+            ByteBuffer trailer = ByteBuffer.allocate(centralDirectorySize + END_OF_CENTRAL_DIRECTORY_LENGTH +
+                centralDirectory.comment.length).order(ByteOrder.LITTLE_ENDIAN);
+
+            for (Entry entry : entries)
+            {
+                int start = trailer.position();
+                trailer.put(entry.centralHeader);
+                trailer.putInt(start + 42, (int) entry.newOffset);
+            }
+
+            trailer.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            trailer.putShort((short) 0);
+            trailer.putShort((short) 0);
+            trailer.putShort((short) entries.size());
+            trailer.putShort((short) entries.size());
+            trailer.putInt(centralDirectorySize);
+            trailer.putInt((int) centralDirectoryOffset);
+            trailer.putShort((short) centralDirectory.comment.length);
+            trailer.put(centralDirectory.comment);
+            trailer.flip();
+
+            while (trailer.hasRemaining())
+            {
+                output.write(trailer);
+            }
+
+            outputStream.close();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+
+    /**
+     * @return The length of the local header, the compressed data and the
+     *         optional data descriptor of the entry.
+     */
+    private long getLocalRecordLength(FileChannel input, Entry entry) throws IOException
+    {
+        ByteBuffer localHeader = read(input, entry.localOffset, LOCAL_HEADER_LENGTH);
+
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE)
+        {
+            throw new ZipException("The local header of '" + entry.name + "' is missing.");
+        }
+
+        long length = LOCAL_HEADER_LENGTH + getUnsignedShort(localHeader, 26) + getUnsignedShort(localHeader, 28) +
+            entry.compressedSize;
+
+        if ((entry.flags & DATA_DESCRIPTOR_FLAG) != 0)
+        {
+            // The signature of the data descriptor is optional
+            boolean signed = read(input, entry.localOffset + length, 4).getInt(0) == DATA_DESCRIPTOR_SIGNATURE;
+            length += signed ? 16 : 12;
+        }
+
+        return length;
+    }
+
+
+    private static CentralDirectory readCentralDirectory(FileChannel input) throws IOException
+    {
+        long size = input.size();
+        int tailLength = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = read(input, size - tailLength, tailLength);
+        int end = -1;
+
+        for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--)
+        {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE &&
+                i + END_OF_CENTRAL_DIRECTORY_LENGTH + getUnsignedShort(tail, i + 20) == tailLength)
+            {
+                end = i;
+                break;
+            }
+        }
+
+        if (end < 0)
+        {
+            throw new ZipException("The end of the central directory is missing.");
+        }
+
+        int entryCount = getUnsignedShort(tail, end + 10);
+        long centralDirectorySize = getUnsignedInt(tail, end + 12);
+        long centralDirectoryOffset = getUnsignedInt(tail, end + 16);
+
+        if (getUnsignedShort(tail, end + 4) != 0 || entryCount == 0xFFFF || centralDirectoryOffset == ZIP64_MARKER ||
+            centralDirectoryOffset + centralDirectorySize != size - tailLength + end)
+        {
+            throw new ZipException("Only single disk archives without ZIP64 extensions or leading data are supported.");
+        }
+
+        CentralDirectory centralDirectory = new CentralDirectory();
+        centralDirectory.comment = new byte[getUnsignedShort(tail, end + 20)];
+        tail.position(end + END_OF_CENTRAL_DIRECTORY_LENGTH);
+        tail.get(centralDirectory.comment);
+
+        ByteBuffer headers = read(input, centralDirectoryOffset, (int) centralDirectorySize);
+
+        for (int i = 0; i < entryCount; i++)
+        {
+            int start = headers.position();
+
+            if (headers.remaining() < CENTRAL_HEADER_LENGTH || headers.getInt(start) != CENTRAL_HEADER_SIGNATURE)
+            {
+                throw new ZipException("The central directory is corrupt.");
+            }
+
+            int nameLength = getUnsignedShort(headers, start + 28);
+            int headerLength = CENTRAL_HEADER_LENGTH + nameLength + getUnsignedShort(headers, start + 30) +
+                getUnsignedShort(headers, start + 32);
+
+            Entry entry = new Entry();
+            entry.flags = getUnsignedShort(headers, start + 8);
+            entry.compressedSize = getUnsignedInt(headers, start + 20);
+            entry.localOffset = getUnsignedInt(headers, start + 42);
+            entry.centralHeader = new byte[headerLength];
+            headers.get(entry.centralHeader);
+            entry.name = new String(entry.centralHeader, CENTRAL_HEADER_LENGTH, nameLength, UTF_8);
+
+            if (entry.compressedSize == ZIP64_MARKER || entry.localOffset == ZIP64_MARKER)
+            {
+                throw new ZipException("The entry '" + entry.name + "' needs ZIP64 extensions.");
+            }
+
+            centralDirectory.entries.add(entry);
+        }
+
+        return centralDirectory;
+    }
+
+
+    private static void transfer(FileChannel input, long position, long length, FileChannel output)
+        throws IOException
+    {
+        long transferred = 0;
+
+        while (transferred < length)
+        {
+            long count = input.transferTo(position + transferred, length - transferred, output);
+
+            if (count <= 0)
+            {
+                throw new ZipException("The jar ends within an entry.");
+            }
+
+            transferred += count;
+        }
+    }
+
+
+    private static ByteBuffer read(FileChannel input, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining())
+        {
+            if (input.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new ZipException("The jar ends unexpectedly.");
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+
+    private static int getUnsignedShort(ByteBuffer buffer, int index)
+    {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+
+    private static long getUnsignedInt(ByteBuffer buffer, int index)
+    {
+        return buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * The number of preserved and removed entries of a jar.
+     */
+    public static class Result
+    {
+
+        private final int preservedEntries;
+
+        private final int removedEntries;
+
+        private final long removedBytes;
+
+        private final String cacheKey;
+
+
+        Result(int preservedEntries, int removedEntries, long removedBytes, String cacheKey)
+        {
+            this.preservedEntries = preservedEntries;
+            this.removedEntries = removedEntries;
+            this.removedBytes = removedBytes;
+            this.cacheKey = cacheKey;
+        }
+
+
+        public int getPreservedEntries()
+        {
+            return preservedEntries;
+        }
+
+
+        public int getRemovedEntries()
+        {
+            return removedEntries;
+        }
+
+
+        /**
+         * @return The bytes of the local records and central headers of the
+         *         removed entries.
+         */
+        public long getRemovedBytes()
+        {
+            return removedBytes;
+        }
+
+
+        /**
+         * @return The SHA-1 of the removal rules and the central directory of
+         *         the original jar, it identifies the shrunk jar.
+         */
+        public String getCacheKey()
+        {
+            return cacheKey;
+        }
+    }
+
+    private static class CentralDirectory
+    {
+
+        private final List<Entry> entries = new ArrayList<Entry>();
+
+        private byte[] comment;
+    }
+
+    private static class Entry
+    {
+
+        private String name;
+
+        private int flags;
+
+        private long compressedSize;
+
+        private long localOffset;
+
+        private long newOffset;
+
+        /**
+         * The complete central header including the name, extra field and
+         * comment.
+         */
+        private byte[] centralHeader;
+    }
+}
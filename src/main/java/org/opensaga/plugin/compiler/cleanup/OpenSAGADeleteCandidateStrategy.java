@@ -7,6 +7,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.Validate;
 import org.opensaga.plugin.util.DocumentRootQNameResolver;
 import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
+import org.opensaga.plugin.util.RootElementCache;
 
 /**
  * The implementation of the specific opensaga strategy. The supported files are
@@ -17,7 +18,7 @@ import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFo
  * @author cklewes
  */
 public class OpenSAGADeleteCandidateStrategy
-    implements DeleteCandidateStrategy
+    implements ReasoningDeleteCandidateStrategy
 {
 
     private HashSet<String> supportedModels = new HashSet<String>()
@@ -41,12 +42,38 @@ public class OpenSAGADeleteCandidateStrategy
         }
     };
 
+    private RootElementCache rootElementCache;
+
+
+    /**
+     * Defines the cache of the root element names, so unchanged XML files
+     * aren't examined again. The entries of the deletable model files are
+     * retained in the cache, although the files are deleted.
+     * 
+     * @param rootElementCache The cache or {@code null} if every XML file is
+     *            examined.
+     */
+    public void setRootElementCache(RootElementCache rootElementCache)
+    {
+        this.rootElementCache = rootElementCache;
+    }
+
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Advise isFileDeleteCandidate(File file) throws DocumentRootQNameNotFoundException
+    {
+        return decideFile(file).getAdvise();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Decision decideFile(File file) throws DocumentRootQNameNotFoundException
     {
         Validate.notNull(file, "The given candidate must not be null!");
         Validate.isTrue(file.isFile(), "The given candidate must be a file not a directory!");
@@ -62,7 +89,7 @@ public class OpenSAGADeleteCandidateStrategy
             case XSD:
                 return handleXsdFile(filePath);
             default:
-                return Advise.KEEP;
+                return new Decision(Advise.KEEP, "unsupported extension");
         }
     }
 
@@ -72,16 +99,16 @@ public class OpenSAGADeleteCandidateStrategy
      * 
      * @param filePath The file path to the xsd file
      */
-    private Advise handleXsdFile(String filePath)
+    private Decision handleXsdFile(String filePath)
     {
         String deletableXsdPath = FilenameUtils.separatorsToSystem("WEB-INF/xsd");
 
         if (filePath.contains(deletableXsdPath))
         {
-            return Advise.DELETE;
+            return new Decision(Advise.DELETE, "xsd path WEB-INF/xsd");
         }
 
-        return Advise.KEEP;
+        return new Decision(Advise.KEEP, "xsd outside of WEB-INF/xsd");
     }
 
 
@@ -90,20 +117,29 @@ public class OpenSAGADeleteCandidateStrategy
      * 
      * @param filePath The file path to the XML file
      */
-    private Advise handleXmlFile(File file, String filePath) throws DocumentRootQNameNotFoundException
+    private Decision handleXmlFile(File file, String filePath) throws DocumentRootQNameNotFoundException
     {
         String resourceFolder = FilenameUtils.separatorsToSystem("WEB-INF/resources");
 
         if (filePath.contains(resourceFolder))
         {
-            String rootElement = DocumentRootQNameResolver.resolveRootElementName(file);
+            String rootElement = rootElementCache != null ? rootElementCache.resolveRootElementName(file)
+                : DocumentRootQNameResolver.resolveRootElementName(file);
             if (supportedModels.contains(rootElement))
             {
-                return Advise.DELETE;
+                if (rootElementCache != null)
+                {
+                    // The file is recreated by the next build, it's recognized without opening it
+                    rootElementCache.retain(file);
+                }
+
+                return new Decision(Advise.DELETE, "root element " + rootElement);
             }
+
+            return new Decision(Advise.KEEP, "unknown root element " + rootElement);
         }
 
-        return Advise.KEEP;
+        return new Decision(Advise.KEEP, "xml outside of WEB-INF/resources");
     }
 
 
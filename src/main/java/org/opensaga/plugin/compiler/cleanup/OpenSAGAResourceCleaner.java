@@ -1,24 +1,34 @@
 package org.opensaga.plugin.compiler.cleanup;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.opensaga.plugin.compiler.cleanup.CleanupManifest.Action;
 import org.opensaga.plugin.compiler.cleanup.DeleteCandidateStrategy.Advise;
+import org.opensaga.plugin.compiler.cleanup.ReasoningDeleteCandidateStrategy.Decision;
+import org.opensaga.plugin.util.ThreadCount;
 import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +47,15 @@ import org.slf4j.LoggerFactory;
  * XML-files that start with a defined root element and that are in the folder
  * {@code WEB-INF/resources} or a subfolder will be deleted.
  * </p>
+ * <p>
+ * The jars and the files are cleaned up concurrently in two separate lanes,
+ * each with its own threads.
+ * </p>
+ * <p>
+ * Everything removed is recorded in a {@link CleanupManifest}. A dry run only
+ * writes the manifest, applying a manifest removes the listed resources
+ * without examining them again, see {@link Mode}.
+ * </p>
  * 
  * @author cschneider
  */
@@ -44,12 +63,44 @@ public class OpenSAGAResourceCleaner
 {
     private static final Logger log = LoggerFactory.getLogger(OpenSAGAResourceCleaner.class);
 
+    private static final Comparator<File> LARGEST_FIRST = new Comparator<File>()
+    {
+        @Override
+        public int compare(File file, File otherFile)
+        {
+            long length = file.length();
+            long otherLength = otherFile.length();
+
+            return length > otherLength ? -1 : (length < otherLength ? 1 : 0);
+        }
+    };
+
     private final String OPENSAGA_EXTENSION_PREFIX = "opensaga-";
 
     private final DeleteCandidateStrategy deleteCandidateStrategy;
 
     private final String baseDirectory;
 
+    private String fileThreads;
+
+    private String jarThreads = "1";
+
+    private Mode mode = Mode.DELETE;
+
+    private File manifestFile;
+
+    private JarCache jarCache;
+
+    private long jarCacheMaxAge = TimeUnit.DAYS.toMillis(30);
+
+    private CleanupManifest manifest;
+
+    /**
+     * The entries of the applied manifest by their path, {@code null} if no
+     * manifest is applied.
+     */
+    private Map<String, CleanupManifest.Entry> appliedEntries;
+
 
     public OpenSAGAResourceCleaner(DeleteCandidateStrategy deleteCandidateStrategy, String baseDirectory)
     {
@@ -58,36 +109,174 @@ public class OpenSAGAResourceCleaner
     }
 
 
+    /**
+     * Defines the number of threads checking and deleting the files.
+     * 
+     * @param fileThreads The thread count specification, e.g. {@code 4} or
+     *            {@code 1C}, see {@link ThreadCount}.
+     */
+    public void setFileThreads(String fileThreads)
+    {
+        this.fileThreads = fileThreads;
+    }
+
+
+    /**
+     * Defines the number of threads shrinking the jar files. The jars are
+     * handled separately from the files, so a large jar doesn't delay the
+     * many small files.
+     * 
+     * @param jarThreads The thread count specification, e.g. {@code 2} or
+     *            {@code 0.5C}, see {@link ThreadCount}.
+     */
+    public void setJarThreads(String jarThreads)
+    {
+        this.jarThreads = jarThreads;
+    }
+
+
+    /**
+     * Defines what the cleanup does, {@link Mode#DELETE} by default.
+     * 
+     * @param mode The mode of the cleanup.
+     */
+    public void setMode(Mode mode)
+    {
+        this.mode = mode;
+    }
+
+
+    /**
+     * Defines the manifest written by the cleanup and read by
+     * {@link Mode#APPLY_MANIFEST}. No manifest is written if it isn't defined.
+     * 
+     * @param manifestFile The file of the manifest.
+     */
+    public void setManifestFile(File manifestFile)
+    {
+        this.manifestFile = manifestFile;
+    }
+
+
+    /**
+     * Defines the directory of the shrunk jar cache. The shrunk jars are
+     * copied from the cache instead of shrinking the same jars on every build.
+     * No cache is used if it isn't defined.
+     * 
+     * @param jarCacheDirectory The directory of the cache, it may be shared by
+     *            concurrent builds.
+     */
+    public void setJarCacheDirectory(File jarCacheDirectory)
+    {
+        this.jarCache = jarCacheDirectory != null ? new JarCache(jarCacheDirectory) : null;
+    }
+
+
+    /**
+     * Defines how long a shrunk jar is kept in the cache without being used,
+     * 30 days by default. Older jars are deleted after the cleanup.
+     * 
+     * @param days The maximum age in days.
+     */
+    public void setJarCacheMaxAge(int days)
+    {
+        this.jarCacheMaxAge = TimeUnit.DAYS.toMillis(days);
+    }
+
+
     public void cleanUp() throws MojoExecutionException, MojoFailureException
     {
-        long jarBytesGained = 0;
-        long fileBytesGained = 0;
+        final AtomicLong jarBytesGained = new AtomicLong();
+        final AtomicLong fileBytesGained = new AtomicLong();
 
-        Collection<File> candidates = findRemoveCandidates();
-        for (File candidate : candidates)
-        {
-            String absolutePath = candidate.getAbsolutePath();
-            log.debug("Processing: " + absolutePath);
+        manifest = new CleanupManifest();
+        appliedEntries = mode == Mode.APPLY_MANIFEST ? readAppliedEntries() : null;
 
-            if (FilenameUtils.isExtension(absolutePath, "jar"))
+        List<File> jars = new ArrayList<File>();
+        List<File> files = new ArrayList<File>();
+
+        for (File candidate : appliedEntries != null ? findManifestCandidates() : findRemoveCandidates())
+        {
+            if (FilenameUtils.isExtension(candidate.getName(), "jar"))
             {
-                jarBytesGained = jarBytesGained + handleJarFile(candidate);
+                jars.add(candidate);
             }
             else
             {
-                fileBytesGained = fileBytesGained + handleFile(candidate);
+                files.add(candidate);
             }
         }
 
-        double jarMBGained = ByteUnitConverter.convert(jarBytesGained, ByteUnit.MEGA);
-        double fileMBGained = ByteUnitConverter.convert(fileBytesGained, ByteUnit.MEGA);
+        // The largest jars first, so the lane isn't kept busy by one of them at the end
+        Collections.sort(jars, LARGEST_FIRST);
+
+        ExecutorService jarLane = Executors.newFixedThreadPool(ThreadCount.resolve(jarThreads),
+            new CleanerThreadFactory("opensaga-cleanup-jar-"));
+        ExecutorService fileLane = Executors.newFixedThreadPool(ThreadCount.resolve(fileThreads),
+            new CleanerThreadFactory("opensaga-cleanup-file-"));
+
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+
+            for (final File jar : jars)
+            {
+                futures.add(jarLane.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        log.debug("Processing: " + jar.getAbsolutePath());
+                        jarBytesGained.addAndGet(handleJarFile(jar));
+                    }
+                }));
+            }
+
+            for (final File file : files)
+            {
+                futures.add(fileLane.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        log.debug("Processing: " + file.getAbsolutePath());
+                        fileBytesGained.addAndGet(handleFile(file));
+                    }
+                }));
+            }
+
+            awaitCandidates(futures);
+        }
+        finally
+        {
+            jarLane.shutdownNow();
+            fileLane.shutdownNow();
+        }
+
+        if (manifestFile != null && appliedEntries == null)
+        {
+            writeManifest();
+        }
+
+        if (mode != Mode.DRY_RUN && jarCache != null)
+        {
+            int evictedJars = jarCache.evict(jarCacheMaxAge);
+
+            if (evictedJars > 0)
+            {
+                log.info("Evicted " + evictedJars + " unused jars from the jar cache.");
+            }
+        }
+
+        double jarMBGained = ByteUnitConverter.convert(jarBytesGained.get(), ByteUnit.MEGA);
+        double fileMBGained = ByteUnitConverter.convert(fileBytesGained.get(), ByteUnit.MEGA);
         double allMBGained = jarMBGained + fileMBGained;
 
         String formatResult = "%23s %6.2f %s";
         String formatLine = "%33s";
 
         log.info("");
-        log.info("Cleaning Results:");
+        log.info(mode == Mode.DRY_RUN ? "Cleaning Results (dry run, nothing removed):" : "Cleaning Results:");
         log.info("");
         log.info(String.format(formatResult, "from jars:", jarMBGained, "MB"));
         log.info(String.format(formatResult, "from files:", fileMBGained, "MB"));
@@ -95,6 +284,101 @@ public class OpenSAGAResourceCleaner
         log.info(String.format(formatResult, "Resources cleaned up:", allMBGained, "MB"));
     }
 
+    /**
+     * @return The entries of the manifest by their path, or {@code null} if
+     *         there's no manifest to apply.
+     */
+    private Map<String, CleanupManifest.Entry> readAppliedEntries() throws MojoExecutionException
+    {
+        if (manifestFile == null || !manifestFile.isFile())
+        {
+            log.warn("The cleanup manifest '" + manifestFile +
+                "' doesn't exist. Examining all resources and writing a new manifest instead.");
+
+            return null;
+        }
+
+        try
+        {
+            Map<String, CleanupManifest.Entry> entries = new HashMap<String, CleanupManifest.Entry>();
+
+            for (CleanupManifest.Entry entry : CleanupManifest.read(manifestFile).getEntries())
+            {
+                entries.put(entry.getPath(), entry);
+            }
+
+            log.info("Applying the cleanup manifest '" + manifestFile + "' with " + entries.size() + " entries.");
+
+            return entries;
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("The cleanup manifest '" + manifestFile + "' couldn't be read.", e);
+        }
+    }
+
+
+    private void writeManifest() throws MojoExecutionException
+    {
+        try
+        {
+            FileUtils.forceMkdir(manifestFile.getAbsoluteFile().getParentFile());
+            manifest.write(manifestFile);
+            log.info("Wrote the cleanup manifest '" + manifestFile + "'.");
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("The cleanup manifest '" + manifestFile + "' couldn't be written.", e);
+        }
+    }
+
+
+    private void awaitCandidates(List<Future<?>> futures) throws MojoExecutionException
+    {
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("The cleanup of the resources was interrupted.", e);
+            }
+            catch (ExecutionException e)
+            {
+                log.error("Ignoring candidate. Error while cleaning it up.", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * What the cleanup does with the resources.
+     */
+    public static enum Mode
+    {
+
+        /**
+         * Examines all resources and removes the obsolete ones.
+         */
+        DELETE,
+
+        /**
+         * Examines all resources like {@link #DELETE}, but only writes the
+         * manifest of the resources that would be removed.
+         */
+        DRY_RUN,
+
+        /**
+         * Removes the resources listed in the manifest of a previous cleanup.
+         * The listed files are deleted without examining their content, unless
+         * their size changed. Resources missing from the manifest are kept.
+         * Falls back to {@link #DELETE} if there's no manifest yet.
+         */
+        APPLY_MANIFEST
+    }
+
     private static enum ByteUnit
     {
 
@@ -134,27 +418,27 @@ public class OpenSAGAResourceCleaner
      */
     private long handleFile(File candidate)
     {
-
-        long bytesGained = 0;
-        FileInputStream fileInputStream = null;
         try
         {
-            if (deleteCandidateStrategy.isFileDeleteCandidate(candidate) == Advise.DELETE)
+            Decision decision = decideFile(candidate);
+
+            if (decision.getAdvise() != Advise.DELETE)
             {
-                bytesGained = candidate.length();
-                boolean fileDeleted = candidate.delete();
+                return 0;
+            }
 
-                if (fileDeleted)
-                {
-                    log.debug(
-                        "Gaining " + bytesGained + " by removing file " + candidate.getAbsolutePath());
-                }
-                else
-                {
-                    bytesGained = 0;
-                    log.error("Cannot remove file " + candidate.getAbsolutePath());
-                }
+            long bytesGained = candidate.length();
+
+            if (mode != Mode.DRY_RUN && !candidate.delete())
+            {
+                log.error("Cannot remove file " + candidate.getAbsolutePath());
+                return 0;
             }
+
+            log.debug("Gaining " + bytesGained + " by removing file " + candidate.getAbsolutePath());
+            manifest.add(Action.DELETE_FILE, getRelativePath(candidate), bytesGained, decision.getReason());
+
+            return bytesGained;
         }
         catch (DocumentRootQNameNotFoundException e)
         {
@@ -166,142 +450,142 @@ public class OpenSAGAResourceCleaner
         {
             log.error("Ignoring file. Error while parsing: " + candidate.getAbsolutePath(), e);
         }
-        finally
+
+        return 0;
+    }
+
+
+    /**
+     * Trusts the applied manifest, if it lists the file with its current
+     * size. Otherwise the file is examined by the strategy. A strategy which
+     * doesn't tell its reasons is named as the reason instead.
+     */
+    private Decision decideFile(File candidate) throws DocumentRootQNameNotFoundException
+    {
+        if (appliedEntries != null)
         {
-            IOUtils.closeQuietly(fileInputStream);
+            CleanupManifest.Entry entry = appliedEntries.get(getRelativePath(candidate));
+
+            if (entry != null && entry.getAction() == Action.DELETE_FILE && entry.getSize() == candidate.length())
+            {
+                return new Decision(Advise.DELETE, entry.getReason());
+            }
+        }
+
+        if (deleteCandidateStrategy instanceof ReasoningDeleteCandidateStrategy)
+        {
+            return ((ReasoningDeleteCandidateStrategy) deleteCandidateStrategy).decideFile(candidate);
         }
-        return bytesGained;
+
+        return new Decision(deleteCandidateStrategy.isFileDeleteCandidate(candidate), "advised by " +
+            deleteCandidateStrategy.getClass().getName());
     }
 
 
     /**
-     * This method handles jar-files only. It creates a temporary jar file,
-     * removes WEB-INF, META-INF and index.jsp and replaces the original jar
-     * file. If there are no other resources than the deleted ones, the original
-     * war file is deleted.
+     * This method handles jar-files only. It removes WEB-INF and index.jsp
+     * from the jar, the preserved entries are copied without recompressing
+     * them. A jar without such entries isn't rewritten. If there are no other
+     * resources than the removed ones, the jar file is deleted.
      * 
      * @param candidate
      * @return bytes gained
      */
     private long handleJarFile(File candidate)
     {
-
-        ZipEntry entry;
-
         long originalFilesize = candidate.length();
-        long newFilesize = 0;
-        int filesPreserved = 0;
-        File jarTemp = null;
 
         log.debug("Phase 1: Find longest removable paths");
         List<String> shortestPathsToRemove = findRemovablePathsInJar(candidate);
+        String reason = "jar entry prefix " + StringUtils.join(shortestPathsToRemove, ", ") + ", file index.jsp";
 
         log.debug("Phase 2: Processing jar file");
+        JarShrinker jarShrinker = new JarShrinker(shortestPathsToRemove, Collections.singleton("index.jsp"));
+
         try
         {
-            jarTemp = File.createTempFile("opensaga", "jar");
-
-            ZipInputStream inJar = null;
-            ZipOutputStream outJar = null;
-
-            boolean noUnknownContentFound = true;
+            // With a cache the jar is inspected first, its cache key decides if it must be shrunk at all
+            boolean inspect = mode == Mode.DRY_RUN || jarCache != null;
+            JarShrinker.Result result = inspect ? jarShrinker.inspect(candidate) : jarShrinker.shrink(candidate);
 
-            try
+            if (result.getRemovedEntries() == 0)
             {
-                inJar = new ZipInputStream(new FileInputStream(candidate));
-                outJar = new ZipOutputStream(new FileOutputStream(jarTemp));
-
-                while ((entry = inJar.getNextEntry()) != null)
-                {
-                    String entryName = entry.getName();
-
-                    boolean preserveFile = true;
-                    // Check, if this entry starts with a path that is marked to
-                    // be removed from the jar file
-                    for (String path : shortestPathsToRemove)
-                    {
-                        if (entryName.startsWith(path))
-                        {
-                            preserveFile = false;
-                            break;
-                        }
-                    }
+                log.debug("Leaving '" + candidate.getName() + "' untouched, it contains no removable content.");
+                return 0;
+            }
 
-                    if (preserveFile)
-                    {
-                        // At this point there are no directories that are
-                        // marked to be removed, but there may be files, so
-                        // handle them here.
-                        if ("index.jsp".equals(entryName))
-                        {
-                            preserveFile = false;
-                        }
-                        else
-                        {
-                            // flag, that at least one file is _not_ removed.
-                            noUnknownContentFound = false;
-
-                            log.debug("Preserving: " + entryName);
-                            filesPreserved++;
-                            outJar.putNextEntry(entry);
-                            IOUtils.copy(inJar, outJar);
-                            outJar.closeEntry();
-                        }
-                    }
-                    else if (log.isDebugEnabled())
-                    {
-                        log.debug("Removing: " + entryName);
-                    }
-                }
+            if (result.getPreservedEntries() == 0)
+            {
+                long bytesGained = mode == Mode.DRY_RUN ? originalFilesize : originalFilesize -
+                    removeJarFile(candidate);
 
-                // A zip archive must have at least one entry. Since the zip
-                // archive is empty, when noUnknownConentFound is set, we set
-                // one fake entry, because the temporary zip file will not be
-                // copied.
-                if (noUnknownContentFound)
+                if (bytesGained > 0)
                 {
-                    entry = new ZipEntry("fake");
-                    outJar.putNextEntry(entry);
-                    outJar.write(0);
-                    outJar.closeEntry();
+                    manifest.add(Action.DELETE_JAR, getRelativePath(candidate), bytesGained, reason);
                 }
 
-            }
-            catch (IOException e)
-            {
-                log.error("Error while writing temporary zipfile");
-            }
-            finally
-            {
-                IOUtils.closeQuietly(inJar);
-                IOUtils.closeQuietly(outJar);
+                return bytesGained;
             }
 
-            if (noUnknownContentFound)
+            if (mode != Mode.DRY_RUN && jarCache != null)
             {
-                newFilesize = removeJarFile(candidate);
-            }
-            else
-            {
-                newFilesize = replaceJarFile(candidate, jarTemp, filesPreserved);
+                shrinkCachedJarFile(jarShrinker, result.getCacheKey(), candidate);
             }
+
+            long bytesGained = mode == Mode.DRY_RUN ? result.getRemovedBytes() : originalFilesize -
+                candidate.length();
+            log.info(
+                "Processed '" + candidate.getName() + "'. " + result.getPreservedEntries() + " files preserved. " +
+                    bytesGained + " bytes gained.");
+            manifest.add(Action.SHRINK_JAR, getRelativePath(candidate), bytesGained, reason);
+
+            return bytesGained;
         }
         catch (IOException e)
         {
-            newFilesize = originalFilesize;
             log.error(
-                "Error while creating temporary file to shrink candidate jar file '" + candidate.getAbsolutePath() +
+                "Error while shrinking candidate jar file '" + candidate.getAbsolutePath() +
                     "'. Leaving it untouched.", e);
+
+            return 0;
         }
-        finally
+    }
+
+
+    /**
+     * Replaces the jar with the shrunk jar from the cache. If it isn't cached
+     * yet, the jar is shrunk and stored in the cache.
+     * 
+     * @param jarShrinker
+     * @param cacheKey The cache key of the original jar.
+     * @param candidate
+     * @throws IOException When the jar couldn't be shrunk.
+     */
+    private void shrinkCachedJarFile(JarShrinker jarShrinker, String cacheKey, File candidate) throws IOException
+    {
+        try
         {
-            if (jarTemp != null)
+            if (jarCache.restore(cacheKey, candidate))
             {
-                jarTemp.delete();
+                log.debug("Took the shrunk '" + candidate.getName() + "' from the jar cache.");
+                return;
             }
         }
+        catch (IOException e)
+        {
+            log.warn("The shrunk '" + candidate.getName() + "' couldn't be taken from the jar cache. Shrinking it.", e);
+        }
 
-        return originalFilesize - newFilesize;
+        jarShrinker.shrink(candidate);
+
+        try
+        {
+            jarCache.store(cacheKey, candidate);
+        }
+        catch (IOException e)
+        {
+            log.warn("The shrunk '" + candidate.getName() + "' couldn't be stored in the jar cache.", e);
+        }
     }
 
 
@@ -410,56 +694,87 @@ public class OpenSAGAResourceCleaner
 
 
     /**
-     * Replaces a candidate jar file with the processed jar file. Leaves the
-     * original jar file if the move operation does not work. Returns the
-     * correct amount of bytes gained.
+     * Finds candidate files to remove or process in the outputDirectory.
+     * 
+     * @return
+     */
+    private Collection<File> findRemoveCandidates()
+    {
+        return FileUtils.listFiles(new File(baseDirectory), new CandidateFilter(), TrueFileFilter.INSTANCE);
+    }
+
+
+    /**
+     * Finds the existing files listed in the applied manifest.
      * 
-     * @param candidate
-     * @param jarTemp
-     * @param filesPreserved
      * @return
      */
-    private long replaceJarFile(File candidate, File jarTemp, int filesPreserved)
+    private Collection<File> findManifestCandidates()
     {
-        long originalFilesize = candidate.length();
-        long newFilesize = 0;
+        List<File> candidates = new ArrayList<File>();
 
-        boolean fileDeleted = candidate.delete();
-        if (fileDeleted)
+        for (String path : appliedEntries.keySet())
         {
-            newFilesize = jarTemp.length();
-            try
+            File candidate = new File(baseDirectory, FilenameUtils.separatorsToSystem(path));
+
+            if (candidate.isFile())
             {
-                FileUtils.moveFile(jarTemp, candidate);
+                candidates.add(candidate);
             }
-            catch (IOException e)
+            else
             {
-                log.error(
-                    "Error while moving: " + jarTemp.getAbsolutePath() + " to " + candidate.getAbsolutePath() +
-                        ". Leaving old file untouched.");
+                log.debug("Skipping '" + path + "' of the cleanup manifest, it doesn't exist.");
             }
-            log.info(
-                "Processed '" + candidate.getName() + "'. " + filesPreserved + " files preserved. " +
-                    (originalFilesize - newFilesize) + " bytes gained.");
         }
-        else
+
+        return candidates;
+    }
+
+
+    /**
+     * @return The path of the file relative to the base directory with
+     *         {@code /} as separator, like in the manifest.
+     */
+    private String getRelativePath(File file)
+    {
+        String basePath = new File(baseDirectory).getAbsolutePath();
+        String path = file.getAbsolutePath();
+
+        if (path.startsWith(basePath + File.separator))
         {
-            newFilesize = originalFilesize;
-            log.warn(
-                "Cannot remove file: " + candidate.getAbsolutePath() + ". Leaving old file untouched.");
+            return FilenameUtils.separatorsToUnix(path.substring(basePath.length() + 1));
         }
-        return newFilesize;
-    }
 
+        return FilenameUtils.separatorsToUnix(path);
+    }
 
     /**
-     * Finds candidate files to remove or process in the outputDirectory.
-     * 
-     * @return
+     * Creates named daemon threads, so a not terminated lane never blocks the
+     * Maven JVM.
      */
-    private Collection<File> findRemoveCandidates()
+    private static class CleanerThreadFactory
+        implements ThreadFactory
     {
-        return FileUtils.listFiles(new File(baseDirectory), new CandidateFilter(), TrueFileFilter.INSTANCE);
+
+        private final String namePrefix;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+
+        public CleanerThreadFactory(String namePrefix)
+        {
+            this.namePrefix = namePrefix;
+        }
+
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }
     }
 
     /**
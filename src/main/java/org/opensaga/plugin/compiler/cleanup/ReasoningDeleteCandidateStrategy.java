@@ -0,0 +1,58 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import java.io.File;
+
+import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
+
+/**
+ * A {@link DeleteCandidateStrategy} which also tells why it gives an advise.
+ * The reasons are listed in the {@link CleanupManifest}. The resource cleaner
+ * accepts every strategy, for the others only the advise is recorded.
+ *
+ * @see OpenSAGAResourceCleaner
+ */
+public interface ReasoningDeleteCandidateStrategy
+    extends DeleteCandidateStrategy
+{
+
+    /**
+     * Decides like {@link #isFileDeleteCandidate(File)}, but also tells the
+     * reason of the advise, e.g. the root element of a model file.
+     *
+     * @param file The file to check.
+     * @return The advise with its reason.
+     * @throws DocumentRootQNameNotFoundException
+     */
+    Decision decideFile(File file) throws DocumentRootQNameNotFoundException;
+
+
+    /**
+     * An advise and the reason why it was given.
+     */
+    public static class Decision
+    {
+
+        private final Advise advise;
+
+        private final String reason;
+
+
+        public Decision(Advise advise, String reason)
+        {
+            this.advise = advise;
+            this.reason = reason;
+        }
+
+
+        public Advise getAdvise()
+        {
+            return advise;
+        }
+
+
+        public String getReason()
+        {
+            return reason;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package org.opensaga.plugin.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
@@ -15,12 +17,21 @@ import org.xml.sax.helpers.DefaultHandler;
 /**
  * Resolves the root element name of a XML file. The file will be read and
  * queried for it's root element name.
+ * <p>
+ * The prolog of the file is scanned by the {@link RootElementScanner} first,
+ * only if it can't decide the root element a SAX parser is used. The SAX
+ * parsers are reused per thread, so the resolver is safe for concurrent use.
  * 
  * @author cklewes
  */
 public class DocumentRootQNameResolver
 {
 
+    private static final SAXParserFactory SAX_PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    private static final ThreadLocal<SAXParser> SAX_PARSER = new ThreadLocal<SAXParser>();
+
+
     /**
      * Resolves the root element name of the given XML file. The XML file must
      * be well formed. The qualified name will be returned.
@@ -33,13 +44,25 @@ public class DocumentRootQNameResolver
      */
     public static String resolveRootElementName(File file) throws DocumentRootQNameNotFoundException
     {
+        String rootElement = RootElementScanner.scanRootElementName(file);
+
+        if (rootElement != null)
+        {
+            return rootElement;
+        }
+
         try
         {
             FileInputStream fileInputStream = new FileInputStream(file);
-            String rootElement = resolveRootElement(fileInputStream);
-            fileInputStream.close();
 
-            return rootElement;
+            try
+            {
+                return resolveRootElement(fileInputStream);
+            }
+            finally
+            {
+                fileInputStream.close();
+            }
         }
         catch (IOException e)
         {
@@ -48,6 +71,24 @@ public class DocumentRootQNameResolver
     }
 
 
+    /**
+     * Resolves the root element name of the given XML content. The content must
+     * be well formed. The qualified name will be returned.
+     * 
+     * @see #resolveRootElementName(File)
+     * @param content The content of a well-formed XML file.
+     * @return The root element of the given XML content.
+     * @throws DocumentRootQNameNotFoundException If an error occured while
+     *             resolving the root element.
+     */
+    public static String resolveRootElement(byte[] content) throws DocumentRootQNameNotFoundException
+    {
+        String rootElement = RootElementScanner.scanRootElementName(content);
+
+        return rootElement != null ? rootElement : resolveRootElement(new ByteArrayInputStream(content));
+    }
+
+
     /**
      * Resolves the root element name of the given XML input stream. The content
      * must be well formed. The qualified name will be returned.
@@ -60,10 +101,11 @@ public class DocumentRootQNameResolver
      */
     public static String resolveRootElement(InputStream fileInputStream) throws DocumentRootQNameNotFoundException
     {
-        SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+        SAXParser saxParser = null;
+
         try
         {
-            SAXParser saxParser = saxParserFactory.newSAXParser();
+            saxParser = getSaxParser();
             saxParser.parse(fileInputStream, new SaxRootElementHandler());
         }
         catch (RootElementAbortException e)
@@ -74,10 +116,35 @@ public class DocumentRootQNameResolver
         {
             throw new DocumentRootQNameNotFoundException(e);
         }
+        finally
+        {
+            if (saxParser != null)
+            {
+                saxParser.reset();
+            }
+        }
 
         return null;
     }
 
+
+    private static SAXParser getSaxParser() throws ParserConfigurationException, SAXException
+    {
+        SAXParser saxParser = SAX_PARSER.get();
+
+        if (saxParser == null)
+        {
+            synchronized (SAX_PARSER_FACTORY)
+            {
+                saxParser = SAX_PARSER_FACTORY.newSAXParser();
+            }
+
+            SAX_PARSER.set(saxParser);
+        }
+
+        return saxParser;
+    }
+
     private static class SaxRootElementHandler
         extends DefaultHandler
     {
@@ -144,6 +211,17 @@ public class DocumentRootQNameResolver
         }
 
 
+        /**
+         * The exception is only used for aborting the parser, so the expensive
+         * stack trace isn't filled in.
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+
+
         public String getRootName()
         {
             return rootName;
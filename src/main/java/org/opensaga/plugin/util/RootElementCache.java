@@ -0,0 +1,347 @@
+package org.opensaga.plugin.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the root element names of XML files across builds. A file whose
+ * path, size and modification time are unchanged is classified without
+ * opening it. All other files are resolved by the
+ * {@link DocumentRootQNameResolver}, which only scans the prolog of the file.
+ * <p>
+ * When the cache is saved, the entries of deleted files are dropped, unless
+ * they were {@linkplain #retain(File) retained}. The resource cleaner retains
+ * the model files it deletes, so they're recognized in the next build.
+ * Entries which weren't used for {@value #MAX_UNUSED_DAYS} days are dropped,
+ * too, including the retained ones.
+ * <p>
+ * The cache is used by the meta model builder and the resource cleaner, both
+ * may share the same cache file. The cache is safe for concurrent use.
+ *
+ * @see DocumentRootQNameResolver
+ */
+public class RootElementCache
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -2291537426440946254L;
+
+    private static final Logger log = LoggerFactory.getLogger(RootElementCache.class);
+
+    /**
+     * The days after which an unused entry is dropped.
+     */
+    static final int MAX_UNUSED_DAYS = 30;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * The paths of the entries used since the cache was loaded.
+     */
+    private transient Set<String> usedPaths = createPathSet();
+
+    private transient volatile boolean modified;
+
+
+    /**
+     * Loads the cache from the given file. An empty cache is returned if the
+     * file doesn't exist or couldn't be read.
+     *
+     * @param cacheFile The file of the cache.
+     * @return The loaded cache.
+     */
+    public static RootElementCache load(File cacheFile)
+    {
+        if (!cacheFile.isFile())
+        {
+            log.debug("No root element cache found at '{}'.", cacheFile);
+            return new RootElementCache();
+        }
+
+        ObjectInputStream inputStream = null;
+
+        try
+        {
+            inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+
+            return (RootElementCache) inputStream.readObject();
+        }
+        catch (IOException e)
+        {
+            log.info("The root element cache '{}' couldn't be read, all XML files will be examined.", cacheFile);
+            log.debug("Reading the root element cache failed.", e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            log.info("The root element cache '{}' is outdated, all XML files will be examined.", cacheFile);
+            log.debug("Reading the root element cache failed.", e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        return new RootElementCache();
+    }
+
+
+    /**
+     * Saves this cache to the given file, if it was modified. The entries of
+     * deleted files are dropped, unless they're retained, and so are the
+     * entries which weren't used for {@value #MAX_UNUSED_DAYS} days. The cache
+     * is written to a temporary file first, which replaces the existing cache
+     * afterwards.
+     *
+     * @param cacheFile The file of the cache.
+     * @throws IOException When the cache couldn't be written.
+     */
+    public void save(File cacheFile) throws IOException
+    {
+        save(cacheFile, System.currentTimeMillis());
+    }
+
+
+    void save(File cacheFile, long now) throws IOException
+    {
+        long unusedSince = now - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        long usedSince = now - TimeUnit.DAYS.toMillis(1);
+
+        for (Iterator<Map.Entry<String, Entry>> pathEntries = entries.entrySet().iterator(); pathEntries.hasNext();)
+        {
+            Map.Entry<String, Entry> pathEntry = pathEntries.next();
+            Entry entry = pathEntry.getValue();
+            boolean used = usedPaths.contains(pathEntry.getKey());
+
+            if ((!used && entry.lastUsed < unusedSince) || (!entry.retained && !new File(pathEntry.getKey()).isFile()))
+            {
+                pathEntries.remove();
+                modified = true;
+            }
+            // The use is only recorded once a day, an unchanged cache isn't written again
+            else if (used && entry.lastUsed < usedSince)
+            {
+                pathEntry.setValue(entry.usedAt(now));
+                modified = true;
+            }
+        }
+
+        if (!modified && cacheFile.isFile())
+        {
+            return;
+        }
+
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(parent);
+
+        File temporaryFile = File.createTempFile(cacheFile.getName() + ".", ".tmp", parent);
+        ObjectOutputStream outputStream = null;
+
+        try
+        {
+            outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+            outputStream.writeObject(this);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        // Another build sharing the cache may have replaced it meanwhile, the last one wins
+        FileUtils.deleteQuietly(cacheFile);
+
+        if (!temporaryFile.renameTo(cacheFile))
+        {
+            FileUtils.deleteQuietly(temporaryFile);
+            throw new IOException("The root element cache couldn't be moved to '" + cacheFile + "'.");
+        }
+
+        modified = false;
+    }
+
+
+    /**
+     * Retrieves the remembered root element name of the given file without
+     * opening it.
+     *
+     * @param file The XML file.
+     * @return Either the qualified name of the root element or {@code null} if
+     *         the path, size or modification time of the file changed.
+     */
+    public String getRootElementName(File file)
+    {
+        String path = file.getAbsolutePath();
+        Entry entry = entries.get(path);
+
+        if (entry != null && entry.size == file.length() && entry.lastModified == file.lastModified())
+        {
+            usedPaths.add(path);
+            return entry.rootElement;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Keeps the entry of the given file, even if the file is deleted. Files
+     * which are deleted on purpose and recreated by the next build are
+     * classified without opening them again. The entry is dropped if the file
+     * isn't retained again for {@value #MAX_UNUSED_DAYS} days.
+     *
+     * @param file The XML file whose root element name was resolved.
+     */
+    public void retain(File file)
+    {
+        String path = file.getAbsolutePath();
+        Entry entry = entries.get(path);
+
+        if (entry != null)
+        {
+            usedPaths.add(path);
+
+            if (!entry.retained)
+            {
+                entries.put(path, new Entry(entry.size, entry.lastModified, entry.rootElement, true));
+                modified = true;
+            }
+        }
+    }
+
+
+    /**
+     * Resolves the root element name of the given file. The file isn't opened
+     * if its path, size and modification time are unchanged. Otherwise only
+     * the prolog of the file is scanned.
+     *
+     * @see DocumentRootQNameResolver#resolveRootElementName(File)
+     * @param file The XML file.
+     * @return The qualified name of the root element.
+     * @throws DocumentRootQNameNotFoundException If the file couldn't be read
+     *             or the root element couldn't be resolved.
+     */
+    public String resolveRootElementName(File file) throws DocumentRootQNameNotFoundException
+    {
+        String rootElement = getRootElementName(file);
+
+        if (rootElement != null)
+        {
+            return rootElement;
+        }
+
+        long size = file.length();
+        long lastModified = file.lastModified();
+        rootElement = DocumentRootQNameResolver.resolveRootElementName(file);
+        put(file.getAbsolutePath(), size, lastModified, rootElement);
+
+        return rootElement;
+    }
+
+
+    /**
+     * Resolves the root element name of the given file from its already read
+     * content and remembers it.
+     *
+     * @see DocumentRootQNameResolver#resolveRootElement(byte[])
+     * @param file The XML file.
+     * @param content The content of the file.
+     * @return The qualified name of the root element.
+     * @throws DocumentRootQNameNotFoundException If the root element couldn't
+     *             be resolved.
+     */
+    public String resolveRootElement(File file, byte[] content) throws DocumentRootQNameNotFoundException
+    {
+        String rootElement = DocumentRootQNameResolver.resolveRootElement(content);
+        put(file.getAbsolutePath(), content.length, file.lastModified(), rootElement);
+
+        return rootElement;
+    }
+
+
+    private void put(String path, long size, long lastModified, String rootElement)
+    {
+        if (rootElement != null)
+        {
+            Entry entry = entries.get(path);
+            entries.put(path, new Entry(size, lastModified, rootElement, entry != null && entry.retained));
+            usedPaths.add(path);
+            modified = true;
+        }
+    }
+
+
+    private void readObject(ObjectInputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        inputStream.defaultReadObject();
+        usedPaths = createPathSet();
+    }
+
+
+    private static Set<String> createPathSet()
+    {
+        return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * The state of a XML file at the time its root element was resolved.
+     */
+    private static class Entry
+        implements Serializable
+    {
+
+        private static final long serialVersionUID = -4398101775218722630L;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final String rootElement;
+
+        private final boolean retained;
+
+        /**
+         * The time the entry was used last, recorded once a day.
+         */
+        private final long lastUsed;
+
+
+        public Entry(long size, long lastModified, String rootElement, boolean retained)
+        {
+            this(size, lastModified, rootElement, retained, System.currentTimeMillis());
+        }
+
+
+        private Entry(long size, long lastModified, String rootElement, boolean retained, long lastUsed)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.rootElement = rootElement;
+            this.retained = retained;
+            this.lastUsed = lastUsed;
+        }
+
+
+        public Entry usedAt(long time)
+        {
+            return new Entry(size, lastModified, rootElement, retained, time);
+        }
+    }
+}
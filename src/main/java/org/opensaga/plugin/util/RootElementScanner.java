@@ -0,0 +1,444 @@
+package org.opensaga.plugin.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Scans the prolog of a XML document for the qualified name of its root
+ * element. Only the bytes in front of the root element are inspected: the XML
+ * declaration, processing instructions, comments, white space and the
+ * document type declaration including an internal subset. No parser is
+ * created and no exception is thrown, if the root element can't be decided
+ * {@code null} is returned and the caller may fall back to a real XML parser.
+ * That's the case for documents which aren't encoded in an ASCII compatible
+ * encoding, documents with an invalid prolog and root element names with non
+ * ASCII characters.
+ * <p>
+ * Files are read into a buffer of the current thread which grows up to
+ * {@value #MAX_PROLOG_SIZE} bytes, the scanner is thread safe.
+ *
+ * @see DocumentRootQNameResolver
+ */
+public final class RootElementScanner
+{
+
+    /**
+     * The number of bytes read initially from a file.
+     */
+    static final int INITIAL_PROLOG_SIZE = 4096;
+
+    /**
+     * The maximum number of bytes read from a file in front of the root
+     * element.
+     */
+    static final int MAX_PROLOG_SIZE = 65536;
+
+    private static final long INCOMPLETE = -1;
+
+    private static final long UNDECIDABLE = -2;
+
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>()
+    {
+        @Override
+        protected byte[] initialValue()
+        {
+            return new byte[INITIAL_PROLOG_SIZE];
+        }
+    };
+
+
+    private RootElementScanner()
+    {
+        super();
+    }
+
+
+    /**
+     * Scans the beginning of the given file for the root element name.
+     *
+     * @param file The XML file, must not be {@code null}.
+     * @return Either the qualified name of the root element or {@code null} if
+     *         it couldn't be decided or the file couldn't be read.
+     */
+    public static String scanRootElementName(File file)
+    {
+        InputStream inputStream = null;
+
+        try
+        {
+            inputStream = new FileInputStream(file);
+
+            byte[] buffer = BUFFER.get();
+            int length = 0;
+
+            while (true)
+            {
+                int read = inputStream.read(buffer, length, buffer.length - length);
+
+                if (read != -1)
+                {
+                    length += read;
+
+                    if (length < buffer.length)
+                    {
+                        continue;
+                    }
+                }
+
+                long bounds = scan(buffer, 0, length);
+
+                if (bounds != INCOMPLETE)
+                {
+                    return toName(buffer, bounds);
+                }
+
+                if (read == -1 || buffer.length >= MAX_PROLOG_SIZE)
+                {
+                    return null;
+                }
+
+                byte[] grownBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, grownBuffer, 0, length);
+                buffer = grownBuffer;
+                BUFFER.set(buffer);
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+
+    /**
+     * Scans the given content for the root element name.
+     *
+     * @param content The content of a XML document, must not be {@code null}.
+     * @return Either the qualified name of the root element or {@code null} if
+     *         it couldn't be decided.
+     */
+    public static String scanRootElementName(byte[] content)
+    {
+        return scanRootElementName(content, 0, content.length);
+    }
+
+
+    /**
+     * Scans the given part of the content for the root element name.
+     *
+     * @param content The content of a XML document, must not be {@code null}.
+     * @param offset The offset of the document in the content.
+     * @param length The number of bytes of the document.
+     * @return Either the qualified name of the root element or {@code null} if
+     *         it couldn't be decided.
+     */
+    public static String scanRootElementName(byte[] content, int offset, int length)
+    {
+        long bounds = scan(content, offset, offset + length);
+
+        return bounds == INCOMPLETE ? null : toName(content, bounds);
+    }
+
+
+    private static String toName(byte[] content, long bounds)
+    {
+        if (bounds == UNDECIDABLE)
+        {
+            return null;
+        }
+
+        int start = (int) (bounds >>> 32);
+        int end = (int) bounds;
+
+        try
+        {
+            return new String(content, start, end - start, "US-ASCII");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException("US-ASCII must be supported by every JVM.", e);
+        }
+    }
+
+
+    /**
+     * Scans the prolog between the given positions.
+     *
+     * @return Either the start and end of the root element name encoded as
+     *         {@code start << 32 | end}, {@link #INCOMPLETE} if more content
+     *         is needed or {@link #UNDECIDABLE}.
+     */
+    private static long scan(byte[] content, int offset, int end)
+    {
+        int position = offset;
+
+        // UTF-8 byte order mark
+        if (end - position >= 3 && content[position] == (byte) 0xEF && content[position + 1] == (byte) 0xBB &&
+            content[position + 2] == (byte) 0xBF)
+        {
+            position += 3;
+        }
+
+        int documentStart = position;
+
+        while (position < end)
+        {
+            byte current = content[position];
+
+            if (isWhitespace(current))
+            {
+                position++;
+                continue;
+            }
+
+            if (current != '<')
+            {
+                // Text in front of the root element or not an ASCII compatible encoding
+                return UNDECIDABLE;
+            }
+
+            if (position + 1 >= end)
+            {
+                return INCOMPLETE;
+            }
+
+            byte next = content[position + 1];
+
+            if (next == '?')
+            {
+                if (isXmlDeclaration(content, position + 2, end) && position != documentStart)
+                {
+                    // The XML declaration is only allowed at the very beginning
+                    return UNDECIDABLE;
+                }
+
+                position = skipProcessingInstruction(content, position + 2, end);
+            }
+            else if (next == '!')
+            {
+                if (startsWith(content, position + 2, end, "--"))
+                {
+                    position = skipComment(content, position + 4, end);
+                }
+                else if (startsWith(content, position + 2, end, "DOCTYPE"))
+                {
+                    position = skipDocumentType(content, position + 9, end);
+                }
+                else if (end - position < 9)
+                {
+                    return INCOMPLETE;
+                }
+                else
+                {
+                    return UNDECIDABLE;
+                }
+            }
+            else
+            {
+                return scanName(content, position + 1, end);
+            }
+
+            if (position < 0)
+            {
+                return position;
+            }
+        }
+
+        return INCOMPLETE;
+    }
+
+
+    private static long scanName(byte[] content, int start, int end)
+    {
+        if (!isNameStartCharacter(content[start]))
+        {
+            return UNDECIDABLE;
+        }
+
+        for (int position = start + 1; position < end; position++)
+        {
+            byte current = content[position];
+
+            if (isWhitespace(current) || current == '/' || current == '>')
+            {
+                return ((long) start << 32) | position;
+            }
+
+            if (!isNameCharacter(current))
+            {
+                return UNDECIDABLE;
+            }
+        }
+
+        return INCOMPLETE;
+    }
+
+
+    /**
+     * @return The position behind the processing instruction or a negative
+     *         result code.
+     */
+    private static int skipProcessingInstruction(byte[] content, int start, int end)
+    {
+        for (int position = start; position + 1 < end; position++)
+        {
+            if (content[position] == '?' && content[position + 1] == '>')
+            {
+                return position + 2;
+            }
+        }
+
+        return (int) INCOMPLETE;
+    }
+
+
+    /**
+     * @return The position behind the comment or a negative result code.
+     */
+    private static int skipComment(byte[] content, int start, int end)
+    {
+        for (int position = start; position + 1 < end; position++)
+        {
+            if (content[position] == '-' && content[position + 1] == '-')
+            {
+                if (position + 2 >= end)
+                {
+                    return (int) INCOMPLETE;
+                }
+
+                // The string "--" must not occur within comments
+                return content[position + 2] == '>' ? position + 3 : (int) UNDECIDABLE;
+            }
+        }
+
+        return (int) INCOMPLETE;
+    }
+
+
+    /**
+     * Skips the document type declaration including an internal subset. Quoted
+     * literals, comments and processing instructions may contain the
+     * characters {@code ]} and {@code >}.
+     *
+     * @return The position behind the declaration or a negative result code.
+     */
+    private static int skipDocumentType(byte[] content, int start, int end)
+    {
+        boolean internalSubset = false;
+        int position = start;
+
+        while (position < end)
+        {
+            byte current = content[position];
+
+            if (current == '"' || current == '\'')
+            {
+                position = indexOf(content, position + 1, end, current) + 1;
+            }
+            else if (internalSubset && current == '<' && startsWith(content, position + 1, end, "!--"))
+            {
+                position = skipComment(content, position + 4, end);
+            }
+            else if (internalSubset && current == '<' && startsWith(content, position + 1, end, "?"))
+            {
+                position = skipProcessingInstruction(content, position + 2, end);
+            }
+            else if (current == '>' && !internalSubset)
+            {
+                return position + 1;
+            }
+            else
+            {
+                if (current == '[')
+                {
+                    internalSubset = true;
+                }
+                else if (current == ']')
+                {
+                    internalSubset = false;
+                }
+
+                position++;
+            }
+
+            if (position <= 0)
+            {
+                return position == 0 ? (int) INCOMPLETE : position;
+            }
+        }
+
+        return (int) INCOMPLETE;
+    }
+
+
+    private static boolean isXmlDeclaration(byte[] content, int start, int end)
+    {
+        return end - start >= 4 && (content[start] | 0x20) == 'x' && (content[start + 1] | 0x20) == 'm' &&
+            (content[start + 2] | 0x20) == 'l' && (isWhitespace(content[start + 3]) || content[start + 3] == '?');
+    }
+
+
+    private static int indexOf(byte[] content, int start, int end, byte value)
+    {
+        for (int position = start; position < end; position++)
+        {
+            if (content[position] == value)
+            {
+                return position;
+            }
+        }
+
+        return (int) INCOMPLETE;
+    }
+
+
+    /**
+     * Checks if the given ASCII string starts at the given position. If the
+     * content is too short the result is {@code false}, the caller decides if
+     * more content is needed.
+     */
+    private static boolean startsWith(byte[] content, int start, int end, String value)
+    {
+        if (end - start < value.length())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++)
+        {
+            if (content[start + i] != value.charAt(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static boolean isWhitespace(byte value)
+    {
+        return value == ' ' || value == '\t' || value == '\r' || value == '\n';
+    }
+
+
+    private static boolean isNameStartCharacter(byte value)
+    {
+        return (value >= 'a' && value <= 'z') || (value >= 'A' && value <= 'Z') || value == '_' || value == ':';
+    }
+
+
+    private static boolean isNameCharacter(byte value)
+    {
+        return isNameStartCharacter(value) || (value >= '0' && value <= '9') || value == '-' || value == '.';
+    }
+}
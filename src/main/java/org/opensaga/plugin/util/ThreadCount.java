@@ -0,0 +1,58 @@
+package org.opensaga.plugin.util;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Resolves a thread count specification in the style of the Maven {@code -T}
+ * option. Either an absolute number of threads like {@code 4} or a multiplier
+ * of the available processors like {@code 1C} or {@code 1.5C} is supported.
+ */
+public class ThreadCount
+{
+
+    private ThreadCount()
+    {
+    }
+
+
+    /**
+     * Resolves the number of threads for the given specification. An empty
+     * specification resolves to the number of available processors.
+     *
+     * @param specification The thread count specification, e.g. {@code 4} or
+     *            {@code 2C}.
+     * @return The number of threads, at least one.
+     * @throws IllegalArgumentException If the specification is invalid.
+     */
+    public static int resolve(String specification)
+    {
+        return resolve(specification, Runtime.getRuntime().availableProcessors());
+    }
+
+
+    static int resolve(String specification, int availableProcessors)
+    {
+        if (StringUtils.isBlank(specification))
+        {
+            return availableProcessors;
+        }
+
+        String value = specification.trim();
+
+        try
+        {
+            if (StringUtils.endsWithIgnoreCase(value, "C"))
+            {
+                float multiplier = Float.parseFloat(value.substring(0, value.length() - 1));
+                return Math.max(1, (int) (multiplier * availableProcessors));
+            }
+
+            return Math.max(1, Integer.parseInt(value));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("The thread count '" + specification +
+                "' is invalid, use either a number like '4' or a multiplier like '1C'.");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.opensaga.plugin.builder.meta;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensaga.plugin.builder.meta.ConcurrentModelBuilder.ParseTask;
+import org.opensaga.plugin.builder.meta.ConcurrentModelBuilder.PipelineStages;
+import org.opensaga.plugin.builder.meta.generator.JavaSourceGenerator;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.parser.HandlerContext;
+import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
+
+public class ConcurrentModelBuilderTest
+{
+
+    private ConcurrentModelBuilder builder;
+
+    private TypeBasedModelParser parser;
+
+    private AtomicInteger executedTasks;
+
+    private List<Long> executedSizes;
+
+    private CountingStages stages;
+
+
+    @Before
+    public void initializeTest()
+    {
+        // A single thread executes the tasks in the order of their submission
+        builder = new ConcurrentModelBuilder(new HashMap<HandlerType, JavaSourceGenerator>(), 1);
+        parser = EasyMock.createMock(TypeBasedModelParser.class);
+        executedTasks = new AtomicInteger();
+        executedSizes = Collections.synchronizedList(new ArrayList<Long>());
+        stages = new CountingStages();
+    }
+
+
+    @After
+    public void cleanupTest()
+    {
+        builder.shutdown();
+    }
+
+
+    @Test
+    public void successfulBuildCompletesAllStages() throws MetaGenerationFailedException
+    {
+        builder.executePipelined(createParseTasks(createTask(null, 0), createTask(null, 0)), stages, new HandlerContext());
+
+        assertThat(executedTasks.get(), equalTo(2));
+        assertThat(stages.completedParsers.get(), equalTo(1));
+        assertThat(stages.completedAllParsers.get(), equalTo(1));
+    }
+
+
+    @Test
+    public void failFastSkipsOutstandingTasks()
+    {
+        try
+        {
+            builder.executePipelined(createParseTasks(createTask("first.xml", 0), createTask("second.xml", 0),
+                createTask(null, 0)), stages, new HandlerContext());
+            fail("The failed parse task must fail the build.");
+        }
+        catch (ModelBuildFailedException e)
+        {
+            assertThat(e.getFailures().size(), equalTo(1));
+            assertThat(e.getMessage().contains("first.xml"), equalTo(true));
+        }
+        catch (MetaGenerationFailedException e)
+        {
+            fail("The failures of the tasks must be aggregated.");
+        }
+
+        assertThat(executedTasks.get(), equalTo(1));
+        assertThat(stages.completedParsers.get(), equalTo(0));
+        assertThat(stages.completedAllParsers.get(), equalTo(0));
+    }
+
+
+    @Test
+    public void allFailuresAreReportedWithoutFailFast()
+    {
+        builder.setFailFast(false);
+
+        try
+        {
+            builder.executePipelined(createParseTasks(createTask("first.xml", 0), createTask(null, 0),
+                createTask("second.xml", 0)), stages, new HandlerContext());
+            fail("The failed parse tasks must fail the build.");
+        }
+        catch (ModelBuildFailedException e)
+        {
+            assertThat(e.getFailures().size(), equalTo(2));
+            assertThat(e.getMessage().contains("first.xml"), equalTo(true));
+            assertThat(e.getMessage().contains("second.xml"), equalTo(true));
+        }
+        catch (MetaGenerationFailedException e)
+        {
+            fail("The failures of the tasks must be aggregated.");
+        }
+
+        assertThat(executedTasks.get(), equalTo(3));
+        assertThat(stages.completedParsers.get(), equalTo(0));
+        assertThat(stages.completedAllParsers.get(), equalTo(0));
+    }
+
+
+    @Test
+    public void largestModelsAreParsedFirst() throws MetaGenerationFailedException
+    {
+        TypeBasedModelParser otherParser = EasyMock.createMock(TypeBasedModelParser.class);
+
+        Map<TypeBasedModelParser, List<ParseTask>> parseTasks = createParseTasks(createTask(null, 10),
+            createTask(null, 300));
+        parseTasks.put(otherParser, Arrays.asList(createTask(null, 200), createTask(null, 10), createTask(null, 400)));
+
+        builder.executePipelined(parseTasks, stages, new HandlerContext());
+
+        assertThat(executedSizes, equalTo(Arrays.asList(400L, 300L, 200L, 10L, 10L)));
+        assertThat(stages.completedParsers.get(), equalTo(2));
+        assertThat(stages.completedAllParsers.get(), equalTo(1));
+    }
+
+
+    private Map<TypeBasedModelParser, List<ParseTask>> createParseTasks(ParseTask... tasks)
+    {
+        Map<TypeBasedModelParser, List<ParseTask>> parseTasks = new LinkedHashMap<TypeBasedModelParser, List<ParseTask>>();
+        parseTasks.put(parser, Arrays.asList(tasks));
+
+        return parseTasks;
+    }
+
+
+    /**
+     * @param failingModel The model the task fails for, {@code null} for a
+     *            successful task.
+     * @param size The size of the model.
+     */
+    private ParseTask createTask(final String failingModel, final long size)
+    {
+        return new ParseTask(size)
+        {
+            @Override
+            public List<MetaModel> call() throws Exception
+            {
+                executedTasks.incrementAndGet();
+                executedSizes.add(size);
+
+                if (failingModel != null)
+                {
+                    throw new MetaGenerationFailedException("The model '" + failingModel + "' couldn't be parsed.");
+                }
+
+                return Collections.emptyList();
+            }
+        };
+    }
+
+    private static class CountingStages
+        implements PipelineStages
+    {
+
+        private final AtomicInteger completedParsers = new AtomicInteger();
+
+        private final AtomicInteger completedAllParsers = new AtomicInteger();
+
+
+        @Override
+        public List<MetaModel> completeParser(TypeBasedModelParser parser, List<MetaModel> metaModels)
+        {
+            completedParsers.incrementAndGet();
+            return Collections.emptyList();
+        }
+
+
+        @Override
+        public List<MetaModel> completeAllParsers()
+        {
+            completedAllParsers.incrementAndGet();
+            return Collections.emptyList();
+        }
+    }
+}
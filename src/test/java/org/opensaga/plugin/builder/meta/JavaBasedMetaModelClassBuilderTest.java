@@ -0,0 +1,80 @@
+package org.opensaga.plugin.builder.meta;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.parser.HandlerConstants;
+
+public class JavaBasedMetaModelClassBuilderTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File modelBaseDirectory;
+
+    private File targetDirectory;
+
+    private File targetTestDirectory;
+
+    private File indexFile;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        modelBaseDirectory = temporaryFolder.newFolder("webapp");
+        targetDirectory = new File(temporaryFolder.getRoot(), "generated");
+        targetTestDirectory = new File(temporaryFolder.getRoot(), "generated-test");
+        indexFile = new File(temporaryFolder.getRoot(), "meta-model.index");
+
+        FileUtils.writeStringToFile(new File(modelBaseDirectory, "ext/models/processes/editView.xml"),
+            "<view id=\"editView\"><form><text-field id=\"name\"/></form></view>", "UTF-8");
+    }
+
+
+    @Test
+    public void restoredViewIsGeneratedWithTheHandlerConfiguration() throws MetaGenerationFailedException,
+        IOException
+    {
+        createBuilder().generateMetaModels();
+
+        File viewClass = new File(targetTestDirectory, "org/example/meta/view/EditViewView.java");
+        assertThat(viewClass.isFile(), equalTo(true));
+
+        // The unchanged view is restored from the index and rendered again, because its class is missing
+        FileUtils.forceDelete(viewClass);
+        createBuilder().generateMetaModels();
+
+        assertThat(FileUtils.readFileToString(viewClass, "UTF-8").contains("extends org.example.BaseView"),
+            equalTo(true));
+    }
+
+
+    private JavaBasedMetaModelClassBuilder createBuilder()
+    {
+        Map<String, Object> viewConfiguration = Collections.<String, Object> singletonMap(
+            HandlerConstants.CONFIG_KEY_EXTENDS_CLASS, "org.example.BaseView");
+
+        JavaBasedMetaModelClassBuilder builder = new JavaBasedMetaModelClassBuilder(targetDirectory.getPath(),
+            targetTestDirectory.getPath(), modelBaseDirectory.getPath(), "Project");
+        builder.setPackageName("org.example.meta");
+        builder.setIntegrationTestSupport(true);
+        builder.setIncrementalIndexFile(indexFile);
+        builder.setModelParserDependentConfiguration(Collections.singletonMap(HandlerConstants.VIEW_MODEL_HANDLER,
+            viewConfiguration));
+
+        return builder;
+    }
+}
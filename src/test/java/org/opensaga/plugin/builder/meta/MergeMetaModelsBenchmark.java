@@ -0,0 +1,102 @@
+package org.opensaga.plugin.builder.meta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.parser.TypeBasedModelParser;
+import org.opensaga.plugin.builder.meta.parser.types.DomainTypeModelHandler;
+
+/**
+ * Measures the merging of synthetic meta model sets. The former pairwise
+ * merging, which scans the whole list for every meta model, is compared with
+ * the merging grouped by ID in
+ * {@link JavaBasedMetaModelClassBuilder#mergeMetaModels(TypeBasedModelParser, List)}
+ * . It's no unit test, run it with the test classpath:
+ * 
+ * <pre>
+ * java org.opensaga.plugin.builder.meta.MergeMetaModelsBenchmark [models] [duplicates] [rounds]
+ * </pre>
+ * 
+ * @see MergeMetaModelsTest
+ */
+public class MergeMetaModelsBenchmark
+{
+
+    public static void main(String[] args)
+    {
+        int modelCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int duplicateCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        JavaBasedMetaModelClassBuilder builder = new JavaBasedMetaModelClassBuilder("target", "target", "models",
+            "Project");
+        DomainTypeModelHandler parser = new DomainTypeModelHandler(Collections.<String> emptyList());
+
+        for (int round = 0; round < rounds; round++)
+        {
+            List<MetaModel> metaModels = createMetaModels(modelCount, duplicateCount);
+            long start = System.nanoTime();
+            mergePairwise(parser, metaModels);
+            long pairwise = System.nanoTime() - start;
+
+            metaModels = createMetaModels(modelCount, duplicateCount);
+            start = System.nanoTime();
+            builder.mergeMetaModels(parser, metaModels);
+            long grouped = System.nanoTime() - start;
+
+            System.out.println(String.format("Round %d with %d models: pairwise %.1f ms, grouped by ID %.1f ms",
+                round + 1, modelCount, pairwise / 1000000.0, grouped / 1000000.0));
+        }
+    }
+
+
+    private static List<MetaModel> createMetaModels(int modelCount, int duplicateCount)
+    {
+        List<MetaModel> metaModels = new ArrayList<MetaModel>(modelCount);
+
+        for (int i = 0; i < modelCount; i++)
+        {
+            metaModels.add(MergeMetaModelsTest.createDomainType("type" + (i % (modelCount - duplicateCount)),
+                "/model" + i + ".xml", "property" + i));
+        }
+
+        return metaModels;
+    }
+
+
+    /**
+     * The former merging, which compares every meta model with all others.
+     */
+    private static void mergePairwise(TypeBasedModelParser parser, List<MetaModel> metaModelList)
+    {
+        Collection<MetaModel> obsoleteMetaModels = new ArrayList<MetaModel>();
+
+        for (MetaModel metaModel : metaModelList)
+        {
+            if (!obsoleteMetaModels.contains(metaModel))
+            {
+                Collection<MetaModel> matchingMetaModels = new ArrayList<MetaModel>();
+
+                for (MetaModel input : metaModelList)
+                {
+                    if (input.getId().equals(metaModel.getId()) && !input.getLocation().equals(metaModel.getLocation()))
+                    {
+                        matchingMetaModels.add(input);
+                    }
+                }
+
+                for (MetaModel matchingMetaModel : matchingMetaModels)
+                {
+                    parser.mergeModel(metaModel, matchingMetaModel);
+                }
+
+                obsoleteMetaModels.addAll(matchingMetaModels);
+            }
+        }
+
+        metaModelList.removeAll(obsoleteMetaModels);
+    }
+}
@@ -0,0 +1,138 @@
+package org.opensaga.plugin.builder.meta;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.parser.types.DomainTypeModelHandler;
+
+public class MergeMetaModelsTest
+{
+
+    private final JavaBasedMetaModelClassBuilder builder = new JavaBasedMetaModelClassBuilder("target", "target",
+        "models", "Project");
+
+    private final DomainTypeModelHandler parser = new DomainTypeModelHandler(Collections.<String> emptyList());
+
+
+    @Test
+    public void metaModelsAreMergedIntoTheFirstLocation()
+    {
+        DomainTypeMetaModel extension = createDomainType("person", "/b/person.xml", "person.age");
+        DomainTypeMetaModel core = createDomainType("person", "/a/person.xml", "person.name");
+        DomainTypeMetaModel address = createDomainType("address", "/a/address.xml", "address.street");
+        DomainTypeMetaModel override = createDomainType("person", "/c/person.xml", "person.name");
+
+        List<MetaModel> metaModels = new ArrayList<MetaModel>();
+        metaModels.add(extension);
+        metaModels.add(core);
+        metaModels.add(address);
+        metaModels.add(override);
+
+        builder.mergeMetaModels(parser, metaModels);
+
+        assertThat(metaModels.size(), equalTo(2));
+        assertThat(metaModels.get(0), sameInstance((MetaModel) core));
+        assertThat(metaModels.get(1), sameInstance((MetaModel) address));
+        assertThat(core.getMetaPropertyModels().size(), equalTo(2));
+        assertThat(core.findPropertyModel("person.name").getLocation(), equalTo("/c/person.xml"));
+    }
+
+
+    /**
+     * Instead of timing the merge, the accesses to the IDs and locations of the
+     * meta models are counted at two sizes of the model set. Comparing every
+     * meta model with the whole list would access them quadratically often.
+     */
+    @Test
+    public void mergeEffortIsLinearInTheNumberOfModels()
+    {
+        assertLinearMergeEffort(10000);
+        assertLinearMergeEffort(20000);
+    }
+
+
+    private void assertLinearMergeEffort(int modelCount)
+    {
+        final AtomicInteger merges = new AtomicInteger();
+        DomainTypeModelHandler countingParser = new DomainTypeModelHandler(Collections.<String> emptyList())
+        {
+            @Override
+            public void mergeModel(MetaModel metaModel, MetaModel matchingMetaModel)
+            {
+                merges.incrementAndGet();
+                super.mergeModel(metaModel, matchingMetaModel);
+            }
+        };
+        AtomicInteger accesses = new AtomicInteger();
+        int duplicateCount = modelCount / 100;
+        List<MetaModel> metaModels = new ArrayList<MetaModel>();
+
+        for (int i = 0; i < modelCount; i++)
+        {
+            metaModels.add(createCountingDomainType("type" + (i % (modelCount - duplicateCount)), "/model" + i +
+                ".xml", accesses));
+        }
+
+        builder.mergeMetaModels(countingParser, metaModels);
+
+        assertThat(metaModels.size(), equalTo(modelCount - duplicateCount));
+        assertThat(merges.get(), equalTo(duplicateCount));
+        assertTrue(accesses.get() + " accesses to " + modelCount + " meta models", accesses.get() <= 3 * modelCount);
+    }
+
+
+    private static DomainTypeMetaModel createCountingDomainType(String id, String location,
+        final AtomicInteger accesses)
+    {
+        DomainTypeMetaModel domainTypeModel = new DomainTypeMetaModel()
+        {
+            private static final long serialVersionUID = 1L;
+
+
+            @Override
+            public String getId()
+            {
+                accesses.incrementAndGet();
+                return super.getId();
+            }
+
+
+            @Override
+            public String getLocation()
+            {
+                accesses.incrementAndGet();
+                return super.getLocation();
+            }
+        };
+        domainTypeModel.setId(id);
+        domainTypeModel.setLocation(location);
+
+        return domainTypeModel;
+    }
+
+
+    static DomainTypeMetaModel createDomainType(String id, String location, String propertyId)
+    {
+        PropertyMetaModel propertyModel = new PropertyMetaModel();
+        propertyModel.setId(propertyId);
+        propertyModel.setLocation(location);
+
+        DomainTypeMetaModel domainTypeModel = new DomainTypeMetaModel();
+        domainTypeModel.setId(id);
+        domainTypeModel.setLocation(location);
+        domainTypeModel.addMetaPropertyModels(propertyModel);
+
+        return domainTypeModel;
+    }
+}
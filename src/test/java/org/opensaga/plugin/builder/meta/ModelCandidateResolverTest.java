@@ -0,0 +1,96 @@
+package org.opensaga.plugin.builder.meta;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.builder.meta.ModelCandidateResolver.CandidateScan;
+import org.opensaga.plugin.builder.meta.ModelCandidateResolver.ModelFileSet;
+
+public class ModelCandidateResolverTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDirectory;
+
+    private ModelFileSet fileSet;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        baseDirectory = temporaryFolder.getRoot();
+
+        createFile("WEB-INF/extensions/ext-a/models/domain/person.xml");
+        createFile("WEB-INF/extensions/ext-a/models/processes/edit.xml");
+        createFile("WEB-INF/extensions/ext-a/models/domain/readme.txt");
+        createFile("WEB-INF/extensions/ext-b/models/domain/address.xml");
+        createFile("WEB-INF/extensions/ext-b/models/domain/types/street.xml");
+        createFile("WEB-INF/web.xml");
+        createFile("js/lib/jquery.js");
+        createFile("images/logo.png");
+
+        fileSet = new ModelFileSet(baseDirectory.getAbsolutePath());
+        fileSet.setIncludes(new String[0]);
+        fileSet.setExcludes(new String[] { "ext-b" });
+        fileSet.setModelDirectories(Arrays.asList("models/domain", "models/processes"));
+    }
+
+
+    @Test
+    public void excludedDirectoriesArePruned()
+    {
+        CandidateScan scan = ModelCandidateResolver.scanCandidates(fileSet, "xml", null);
+
+        assertThat(scan.getCandidates(), equalTo(expectedCandidates()));
+        assertThat(scan.getSkippedDirectories(), equalTo(1));
+        assertThat(scan.getSkippedFiles(), equalTo(3));
+        assertThat(scan.getVisitedFiles(), equalTo(3));
+    }
+
+
+    @Test
+    public void parallelWalkFindsTheSameCandidates()
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            CandidateScan scan = ModelCandidateResolver.scanCandidates(fileSet, "xml", executorService);
+
+            assertThat(scan.getCandidates(), equalTo(expectedCandidates()));
+            assertThat(scan.getVisitedDirectories(), equalTo(10));
+            assertThat(scan.getSkippedDirectories(), equalTo(1));
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+
+    private List<File> expectedCandidates()
+    {
+        return Arrays.asList(new File(baseDirectory, "WEB-INF/extensions/ext-a/models/domain/person.xml"), new File(
+            baseDirectory, "WEB-INF/extensions/ext-a/models/processes/edit.xml"));
+    }
+
+
+    private void createFile(String path) throws IOException
+    {
+        FileUtils.writeStringToFile(new File(baseDirectory, path), "<model/>", "UTF-8");
+    }
+}
@@ -0,0 +1,121 @@
+package org.opensaga.plugin.builder.meta;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.opensaga.plugin.builder.meta.generator.MetaGenerationFailedException;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.parser.PropertyType;
+
+public class PropertyReferenceIndexTest
+{
+
+    private final PropertyType integerType = new PropertyType("Integer");
+
+
+    @Test
+    public void referenceChainIsResolvedToTheTypeAtItsEnd() throws MetaGenerationFailedException
+    {
+        PropertyReferenceIndex index = createIndex(property("gender.value", null, integerType),
+            property("person.gender", "gender.value", null), property("employee.gender", "person.gender", null));
+
+        assertThat(index.resolveType("person.gender", "employee.gender"), sameInstance(integerType));
+        assertThat(index.resolveType("gender.value", "person.gender"), sameInstance(integerType));
+    }
+
+
+    @Test
+    public void missingReferenceResolvesToString() throws MetaGenerationFailedException
+    {
+        PropertyReferenceIndex index = createIndex(property("person.gender", "gender.value", null));
+
+        assertThat(index.resolveType("person.gender", "employee.gender").getTypeClass(), equalTo("String"));
+    }
+
+
+    @Test
+    public void referenceCycleIsReported()
+    {
+        PropertyReferenceIndex index = createIndex(property("a", "b", null), property("b", "c", null),
+            property("c", "b", null));
+
+        try
+        {
+            index.resolveType("b", "a");
+            fail("The cycle must be reported.");
+        }
+        catch (MetaGenerationFailedException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(": b -> c -> b"));
+        }
+    }
+
+
+    @Test
+    public void referenceToTheIDOfTheReferencingPropertyIsNoCycle() throws MetaGenerationFailedException
+    {
+        // Only the property "gender" of the first domain type is indexed
+        PropertyReferenceIndex index = createIndex(
+            domainType("gender", property("gender", null, integerType), property("person.gender", "gender", null)),
+            domainType("employee", property("gender", "person.gender", null)));
+
+        assertThat(index.resolveType("person.gender", "gender"), sameInstance(integerType));
+    }
+
+
+    @Test(expected = MetaGenerationFailedException.class)
+    public void referencedModelWithoutTypeIsRejected() throws MetaGenerationFailedException
+    {
+        createIndex(property("gender.value", null, null)).resolveType("gender.value", "person.gender");
+    }
+
+
+    private PropertyReferenceIndex createIndex(PropertyMetaModel... propertyModels)
+    {
+        return createIndex(domainType("domain", propertyModels));
+    }
+
+
+    private PropertyReferenceIndex createIndex(DomainTypeMetaModel... domainTypeModels)
+    {
+        List<MetaModel> metaModels = new ArrayList<MetaModel>();
+        Collections.addAll(metaModels, domainTypeModels);
+
+        return new PropertyReferenceIndex(Collections.singletonList(metaModels));
+    }
+
+
+    private DomainTypeMetaModel domainType(String id, PropertyMetaModel... propertyModels)
+    {
+        DomainTypeMetaModel domainTypeModel = new DomainTypeMetaModel();
+        domainTypeModel.setId(id);
+
+        for (PropertyMetaModel propertyModel : propertyModels)
+        {
+            domainTypeModel.addMetaPropertyModels(propertyModel);
+        }
+
+        return domainTypeModel;
+    }
+
+
+    private PropertyMetaModel property(String id, String propertyRef, PropertyType type)
+    {
+        PropertyMetaModel propertyModel = new PropertyMetaModel();
+        propertyModel.setId(id);
+        propertyModel.setPropertyRef(propertyRef);
+        propertyModel.setType(type);
+
+        return propertyModel;
+    }
+}
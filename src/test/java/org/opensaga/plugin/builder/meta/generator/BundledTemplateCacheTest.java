@@ -0,0 +1,49 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.junit.Test;
+import org.opensaga.plugin.builder.meta.parser.types.view.QueryConvenientMethodTemplates;
+
+public class BundledTemplateCacheTest
+{
+
+    private static final String VIEW_TEMPLATE = BundledTemplateCache.JAVA_MODELS_FOLDER + "view-meta-model.vtl";
+
+
+    @Test
+    public void bundledTemplatesAreParsedOnce()
+    {
+        BundledTemplateCache templateCache = new BundledTemplateCache();
+        String snippetTemplate = BundledTemplateCache.JAVA_SNIPPETS_FOLDER +
+            QueryConvenientMethodTemplates.GETTER.getTemplate();
+
+        assertThat(templateCache.getTemplate(VIEW_TEMPLATE), sameInstance(templateCache.getTemplate(VIEW_TEMPLATE)));
+        assertThat(templateCache.getTemplate(snippetTemplate),
+            sameInstance(templateCache.getTemplate(snippetTemplate)));
+    }
+
+
+    @Test
+    public void cachesDontShareTheVelocityEngine()
+    {
+        BundledTemplateCache templateCache = new BundledTemplateCache();
+        BundledTemplateCache otherTemplateCache = new BundledTemplateCache();
+
+        assertThat(templateCache.getTemplate(VIEW_TEMPLATE),
+            not(sameInstance(otherTemplateCache.getTemplate(VIEW_TEMPLATE))));
+        assertFalse("The global Velocity runtime must not be initialized.", RuntimeSingleton.isInitialized());
+    }
+
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void missingTemplateIsReported()
+    {
+        new BundledTemplateCache().getTemplate("templates/java-models/missing.vtl");
+    }
+}
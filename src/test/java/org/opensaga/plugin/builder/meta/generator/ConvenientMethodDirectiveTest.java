@@ -0,0 +1,42 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringWriter;
+
+import org.apache.velocity.VelocityContext;
+import org.junit.Test;
+import org.opensaga.plugin.builder.meta.HandlerType;
+import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
+import org.opensaga.plugin.builder.meta.parser.HandlerTypeBasedJavaNamingStrategy;
+import org.opensaga.plugin.builder.meta.parser.types.view.ComponentIdentifier;
+import org.opensaga.plugin.builder.meta.parser.types.view.QueryConvenientMethodTemplates;
+import org.opensaga.plugin.builder.meta.parser.types.view.TextFieldQuery;
+
+public class ConvenientMethodDirectiveTest
+{
+
+    @Test
+    public void snippetIsRenderedIntoEnclosingTemplate()
+    {
+        TextFieldQuery query = new TextFieldQuery();
+
+        ViewComponentMetaModel componentMetaModel = new ViewComponentMetaModel();
+        componentMetaModel.setTagName(query.getTag());
+        componentMetaModel.setQuery(query);
+        componentMetaModel.setIdentifier(ComponentIdentifier.ID, "name");
+
+        VelocityContext context = new VelocityContext();
+        context.put("method", QueryConvenientMethodTemplates.GETTER);
+        context.put("namingStrategy", new HandlerTypeBasedJavaNamingStrategy(HandlerType.TEST_DOMAIN));
+        context.put("component", componentMetaModel);
+
+        StringWriter writer = new StringWriter();
+        new BundledTemplateCache().getTemplate("templates/convenient-method.vtl").merge(context, writer);
+
+        // The variables set by the snippet don't leak into the enclosing template
+        assertThat(writer.toString(), equalTo("\tpublic " + query.getComponentType().getName() +
+            " getTextFieldName()\n\t{\n\t\treturn textFieldName;\n\t}outer"));
+    }
+}
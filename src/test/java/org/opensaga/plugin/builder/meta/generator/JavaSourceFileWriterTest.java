@@ -0,0 +1,64 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JavaSourceFileWriterTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDirectory;
+
+    private JavaSourceFileWriter fileWriter;
+
+
+    @Before
+    public void initializeTest()
+    {
+        baseDirectory = temporaryFolder.getRoot();
+        fileWriter = new JavaSourceFileWriter();
+    }
+
+
+    @Test
+    public void reusedBuffersContainOnlyTheCurrentFile() throws IOException
+    {
+        File largeFile = new File(baseDirectory, "org/example/domain/Large.java");
+        File smallFile = new File(baseDirectory, "org/example/view/Small.java");
+
+        fileWriter.startRendering().write("// Gr\u00fc\u00dfe aus K\u00f6ln, a somewhat longer comment");
+        fileWriter.writeRendered(largeFile, false);
+        fileWriter.startRendering().write("// \u20ac");
+        fileWriter.writeRendered(smallFile, false);
+
+        assertThat(FileUtils.readFileToString(largeFile, "UTF-8"),
+            equalTo("// Gr\u00fc\u00dfe aus K\u00f6ln, a somewhat longer comment"));
+        assertThat(FileUtils.readFileToString(smallFile, "UTF-8"), equalTo("// \u20ac"));
+        assertThat(smallFile.length(), equalTo(6L));
+    }
+
+
+    @Test
+    public void unchangedFileIsOnlyKeptIfRequested() throws IOException
+    {
+        File javaFile = new File(baseDirectory, "org/example/domain/Person.java");
+
+        fileWriter.startRendering().write("class Person {}");
+        assertThat(fileWriter.writeRendered(javaFile, true), equalTo(true));
+        fileWriter.startRendering().write("class Person {}");
+        assertThat(fileWriter.writeRendered(javaFile, true), equalTo(false));
+        fileWriter.startRendering().write("class Person {}");
+        assertThat(fileWriter.writeRendered(javaFile, false), equalTo(true));
+    }
+}
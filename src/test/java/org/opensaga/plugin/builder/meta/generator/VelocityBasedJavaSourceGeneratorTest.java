@@ -0,0 +1,75 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VelocityBasedJavaSourceGeneratorTest
+{
+
+    private static final String TEMPLATE = "templates/write-if-changed.vtl";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDirectory;
+
+    private VelocityBasedJavaSourceGenerator generator;
+
+
+    @Before
+    public void initializeTest()
+    {
+        baseDirectory = temporaryFolder.getRoot();
+
+        generator = new VelocityBasedJavaSourceGenerator(baseDirectory.getAbsolutePath(), "org.example");
+        generator.setWriteIfChanged(true);
+    }
+
+
+    @Test
+    public void unchangedJavaSourceFileIsNotWritten() throws Exception
+    {
+        File javaSourceFile = generator.getJavaSourceFile("PersonMetaModel.java", "domain");
+
+        generate("PersonMetaModel");
+        javaSourceFile.setLastModified(1000L);
+        generate("PersonMetaModel");
+
+        assertThat(javaSourceFile.lastModified(), equalTo(1000L));
+        assertThat(generator.getWrittenFiles(), equalTo(1));
+        assertThat(generator.getUnchangedFiles(), equalTo(1));
+        assertThat(generator.getGeneratedFiles(), equalTo(Collections.singleton(javaSourceFile.getAbsolutePath())));
+    }
+
+
+    @Test
+    public void changedJavaSourceFileIsWritten() throws Exception
+    {
+        File javaSourceFile = generator.getJavaSourceFile("PersonMetaModel.java", "domain");
+
+        generate("PersonMetaModel");
+        FileUtils.writeStringToFile(javaSourceFile, "// modified", "UTF-8");
+        generate("PersonMetaModel");
+
+        assertThat(FileUtils.readFileToString(javaSourceFile, "UTF-8"),
+            equalTo("package org.example.domain;\n\npublic class PersonMetaModel\n{\n}\n"));
+        assertThat(generator.getWrittenFiles(), equalTo(2));
+        assertThat(generator.getUnchangedFiles(), equalTo(0));
+    }
+
+
+    private void generate(String className) throws MetaGenerationFailedException
+    {
+        generator.generateJavaSourceFile(TEMPLATE, className + ".java", "domain",
+            Collections.<String, Object> singletonMap("className", className));
+    }
+}
@@ -0,0 +1,264 @@
+package org.opensaga.plugin.builder.meta.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.opensaga.plugin.builder.meta.HandlerType;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewMetaModel;
+import org.opensaga.plugin.builder.meta.parser.HandlerTypeBasedJavaNamingStrategy;
+import org.opensaga.plugin.builder.meta.parser.ModelNamingStrategy;
+import org.opensaga.plugin.builder.meta.parser.types.view.ButtonQuery;
+import org.opensaga.plugin.builder.meta.parser.types.view.CheckBoxQuery;
+import org.opensaga.plugin.builder.meta.parser.types.view.ComponentIdentifier;
+import org.opensaga.plugin.builder.meta.parser.types.view.LinkQuery;
+import org.opensaga.plugin.builder.meta.parser.types.view.Query;
+import org.opensaga.plugin.builder.meta.parser.types.view.QueryConvenientMethodTemplates;
+import org.opensaga.plugin.builder.meta.parser.types.view.SelectFieldQuery;
+import org.opensaga.plugin.builder.meta.parser.types.view.TextFieldQuery;
+
+/**
+ * Measures the rendering of a synthetic set of view meta models with the view
+ * template and its method snippets. Three ways of rendering are compared:
+ * <ul>
+ * <li>The former rendering, which parses every template again for each use
+ * and merges every method snippet into a string, which is inserted into the
+ * view.</li>
+ * <li>The same nested merging with the templates of the
+ * {@link BundledTemplateCache}.</li>
+ * <li>The current rendering, which merges the method snippets directly into
+ * the view with the {@link ConvenientMethodDirective}.</li>
+ * </ul>
+ * All of them render into memory, so no files are written. It's no unit test,
+ * run it with the test classpath:
+ *
+ * <pre>
+ * java org.opensaga.plugin.builder.meta.generator.ViewRenderingBenchmark [views] [components] [rounds]
+ * </pre>
+ */
+public class ViewRenderingBenchmark
+{
+
+    private static final String VIEW_TEMPLATE = BundledTemplateCache.JAVA_MODELS_FOLDER + "view-meta-model.vtl";
+
+    /**
+     * The former view template, which calls the method generator.
+     */
+    private static final String NESTED_VIEW_TEMPLATE = "templates/nested-view-meta-model.vtl";
+
+    private static final Query[] QUERIES = { new TextFieldQuery(), new ButtonQuery(), new SelectFieldQuery(),
+        new CheckBoxQuery(), new LinkQuery() };
+
+
+    public static void main(String[] args) throws Exception
+    {
+        int viewCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int componentCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        List<ViewMetaModel> viewMetaModels = createViewMetaModels(viewCount, componentCount);
+
+        final VelocityEngine uncachedEngine = createUncachedEngine();
+        final BundledTemplateCache templateCache = new BundledTemplateCache();
+
+        NestedMethodGenerator uncachedMethodGenerator = new NestedMethodGenerator()
+        {
+
+            @Override
+            protected Template getTemplate(String templateLocation)
+            {
+                return uncachedEngine.getTemplate(templateLocation);
+            }
+        };
+
+        NestedMethodGenerator cachedMethodGenerator = new NestedMethodGenerator()
+        {
+
+            @Override
+            protected Template getTemplate(String templateLocation)
+            {
+                return templateCache.getTemplate(templateLocation);
+            }
+        };
+
+        for (int round = 0; round < rounds; round++)
+        {
+            long start = System.nanoTime();
+            long uncachedCharacters = 0;
+
+            for (ViewMetaModel viewMetaModel : viewMetaModels)
+            {
+                uncachedCharacters += render(uncachedMethodGenerator.getTemplate(NESTED_VIEW_TEMPLATE),
+                    uncachedMethodGenerator, viewMetaModel);
+            }
+
+            long uncached = System.nanoTime() - start;
+
+            long allocated = allocatedBytes();
+            start = System.nanoTime();
+            long nestedCharacters = 0;
+
+            for (ViewMetaModel viewMetaModel : viewMetaModels)
+            {
+                nestedCharacters += render(cachedMethodGenerator.getTemplate(NESTED_VIEW_TEMPLATE),
+                    cachedMethodGenerator, viewMetaModel);
+            }
+
+            long nested = System.nanoTime() - start;
+            long nestedAllocated = allocatedBytes() - allocated;
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            long directCharacters = 0;
+
+            for (ViewMetaModel viewMetaModel : viewMetaModels)
+            {
+                directCharacters += render(templateCache.getTemplate(VIEW_TEMPLATE), null, viewMetaModel);
+            }
+
+            long direct = System.nanoTime() - start;
+            long directAllocated = allocatedBytes() - allocated;
+
+            System.out.println(String.format(
+                "Round %d with %d views: uncached %.1f ms (%.0f views/s), cached nested %.1f ms (%.0f views/s), "
+                    + "cached direct %.1f ms (%.0f views/s)%s", round + 1, viewCount, uncached / 1000000.0,
+                viewCount * 1000000000.0 / uncached, nested / 1000000.0, viewCount * 1000000000.0 / nested,
+                direct / 1000000.0, viewCount * 1000000000.0 / direct,
+                uncachedCharacters == nestedCharacters && nestedCharacters == directCharacters ? ""
+                    : ", the output differs"));
+            System.out.println(String.format("Allocated per view: cached nested %d KB, cached direct %d KB",
+                nestedAllocated / viewCount / 1024, directAllocated / viewCount / 1024));
+        }
+    }
+
+
+    /**
+     * @return The bytes allocated by the current thread so far, if the JVM
+     *         supports it, {@code 0} otherwise.
+     */
+    private static long allocatedBytes()
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (threadBean instanceof com.sun.management.ThreadMXBean)
+        {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread()
+                .getId());
+        }
+
+        return 0;
+    }
+
+
+    private static VelocityEngine createUncachedEngine() throws IOException
+    {
+        Properties properties = new Properties();
+        InputStream configuration = ViewRenderingBenchmark.class.getClassLoader().getResourceAsStream(
+            "velocity.properties");
+
+        try
+        {
+            properties.load(configuration);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(configuration);
+        }
+
+        properties.setProperty("class.resource.loader.cache", "false");
+
+        VelocityEngine engine = new VelocityEngine();
+        engine.init(properties);
+
+        return engine;
+    }
+
+
+    private static int render(Template template, NestedMethodGenerator methodGenerator, ViewMetaModel viewMetaModel)
+    {
+        VelocityContext context = new VelocityContext();
+        context.put("website", "http://www.opensaga.org");
+        context.put("model", new MetaModel[] { viewMetaModel });
+        context.put("packageName", "org.example.view");
+        context.put("namingStrategy", new HandlerTypeBasedJavaNamingStrategy(HandlerType.TEST_DOMAIN));
+        context.put("extendsClass", false);
+
+        if (methodGenerator != null)
+        {
+            context.put("methodGenerator", methodGenerator);
+        }
+
+        StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+
+        return writer.getBuffer().length();
+    }
+
+
+    private static List<ViewMetaModel> createViewMetaModels(int viewCount, int componentCount)
+    {
+        List<ViewMetaModel> viewMetaModels = new ArrayList<ViewMetaModel>(viewCount);
+
+        for (int i = 0; i < viewCount; i++)
+        {
+            ViewMetaModel viewMetaModel = new ViewMetaModel();
+            viewMetaModel.setId("view" + i);
+            viewMetaModel.setLocation("/views/view" + i + ".xml");
+
+            for (int j = 0; j < componentCount; j++)
+            {
+                Query query = QUERIES[j % QUERIES.length];
+
+                ViewComponentMetaModel componentMetaModel = new ViewComponentMetaModel();
+                componentMetaModel.setId("component" + j);
+                componentMetaModel.setTagName(query.getTag());
+                componentMetaModel.setQuery(query);
+                componentMetaModel.setIdentifier(ComponentIdentifier.ID, "component" + j);
+                componentMetaModel.setLocation(viewMetaModel.getLocation());
+                viewMetaModel.getComponentMetaModels().add(componentMetaModel);
+            }
+
+            viewMetaModels.add(viewMetaModel);
+        }
+
+        return viewMetaModels;
+    }
+
+
+    /**
+     * The former method generation, which merges the snippet of every method
+     * into a string.
+     */
+    public abstract static class NestedMethodGenerator
+    {
+
+        public String generateMethod(QueryConvenientMethodTemplates method, ModelNamingStrategy namingStrategy,
+            ViewComponentMetaModel viewComponentMetaModel)
+        {
+            VelocityContext context = new VelocityContext();
+            context.put("model", viewComponentMetaModel);
+            context.put("namingStrategy", namingStrategy);
+            context.put("stringUtils", new StringUtils());
+
+            StringWriter writer = new StringWriter();
+            getTemplate(BundledTemplateCache.JAVA_SNIPPETS_FOLDER + method.getTemplate()).merge(context, writer);
+
+            return writer.toString();
+        }
+
+
+        protected abstract Template getTemplate(String templateLocation);
+    }
+}
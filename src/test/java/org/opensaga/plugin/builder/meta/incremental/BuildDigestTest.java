@@ -0,0 +1,99 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildDigestTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private File modelFile;
+
+    private File outputFile;
+
+    private Collection<File> outputDirectories;
+
+    private BuildDigest buildDigest;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        directory = temporaryFolder.getRoot();
+        modelFile = new File(directory, "models/domain/person.xml");
+        outputFile = new File(directory, "generated/PersonMetaModel.java");
+        outputDirectories = Collections.singleton(outputFile.getParentFile());
+
+        FileUtils.writeStringToFile(modelFile, "<domain-type id=\"person\"/>", "UTF-8");
+        FileUtils.writeStringToFile(outputFile, "public class PersonMetaModel {}", "UTF-8");
+
+        buildDigest = new BuildDigest(new File(directory, "meta-model.digest"));
+        buildDigest.store(computeInputDigest("configuration"), outputDirectories);
+    }
+
+
+    @Test
+    public void unchangedBuildIsUpToDate() throws IOException
+    {
+        assertThat(buildDigest.isUpToDate(computeInputDigest("configuration"), outputDirectories), equalTo(true));
+    }
+
+
+    @Test
+    public void changedInputsAreDetected() throws IOException
+    {
+        String inputDigest = computeInputDigest("configuration");
+
+        assertThat(computeInputDigest("other configuration"), not(equalTo(inputDigest)));
+
+        FileUtils.writeStringToFile(modelFile, "<domain-type id=\"person\" name=\"Person\"/>", "UTF-8");
+        assertThat(computeInputDigest("configuration"), not(equalTo(inputDigest)));
+        assertThat(buildDigest.isUpToDate(computeInputDigest("configuration"), outputDirectories), equalTo(false));
+    }
+
+
+    @Test
+    public void modifiedOrDeletedOutputsAreDetected() throws IOException
+    {
+        String inputDigest = computeInputDigest("configuration");
+
+        outputFile.setLastModified(outputFile.lastModified() - 10000);
+        assertThat(buildDigest.isUpToDate(inputDigest, outputDirectories), equalTo(false));
+
+        FileUtils.deleteQuietly(outputFile);
+        assertThat(buildDigest.isUpToDate(inputDigest, outputDirectories), equalTo(false));
+    }
+
+
+    @Test
+    public void invalidatedBuildIsNotUpToDate() throws IOException
+    {
+        buildDigest.invalidate();
+
+        assertThat(buildDigest.isUpToDate(computeInputDigest("configuration"), outputDirectories), equalTo(false));
+    }
+
+
+    private String computeInputDigest(String configuration) throws IOException
+    {
+        return BuildDigest.computeInputDigest(Collections.singleton(modelFile),
+            Arrays.asList("velocity.properties", "templates/java-models/view-meta-model.vtl"), configuration);
+    }
+}
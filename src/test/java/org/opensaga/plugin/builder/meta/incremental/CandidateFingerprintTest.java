@@ -0,0 +1,79 @@
+package org.opensaga.plugin.builder.meta.incremental;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CandidateFingerprintTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File candidate;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        candidate = new File(temporaryFolder.getRoot(), "candidate.xml");
+        FileUtils.writeStringToFile(candidate, "<domain-type id=\"a\"/>", "UTF-8");
+    }
+
+
+    @Test
+    public void unchangedFileMatches() throws IOException
+    {
+        CandidateFingerprint fingerprint = CandidateFingerprint.of(candidate);
+        assertThat(fingerprint.matches(candidate), equalTo(true));
+    }
+
+
+    @Test
+    public void touchedFileWithSameContentMatches() throws IOException
+    {
+        CandidateFingerprint fingerprint = CandidateFingerprint.of(candidate);
+        candidate.setLastModified(candidate.lastModified() + 10000);
+
+        assertThat(fingerprint.matches(candidate), equalTo(true));
+    }
+
+
+    @Test
+    public void modifiedFileWithSameSizeDoesNotMatch() throws IOException
+    {
+        CandidateFingerprint fingerprint = CandidateFingerprint.of(candidate);
+        FileUtils.writeStringToFile(candidate, "<domain-type id=\"b\"/>", "UTF-8");
+        candidate.setLastModified(candidate.lastModified() + 10000);
+
+        assertThat(fingerprint.matches(candidate), equalTo(false));
+    }
+
+
+    @Test
+    public void modifiedFileWithOtherSizeDoesNotMatch() throws IOException
+    {
+        CandidateFingerprint fingerprint = CandidateFingerprint.of(candidate);
+        FileUtils.writeStringToFile(candidate, "<domain-type id=\"abc\"/>", "UTF-8");
+
+        assertThat(fingerprint.matches(candidate), equalTo(false));
+    }
+
+
+    @Test
+    public void deletedFileDoesNotMatch() throws IOException
+    {
+        CandidateFingerprint fingerprint = CandidateFingerprint.of(candidate);
+        FileUtils.deleteQuietly(candidate);
+
+        assertThat(fingerprint.matches(candidate), equalTo(false));
+    }
+}
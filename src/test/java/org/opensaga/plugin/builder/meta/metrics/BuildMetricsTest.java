@@ -0,0 +1,84 @@
+package org.opensaga.plugin.builder.meta.metrics;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.builder.meta.metrics.BuildMetrics.FileMetrics;
+import org.opensaga.plugin.builder.meta.metrics.BuildMetrics.Phase;
+
+public class BuildMetricsTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File reportFile;
+
+    private BuildMetrics buildMetrics;
+
+
+    @Before
+    public void initializeTest()
+    {
+        reportFile = new File(temporaryFolder.getRoot(), "build-metrics.json");
+        buildMetrics = new BuildMetrics(2, 2);
+    }
+
+
+    @Test
+    public void slowestFilesAreLimitedAndSorted()
+    {
+        long now = System.nanoTime();
+
+        buildMetrics.recordParsedFile("domain", new File("fast.xml"), 10, 1, now - 1000);
+        buildMetrics.recordParsedFile("domain", new File("slowest.xml"), 10, 1, now - 3000000000L);
+        buildMetrics.recordParsedFile("view", new File("slow.xml"), 10, 1, now - 2000000000L);
+
+        List<FileMetrics> slowestFiles = buildMetrics.getSlowestFiles();
+
+        assertThat(slowestFiles.size(), equalTo(2));
+        assertThat(slowestFiles.get(0).getPath(), equalTo("slowest.xml"));
+        assertThat(slowestFiles.get(1).getPath(), equalTo("slow.xml"));
+    }
+
+
+    @Test
+    public void reportContainsAllSections() throws IOException
+    {
+        long now = System.nanoTime();
+
+        buildMetrics.addPhaseTime(Phase.SCAN, now);
+        buildMetrics.addBytesRead(42);
+        buildMetrics.recordParsedFile("domain", new File("person.xml"), 42, 2, now);
+        buildMetrics.recordRenderedModel("domain", 1, now);
+        buildMetrics.recordPipeline(now);
+        buildMetrics.complete(1, 1024);
+        buildMetrics.writeReport(reportFile);
+
+        String report = FileUtils.readFileToString(reportFile, "UTF-8");
+
+        assertThat(report.contains("\"bytesRead\": 42,"), equalTo(true));
+        assertThat(report.contains("\"bytesWritten\": 1024,"), equalTo(true));
+        assertThat(report.contains("{ \"name\": \"root-sniff\""), equalTo(true));
+        assertThat(report.contains("{ \"id\": \"domain\", \"files\": 1, \"bytesRead\": 42, \"metaModels\": 2"),
+            equalTo(true));
+        assertThat(report.contains("{ \"path\": \"person.xml\", \"handler\": \"domain\""), equalTo(true));
+    }
+
+
+    @Test
+    public void stringsAreQuoted()
+    {
+        assertThat(BuildMetrics.quote("C:\\models\\\"a\"\n"), equalTo("\"C:\\\\models\\\\\\\"a\\\"\\n\""));
+        assertThat(BuildMetrics.quote(null), equalTo("null"));
+    }
+}
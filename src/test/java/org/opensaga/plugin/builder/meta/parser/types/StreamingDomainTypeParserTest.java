@@ -0,0 +1,101 @@
+package org.opensaga.plugin.builder.meta.parser.types;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.builder.meta.generator.model.DomainTypeMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.PropertyMetaModel;
+import org.opensaga.plugin.builder.meta.parser.HandlerConstants;
+
+import com.mycila.xmltool.XMLDocumentException;
+
+public class StreamingDomainTypeParserTest
+{
+
+    private static final String DOMAIN_TYPE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<!-- A domain type -->\n"
+        + "<domain-type xmlns=\"urn:opensaga\" xmlns:x=\"urn:x\" id=\"person\" name=\"Person &amp; Co\">\n"
+        + "  <property-set>\n"
+        + "    <enum-property-set>\n"
+        + "      <enum-property id=\"person.gender\" name=\"gender\" property-ref=\"gender.value\"/>\n"
+        + "    </enum-property-set>\n"
+        + "    <formula-property-set>\n"
+        + "      <formula-property id=\"person.full\" name=\"fullName\" type=\"PlainText\"/>\n"
+        + "    </formula-property-set>\n"
+        + "    <domain-type-property-set>\n"
+        + "      <domain-type-property id=\"person.name\" name=\"name\" type=\"PlainText\"/>\n"
+        + "      <x:domain-type-property id=\"person.age\" x:name=\"age\" type=\"Integer\"/>\n"
+        + "    </domain-type-property-set>\n"
+        + "    <domain-type-property id=\"person.ignored\" name=\"ignored\" type=\"Long\"/>\n"
+        + "  </property-set>\n"
+        + "  <x:property-set>\n"
+        + "    <x:enum-property-set>\n"
+        + "      <x:enum-property id=\"person.prefixed\" name=\"prefixed\" type=\"Date\"/>\n"
+        + "    </x:enum-property-set>\n"
+        + "  </x:property-set>\n"
+        + "</domain-type>\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File modelFile;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        modelFile = new File(temporaryFolder.getRoot(), "domain-type.xml");
+        FileUtils.writeStringToFile(modelFile, DOMAIN_TYPE, "UTF-8");
+    }
+
+
+    @Test
+    public void streamingParserEqualsXPathBasedParser() throws IOException
+    {
+        DomainTypeModelHandler handler = new DomainTypeModelHandler(Collections.<String> emptyList());
+        DomainTypeMetaModel expected = (DomainTypeMetaModel) handler.parseModelImpl(modelFile, null).get(0);
+
+        handler.setConfiguration(Collections.<String, Object> singletonMap(
+            HandlerConstants.CONFIG_KEY_STREAMING_PARSER, Boolean.TRUE));
+        List<MetaModel> metaModels = handler.parseModelImpl(modelFile, FileUtils.readFileToByteArray(modelFile));
+
+        assertThat(metaModels.size(), equalTo(1));
+        assertThat(describe((DomainTypeMetaModel) metaModels.get(0)), equalTo(describe(expected)));
+    }
+
+
+    @Test(expected = XMLDocumentException.class)
+    public void notWellFormedModelIsRejected() throws IOException
+    {
+        FileUtils.writeStringToFile(modelFile, "<domain-type id=\"a\"><property-set></domain-type>", "UTF-8");
+        new StreamingDomainTypeParser().parse(modelFile);
+    }
+
+
+    private String describe(DomainTypeMetaModel domainTypeModel)
+    {
+        StringBuilder description = new StringBuilder();
+        description.append(domainTypeModel.getId()).append('|').append(domainTypeModel.getName()).append('|')
+            .append(domainTypeModel.getLocation());
+
+        for (PropertyMetaModel propertyModel : domainTypeModel.getMetaPropertyModels())
+        {
+            description.append('\n').append(propertyModel.getId()).append('|').append(propertyModel.getName())
+                .append('|').append(propertyModel.getLocation()).append('|').append(propertyModel.getType())
+                .append('|').append(propertyModel.getPropertyRef());
+        }
+
+        return description.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package org.opensaga.plugin.builder.meta.parser.types;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.builder.meta.generator.model.MetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewComponentMetaModel;
+import org.opensaga.plugin.builder.meta.generator.model.ViewMetaModel;
+import org.opensaga.plugin.builder.meta.parser.HandlerConstants;
+
+import com.mycila.xmltool.XMLDocumentException;
+
+public class StreamingViewParserTest
+{
+
+    private static final String VIEW = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<view xmlns=\"urn:opensaga\" xmlns:x=\"urn:x\" id=\"editView\" name=\"Edit\">\n"
+        + "  <form>\n"
+        + "    <text-field label=\"Name\" id=\"name\"/>\n"
+        + "    <button title=\"Save\" id=\"save\"/>\n"
+        + "    <button label=\"Cancel\"/>\n"
+        + "    <link text=\"Back\" x:label=\"Ignored\"/>\n"
+        + "    <datagrid heading=\"Items\">\n"
+        + "      <checkbox id=\"selected\"/>\n"
+        + "    </datagrid>\n"
+        + "    <text-field id=\"dup\"/>\n"
+        + "    <text-field id=\"dup\"/>\n"
+        + "    <text-field id=\"dup\"/>\n"
+        + "    <select-field id=\"\" label=\"Country\"/>\n"
+        + "    <unknown id=\"unknown\"/>\n"
+        + "    <textarea/>\n"
+        + "    <x:text-field id=\"prefixed\"/>\n"
+        + "  </form>\n"
+        + "</view>\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File modelFile;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        modelFile = new File(temporaryFolder.getRoot(), "view.xml");
+        FileUtils.writeStringToFile(modelFile, VIEW, "UTF-8");
+    }
+
+
+    @Test
+    public void streamingParserEqualsXPathBasedParser() throws IOException
+    {
+        ViewModelHandler handler = new ViewModelHandler();
+        ViewMetaModel expected = (ViewMetaModel) handler.parseModelImpl(modelFile, null).get(0);
+
+        handler.setConfiguration(Collections.<String, Object> singletonMap(
+            HandlerConstants.CONFIG_KEY_STREAMING_PARSER, Boolean.TRUE));
+        List<MetaModel> metaModels = handler.parseModelImpl(modelFile, FileUtils.readFileToByteArray(modelFile));
+
+        assertThat(metaModels.size(), equalTo(1));
+        assertThat(describe((ViewMetaModel) metaModels.get(0)), equalTo(describe(expected)));
+    }
+
+
+    @Test(expected = XMLDocumentException.class)
+    public void notWellFormedModelIsRejected() throws IOException
+    {
+        FileUtils.writeStringToFile(modelFile, "<view id=\"a\"><form></view>", "UTF-8");
+
+        ViewModelHandler handler = new ViewModelHandler();
+        handler.setConfiguration(Collections.<String, Object> singletonMap(
+            HandlerConstants.CONFIG_KEY_STREAMING_PARSER, Boolean.TRUE));
+        handler.parseModelImpl(modelFile, null);
+    }
+
+
+    private String describe(ViewMetaModel viewMetaModel)
+    {
+        StringBuilder description = new StringBuilder();
+        description.append(viewMetaModel.getId()).append('|').append(viewMetaModel.getName()).append('|')
+            .append(viewMetaModel.getLocation());
+
+        for (ViewComponentMetaModel componentMetaModel : viewMetaModel.getComponentMetaModels())
+        {
+            description.append('\n').append(componentMetaModel.getTagName()).append('|')
+                .append(componentMetaModel.getId()).append('|').append(componentMetaModel.getName()).append('|')
+                .append(componentMetaModel.getComponentIdentifier()).append('|')
+                .append(componentMetaModel.getIdentifier()).append('|')
+                .append(componentMetaModel.getQuery().getClass().getSimpleName()).append('|')
+                .append(componentMetaModel.getLocation());
+        }
+
+        return description.toString();
+    }
+}
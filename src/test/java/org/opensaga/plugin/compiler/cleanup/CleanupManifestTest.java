@@ -0,0 +1,58 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.compiler.cleanup.CleanupManifest.Action;
+
+public class CleanupManifestTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File manifestFile;
+
+
+    @Before
+    public void initializeTest()
+    {
+        manifestFile = new File(temporaryFolder.getRoot(), "cleanup-manifest.txt");
+    }
+
+
+    @Test
+    public void writtenManifestIsReadSortedByPath() throws IOException
+    {
+        CleanupManifest manifest = new CleanupManifest();
+        manifest.add(Action.SHRINK_JAR, "WEB-INF/lib/opensaga-extension.jar", 2048, "jar entry prefix WEB-INF");
+        manifest.add(Action.DELETE_FILE, "WEB-INF\\resources\\view.xml", 42, "root element view");
+        manifest.write(manifestFile);
+
+        List<CleanupManifest.Entry> entries = CleanupManifest.read(manifestFile).getEntries();
+
+        assertThat(entries.size(), equalTo(2));
+        assertThat(entries.get(0).getAction(), equalTo(Action.SHRINK_JAR));
+        assertThat(entries.get(0).getSize(), equalTo(2048L));
+        assertThat(entries.get(1).getPath(), equalTo("WEB-INF/resources/view.xml"));
+        assertThat(entries.get(1).getReason(), equalTo("root element view"));
+    }
+
+
+    @Test(expected = IOException.class)
+    public void invalidLineIsRejected() throws IOException
+    {
+        FileUtils.writeStringToFile(manifestFile, "DELETE_FILE\tmany\tview.xml\troot element view\n", "UTF-8");
+
+        CleanupManifest.read(manifestFile);
+    }
+}
@@ -0,0 +1,79 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileReplacerTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private File target;
+
+    private File replacement;
+
+
+    @Before
+    public void initializeTest()
+    {
+        directory = temporaryFolder.getRoot();
+        target = new File(directory, "opensaga-extension.jar");
+        replacement = new File(directory, ".opensaga-extension.jar.tmp");
+    }
+
+
+    @Test
+    public void existingTargetIsReplaced() throws IOException
+    {
+        FileUtils.writeStringToFile(target, "original", "UTF-8");
+        FileUtils.writeStringToFile(replacement, "replacement", "UTF-8");
+
+        FileReplacer.replace(replacement, target);
+
+        assertThat(FileUtils.readFileToString(target, "UTF-8"), equalTo("replacement"));
+        assertThat(directory.list().length, equalTo(1));
+    }
+
+
+    @Test
+    public void missingTargetIsCreated() throws IOException
+    {
+        FileUtils.writeStringToFile(replacement, "replacement", "UTF-8");
+
+        FileReplacer.replace(replacement, target);
+
+        assertThat(FileUtils.readFileToString(target, "UTF-8"), equalTo("replacement"));
+        assertThat(directory.list().length, equalTo(1));
+    }
+
+
+    @Test
+    public void targetIsRestoredIfTheReplacementFails() throws IOException
+    {
+        FileUtils.writeStringToFile(target, "original", "UTF-8");
+
+        try
+        {
+            FileReplacer.replace(replacement, target);
+            fail("The missing replacement can't replace the target.");
+        }
+        catch (IOException e)
+        {
+            assertThat(FileUtils.readFileToString(target, "UTF-8"), equalTo("original"));
+            assertThat(directory.list().length, equalTo(1));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarShrinkerTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private File jar;
+
+    private JarShrinker jarShrinker;
+
+
+    @Before
+    public void initializeTest()
+    {
+        directory = temporaryFolder.getRoot();
+        jar = new File(directory, "opensaga-extension.jar");
+        jarShrinker = new JarShrinker(Arrays.asList("WEB-INF"), Collections.singleton("index.jsp"));
+    }
+
+
+    @Test
+    public void removableEntriesAreRemovedAndOthersCopied() throws IOException
+    {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        entries.put("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n");
+        entries.put("WEB-INF/resources/models/domain/person.xml", "<domain-type id=\"person\"/>");
+        entries.put("org/opensaga/Stored.class", "stored content");
+        entries.put("index.jsp", "<html/>");
+        entries.put("org/opensaga/Deflated.class", "deflated content deflated content deflated content");
+        writeJar(entries, "The comment of the jar");
+
+        JarShrinker.Result result = jarShrinker.shrink(jar);
+
+        assertThat(result.getPreservedEntries(), equalTo(3));
+        assertThat(result.getRemovedEntries(), equalTo(2));
+
+        entries.remove("WEB-INF/resources/models/domain/person.xml");
+        entries.remove("index.jsp");
+        assertThat(readJar(), equalTo(entries));
+        assertThat(directory.list().length, equalTo(1));
+    }
+
+
+    @Test
+    public void jarWithoutRemovableEntriesIsUntouched() throws IOException
+    {
+        writeJar(Collections.singletonMap("org/opensaga/Stored.class", "stored content"), null);
+        byte[] content = FileUtils.readFileToByteArray(jar);
+        jar.setLastModified(jar.lastModified() - 10000);
+        long lastModified = jar.lastModified();
+
+        JarShrinker.Result result = jarShrinker.shrink(jar);
+
+        assertThat(result.getPreservedEntries(), equalTo(1));
+        assertThat(result.getRemovedEntries(), equalTo(0));
+        assertThat(jar.lastModified(), equalTo(lastModified));
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(jar), content), equalTo(true));
+    }
+
+
+    @Test
+    public void jarWithOnlyRemovableEntriesIsLeftToTheCaller() throws IOException
+    {
+        writeJar(Collections.singletonMap("WEB-INF/web.xml", "<web-app/>"), null);
+        long length = jar.length();
+
+        JarShrinker.Result result = jarShrinker.shrink(jar);
+
+        assertThat(result.getPreservedEntries(), equalTo(0));
+        assertThat(result.getRemovedEntries(), equalTo(1));
+        assertThat(jar.length(), equalTo(length));
+    }
+
+
+    @Test
+    public void inspectedJarIsUntouched() throws IOException
+    {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        entries.put("WEB-INF/web.xml", "<web-app/>");
+        entries.put("org/opensaga/Stored.class", "stored content");
+        writeJar(entries, null);
+        long length = jar.length();
+
+        JarShrinker.Result result = jarShrinker.inspect(jar);
+
+        assertThat(result.getPreservedEntries(), equalTo(1));
+        assertThat(result.getRemovedEntries(), equalTo(1));
+        assertThat(readJar(), equalTo(entries));
+
+        jarShrinker.shrink(jar);
+
+        assertThat(jar.length(), equalTo(length - result.getRemovedBytes()));
+    }
+
+
+    @Test
+    public void cacheKeyCoversContentAndRules() throws IOException
+    {
+        writeJar(Collections.singletonMap("org/opensaga/Stored.class", "stored content"), null);
+
+        String cacheKey = jarShrinker.inspect(jar).getCacheKey();
+
+        assertThat(jarShrinker.inspect(jar).getCacheKey(), equalTo(cacheKey));
+        assertThat(new JarShrinker(Arrays.asList("WEB-INF"), Collections.<String> emptySet()).inspect(jar)
+            .getCacheKey().equals(cacheKey), equalTo(false));
+
+        writeJar(Collections.singletonMap("org/opensaga/Stored.class", "changed content"), null);
+
+        assertThat(jarShrinker.inspect(jar).getCacheKey().equals(cacheKey), equalTo(false));
+    }
+
+
+    /**
+     * Writes the entries into the jar, the class entries ending with
+     * {@code Stored.class} are stored, all other entries are deflated with a
+     * data descriptor.
+     */
+    private void writeJar(Map<String, String> entries, String comment) throws IOException
+    {
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jar));
+
+        try
+        {
+            for (Map.Entry<String, String> entry : entries.entrySet())
+            {
+                byte[] content = entry.getValue().getBytes("UTF-8");
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+
+                if (entry.getKey().endsWith("Stored.class"))
+                {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(content.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+
+                outputStream.putNextEntry(zipEntry);
+                outputStream.write(content);
+                outputStream.closeEntry();
+            }
+
+            if (comment != null)
+            {
+                outputStream.setComment(comment);
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+
+    private Map<String, String> readJar() throws IOException
+    {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        ZipFile zipFile = new ZipFile(jar);
+
+        try
+        {
+            for (Enumeration<? extends ZipEntry> zipEntries = zipFile.entries(); zipEntries.hasMoreElements();)
+            {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                entries.put(zipEntry.getName(), IOUtils.toString(zipFile.getInputStream(zipEntry), "UTF-8"));
+            }
+        }
+        finally
+        {
+            zipFile.close();
+        }
+
+        return entries;
+    }
+}
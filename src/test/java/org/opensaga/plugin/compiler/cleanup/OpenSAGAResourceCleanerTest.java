@@ -0,0 +1,305 @@
+package org.opensaga.plugin.compiler.cleanup;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.compiler.cleanup.CleanupManifest.Action;
+import org.opensaga.plugin.compiler.cleanup.DeleteCandidateStrategy.Advise;
+import org.opensaga.plugin.compiler.cleanup.OpenSAGAResourceCleaner.Mode;
+import org.opensaga.plugin.util.RootElementCache;
+
+public class OpenSAGAResourceCleanerTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDirectory;
+
+    private File manifestFile;
+
+    private OpenSAGAResourceCleaner resourceCleaner;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        baseDirectory = temporaryFolder.newFolder("portal");
+        manifestFile = new File(baseDirectory, "target/cleanup-manifest.txt");
+
+        resourceCleaner = new OpenSAGAResourceCleaner(new OpenSAGADeleteCandidateStrategy(),
+            baseDirectory.getAbsolutePath());
+        resourceCleaner.setFileThreads("4");
+        resourceCleaner.setJarThreads("2");
+    }
+
+
+    @Test
+    public void filesAndJarsAreCleanedUpConcurrently() throws IOException, MojoExecutionException,
+        MojoFailureException
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            FileUtils.writeStringToFile(new File(baseDirectory, "WEB-INF/resources/models/view" + i + ".xml"),
+                "<view id=\"view" + i + "\"/>", "UTF-8");
+        }
+
+        File configuration = new File(baseDirectory, "WEB-INF/resources/configuration.xml");
+        FileUtils.writeStringToFile(configuration, "<configuration/>", "UTF-8");
+
+        File shrunkJar = new File(baseDirectory, "WEB-INF/lib/opensaga-extension.jar");
+        writeJar(shrunkJar, "WEB-INF/resources/models/view.xml", "org/opensaga/Extension.class");
+
+        File removedJar = new File(baseDirectory, "WEB-INF/lib/opensaga-models.jar");
+        writeJar(removedJar, "WEB-INF/resources/models/process.xml", "index.jsp");
+
+        resourceCleaner.cleanUp();
+
+        assertThat(FileUtils.listFiles(new File(baseDirectory, "WEB-INF/resources"), null, true).size(), equalTo(1));
+        assertThat(configuration.isFile(), equalTo(true));
+        assertThat(removedJar.exists(), equalTo(false));
+
+        ZipFile zipFile = new ZipFile(shrunkJar);
+
+        try
+        {
+            assertThat(zipFile.size(), equalTo(1));
+            assertThat(zipFile.getEntry("org/opensaga/Extension.class") != null, equalTo(true));
+        }
+        finally
+        {
+            zipFile.close();
+        }
+    }
+
+
+    @Test
+    public void dryRunOnlyWritesTheManifest() throws IOException, MojoExecutionException, MojoFailureException
+    {
+        File view = new File(baseDirectory, "WEB-INF/resources/models/view.xml");
+        FileUtils.writeStringToFile(view, "<view id=\"view\"/>", "UTF-8");
+
+        File configuration = new File(baseDirectory, "WEB-INF/resources/configuration.xml");
+        FileUtils.writeStringToFile(configuration, "<configuration/>", "UTF-8");
+
+        File jar = new File(baseDirectory, "WEB-INF/lib/opensaga-extension.jar");
+        writeJar(jar, "WEB-INF/resources/models/view.xml", "org/opensaga/Extension.class");
+        long jarLength = jar.length();
+
+        resourceCleaner.setMode(Mode.DRY_RUN);
+        resourceCleaner.setManifestFile(manifestFile);
+        resourceCleaner.cleanUp();
+
+        assertThat(view.isFile(), equalTo(true));
+        assertThat(jar.length(), equalTo(jarLength));
+
+        List<CleanupManifest.Entry> entries = CleanupManifest.read(manifestFile).getEntries();
+
+        assertThat(entries.size(), equalTo(2));
+        assertThat(entries.get(0).getAction(), equalTo(Action.SHRINK_JAR));
+        assertThat(entries.get(0).getPath(), equalTo("WEB-INF/lib/opensaga-extension.jar"));
+        assertThat(entries.get(0).getReason(), equalTo("jar entry prefix WEB-INF, file index.jsp"));
+        assertThat(entries.get(1).getAction(), equalTo(Action.DELETE_FILE));
+        assertThat(entries.get(1).getPath(), equalTo("WEB-INF/resources/models/view.xml"));
+        assertThat(entries.get(1).getSize(), equalTo(view.length()));
+        assertThat(entries.get(1).getReason(), equalTo("root element view"));
+    }
+
+
+    @Test
+    public void strategyWithoutReasonsIsNamedInTheManifest() throws IOException, MojoExecutionException,
+        MojoFailureException
+    {
+        DeleteCandidateStrategy strategy = new DeleteCandidateStrategy()
+        {
+            @Override
+            public Advise isFileDeleteCandidate(File file)
+            {
+                return Advise.DELETE;
+            }
+
+
+            @Override
+            public Advise isDirectoryDeleteCandidate(File directory)
+            {
+                return Advise.KEEP;
+            }
+        };
+
+        File configuration = new File(baseDirectory, "WEB-INF/resources/configuration.xml");
+        FileUtils.writeStringToFile(configuration, "<configuration/>", "UTF-8");
+
+        resourceCleaner = new OpenSAGAResourceCleaner(strategy, baseDirectory.getAbsolutePath());
+        resourceCleaner.setManifestFile(manifestFile);
+        resourceCleaner.cleanUp();
+
+        List<CleanupManifest.Entry> entries = CleanupManifest.read(manifestFile).getEntries();
+
+        assertThat(configuration.exists(), equalTo(false));
+        assertThat(entries.size(), equalTo(1));
+        assertThat(entries.get(0).getReason(), equalTo("advised by " + strategy.getClass().getName()));
+    }
+
+
+    @Test
+    public void appliedManifestRemovesTheListedResourcesWithoutExaminingThem() throws IOException,
+        MojoExecutionException, MojoFailureException
+    {
+        File listed = new File(baseDirectory, "WEB-INF/resources/listed.xml");
+        FileUtils.writeStringToFile(listed, "<configuration/>", "UTF-8");
+
+        File changed = new File(baseDirectory, "WEB-INF/resources/changed.xml");
+        FileUtils.writeStringToFile(changed, "<configuration/>", "UTF-8");
+
+        File unlisted = new File(baseDirectory, "WEB-INF/resources/models/view.xml");
+        FileUtils.writeStringToFile(unlisted, "<view id=\"view\"/>", "UTF-8");
+
+        CleanupManifest manifest = new CleanupManifest();
+        manifest.add(Action.DELETE_FILE, "WEB-INF/resources/listed.xml", listed.length(), "root element view");
+        manifest.add(Action.DELETE_FILE, "WEB-INF/resources/changed.xml", 1, "root element view");
+        manifest.add(Action.DELETE_FILE, "WEB-INF/resources/missing.xml", 1, "root element view");
+        FileUtils.forceMkdir(manifestFile.getParentFile());
+        manifest.write(manifestFile);
+        long manifestLength = manifestFile.length();
+
+        resourceCleaner.setMode(Mode.APPLY_MANIFEST);
+        resourceCleaner.setManifestFile(manifestFile);
+        resourceCleaner.cleanUp();
+
+        assertThat(listed.exists(), equalTo(false));
+        assertThat(changed.isFile(), equalTo(true));
+        assertThat(unlisted.isFile(), equalTo(true));
+        assertThat(manifestFile.length(), equalTo(manifestLength));
+    }
+
+
+    @Test
+    public void shrunkJarIsTakenFromTheCache() throws IOException, MojoExecutionException, MojoFailureException
+    {
+        File jarCacheDirectory = new File(baseDirectory, "target/opensaga-cleaned");
+        resourceCleaner.setJarCacheDirectory(jarCacheDirectory);
+
+        File jar = new File(baseDirectory, "WEB-INF/lib/opensaga-extension.jar");
+        writeJar(jar, "WEB-INF/resources/models/view.xml", "org/opensaga/Extension.class");
+        byte[] content = FileUtils.readFileToByteArray(jar);
+
+        resourceCleaner.cleanUp();
+
+        File[] cachedJars = jarCacheDirectory.listFiles();
+        assertThat(cachedJars.length, equalTo(1));
+        assertThat(FileUtils.contentEquals(cachedJars[0], jar), equalTo(true));
+
+        // A different cached jar proves that the second cleanup doesn't shrink the jar itself
+        writeJar(cachedJars[0], "org/opensaga/Cached.class");
+        FileUtils.writeByteArrayToFile(jar, content);
+
+        resourceCleaner.cleanUp();
+
+        assertThat(FileUtils.contentEquals(cachedJars[0], jar), equalTo(true));
+    }
+
+
+    @Test
+    public void unusedJarsAreEvictedFromTheCache() throws IOException, MojoExecutionException, MojoFailureException
+    {
+        File jarCacheDirectory = new File(baseDirectory, "target/opensaga-cleaned");
+        resourceCleaner.setJarCacheDirectory(jarCacheDirectory);
+        resourceCleaner.setJarCacheMaxAge(30);
+
+        File jar = new File(baseDirectory, "WEB-INF/lib/opensaga-extension.jar");
+        writeJar(jar, "WEB-INF/resources/models/view.xml", "org/opensaga/Extension.class");
+        byte[] content = FileUtils.readFileToByteArray(jar);
+
+        resourceCleaner.cleanUp();
+
+        File usedJar = jarCacheDirectory.listFiles()[0];
+        File unusedJar = new File(jarCacheDirectory, "unused.jar");
+        writeJar(unusedJar, "org/opensaga/Unused.class");
+        long monthsAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60);
+        unusedJar.setLastModified(monthsAgo);
+        usedJar.setLastModified(monthsAgo);
+        FileUtils.writeByteArrayToFile(jar, content);
+
+        resourceCleaner.cleanUp();
+
+        assertThat(usedJar.isFile(), equalTo(true));
+        assertThat(unusedJar.exists(), equalTo(false));
+    }
+
+
+    @Test
+    public void deletedModelFilesAreRecognizedWithoutReadingThem() throws IOException, MojoExecutionException,
+        MojoFailureException
+    {
+        File sourceDirectory = temporaryFolder.newFolder("webapp");
+        File cacheFile = new File(temporaryFolder.getRoot(), "root-elements.cache");
+        File view = new File(sourceDirectory, "WEB-INF/resources/models/view.xml");
+        File copiedView = new File(baseDirectory, "WEB-INF/resources/models/view.xml");
+        FileUtils.writeStringToFile(view, "<view id=\"a\"/>", "UTF-8");
+        long lastModified = view.lastModified();
+
+        FileUtils.copyDirectory(sourceDirectory, baseDirectory);
+        cleanUpWithRootElementCache(cacheFile);
+
+        assertThat(copiedView.exists(), equalTo(false));
+
+        // Same size and modification time, only reading the file would tell that it's no model any longer
+        FileUtils.writeStringToFile(view, "<misc id=\"a\"/>", "UTF-8");
+        view.setLastModified(lastModified);
+
+        FileUtils.copyDirectory(sourceDirectory, baseDirectory);
+        cleanUpWithRootElementCache(cacheFile);
+
+        assertThat(copiedView.exists(), equalTo(false));
+    }
+
+
+    private void cleanUpWithRootElementCache(File cacheFile) throws IOException, MojoExecutionException,
+        MojoFailureException
+    {
+        RootElementCache rootElementCache = RootElementCache.load(cacheFile);
+        OpenSAGADeleteCandidateStrategy deleteCandidateStrategy = new OpenSAGADeleteCandidateStrategy();
+        deleteCandidateStrategy.setRootElementCache(rootElementCache);
+
+        new OpenSAGAResourceCleaner(deleteCandidateStrategy, baseDirectory.getAbsolutePath()).cleanUp();
+        rootElementCache.save(cacheFile);
+    }
+
+
+    private void writeJar(File jar, String... entries) throws IOException
+    {
+        FileUtils.forceMkdir(jar.getParentFile());
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jar));
+
+        try
+        {
+            for (String entry : entries)
+            {
+                outputStream.putNextEntry(new ZipEntry(entry));
+                outputStream.write(entry.getBytes("UTF-8"));
+                outputStream.closeEntry();
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+}
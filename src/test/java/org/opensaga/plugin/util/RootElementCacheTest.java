@@ -0,0 +1,160 @@
+package org.opensaga.plugin.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
+
+public class RootElementCacheTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private File cacheFile;
+
+    private File xmlFile;
+
+
+    @Before
+    public void initializeTest() throws IOException
+    {
+        directory = temporaryFolder.getRoot();
+        cacheFile = new File(directory, "root-elements.cache");
+        xmlFile = new File(directory, "person.xml");
+        writeXmlFile("<domain-type id=\"person\"/>", 1000000000L);
+    }
+
+
+    @Test
+    public void unchangedFileIsClassifiedFromTheSavedCache() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = RootElementCache.load(cacheFile);
+
+        assertThat(rootElementCache.getRootElementName(xmlFile), nullValue());
+        assertThat(rootElementCache.resolveRootElementName(xmlFile), equalTo("domain-type"));
+
+        rootElementCache.save(cacheFile);
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), equalTo("domain-type"));
+    }
+
+
+    @Test
+    public void touchedFileIsResolvedAgain() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+
+        writeXmlFile("<relation-set id=\"person\"/>", 2000000000L);
+
+        assertThat(rootElementCache.getRootElementName(xmlFile), nullValue());
+        assertThat(rootElementCache.resolveRootElement(xmlFile, FileUtils.readFileToByteArray(xmlFile)),
+            equalTo("relation-set"));
+        assertThat(rootElementCache.getRootElementName(xmlFile), equalTo("relation-set"));
+    }
+
+
+    @Test
+    public void changedFileIsResolvedAgain() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+
+        writeXmlFile("<relation-set id=\"person\"/>", 1000000000L);
+
+        assertThat(rootElementCache.resolveRootElementName(xmlFile), equalTo("relation-set"));
+    }
+
+
+    @Test
+    public void deletedFilesAreDroppedOnSave() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+        rootElementCache.save(cacheFile);
+
+        FileUtils.forceDelete(xmlFile);
+        rootElementCache.save(cacheFile);
+        writeXmlFile("<domain-type id=\"person\"/>", 1000000000L);
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), nullValue());
+    }
+
+
+    @Test
+    public void retainedFilesAreKeptOnSave() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+        rootElementCache.retain(xmlFile);
+
+        FileUtils.forceDelete(xmlFile);
+        rootElementCache.save(cacheFile);
+        writeXmlFile("<domain-type id=\"person\"/>", 1000000000L);
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), equalTo("domain-type"));
+    }
+
+
+    @Test
+    public void retainedFilesAreDroppedWhenNotRetainedAgain() throws IOException,
+        DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+        rootElementCache.retain(xmlFile);
+
+        FileUtils.forceDelete(xmlFile);
+        rootElementCache.save(cacheFile);
+
+        RootElementCache.load(cacheFile).save(cacheFile, daysLater(RootElementCache.MAX_UNUSED_DAYS + 1));
+        writeXmlFile("<domain-type id=\"person\"/>", 1000000000L);
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), nullValue());
+    }
+
+
+    @Test
+    public void unusedEntriesAreDroppedOnSave() throws IOException, DocumentRootQNameNotFoundException
+    {
+        RootElementCache rootElementCache = new RootElementCache();
+        rootElementCache.resolveRootElementName(xmlFile);
+        rootElementCache.save(cacheFile);
+
+        RootElementCache usingCache = RootElementCache.load(cacheFile);
+        usingCache.getRootElementName(xmlFile);
+        usingCache.save(cacheFile, daysLater(RootElementCache.MAX_UNUSED_DAYS + 1));
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), equalTo("domain-type"));
+
+        RootElementCache.load(cacheFile).save(cacheFile, daysLater(2 * (RootElementCache.MAX_UNUSED_DAYS + 1)));
+
+        assertThat(RootElementCache.load(cacheFile).getRootElementName(xmlFile), nullValue());
+    }
+
+
+    private static long daysLater(int days)
+    {
+        return System.currentTimeMillis() + TimeUnit.DAYS.toMillis(days);
+    }
+
+
+    private void writeXmlFile(String content, long lastModified) throws IOException
+    {
+        FileUtils.writeStringToFile(xmlFile, content, "UTF-8");
+        xmlFile.setLastModified(lastModified);
+    }
+}
@@ -0,0 +1,97 @@
+package org.opensaga.plugin.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaga.plugin.util.DocumentRootQNameResolver.DocumentRootQNameNotFoundException;
+
+public class RootElementScannerTest
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    @Test
+    public void rootElementIsFoundBehindTheProlog() throws Exception
+    {
+        assertScannedLikeParsed("<domain-type id=\"a\"/>", "domain-type");
+        assertScannedLikeParsed("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<view>\n</view>", "view");
+        assertScannedLikeParsed("\uFEFF<?xml version=\"1.0\"?><process/>", "process");
+        assertScannedLikeParsed("<?xml version=\"1.0\"?>\n<!-- a <comment> -->\n<?pi a > b?>\n<q:relation "
+            + "xmlns:q=\"urn:q\"></q:relation>", "q:relation");
+        assertScannedLikeParsed("<!DOCTYPE view [\n<!ENTITY e \"]>\">\n<!-- ]> -->\n]>"
+            + "<view>&e;</view>", "view");
+        assertThat(scan("<!DOCTYPE view SYSTEM \"a>b.dtd\"><view/>"), equalTo("view"));
+    }
+
+
+    @Test
+    public void undecidablePrologIsLeftToTheParser() throws UnsupportedEncodingException
+    {
+        assertThat(scan("  <?xml version=\"1.0\"?><view/>"), nullValue());
+        assertThat(scan("text<view/>"), nullValue());
+        assertThat(scan("<!-- a -- b --><view/>"), nullValue());
+        assertThat(scan("<!ELEMENT view ANY><view/>"), nullValue());
+        assertThat(scan("<1view/>"), nullValue());
+        assertThat(RootElementScanner.scanRootElementName("<view/>".getBytes("UTF-16")), nullValue());
+    }
+
+
+    @Test
+    public void incompletePrologIsUndecidable() throws UnsupportedEncodingException
+    {
+        assertThat(scan("<?xml version=\"1.0\"?><!-- "), nullValue());
+        assertThat(scan("<vie"), nullValue());
+        assertThat(scan(""), nullValue());
+    }
+
+
+    @Test
+    public void largePrologIsReadFromFile() throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), "prolog.xml");
+
+        String comment = "<!-- " + StringUtils.repeat("x", RootElementScanner.INITIAL_PROLOG_SIZE * 3) + " -->";
+        FileUtils.writeStringToFile(file, comment + "<view/>", "UTF-8");
+        assertThat(RootElementScanner.scanRootElementName(file), equalTo("view"));
+
+        comment = "<!-- " + StringUtils.repeat("x", RootElementScanner.MAX_PROLOG_SIZE) + " -->";
+        FileUtils.writeStringToFile(file, comment + "<view/>", "UTF-8");
+        assertThat(RootElementScanner.scanRootElementName(file), nullValue());
+    }
+
+
+    @Test(expected = DocumentRootQNameNotFoundException.class)
+    public void notWellFormedPrologIsRejectedByTheResolver() throws Exception
+    {
+        DocumentRootQNameResolver.resolveRootElement("text<view/>".getBytes("UTF-8"));
+    }
+
+
+    private void assertScannedLikeParsed(String document, String expectedRootElement) throws Exception
+    {
+        byte[] content = document.getBytes("UTF-8");
+
+        assertThat(RootElementScanner.scanRootElementName(content), equalTo(expectedRootElement));
+        assertThat(DocumentRootQNameResolver.resolveRootElement(new ByteArrayInputStream(content)),
+            equalTo(expectedRootElement));
+    }
+
+
+    private String scan(String document) throws UnsupportedEncodingException
+    {
+        return RootElementScanner.scanRootElementName(document.getBytes("UTF-8"));
+    }
+}
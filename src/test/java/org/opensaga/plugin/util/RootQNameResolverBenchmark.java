@@ -0,0 +1,160 @@
+package org.opensaga.plugin.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures the cost per file of resolving the root element name. The former
+ * resolution with a new SAX parser per file and an aborting exception is
+ * compared with the pooled SAX parser and the {@link RootElementScanner}. It's
+ * no unit test, run it with the test classpath:
+ * 
+ * <pre>
+ * java org.opensaga.plugin.util.RootQNameResolverBenchmark [files] [rounds]
+ * </pre>
+ */
+public class RootQNameResolverBenchmark
+{
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<!-- Generated model, do not edit. -->\n"
+        + "<domain-type xmlns=\"http://www.opensaga.org/schema/domain-type\" id=\"person%d\" name=\"Person\">\n"
+        + "  <property-set>\n"
+        + "%s"
+        + "  </property-set>\n"
+        + "</domain-type>\n";
+
+    private static final String PROPERTY = "    <domain-type-property id=\"person.name\" name=\"name\" type=\"PlainText\"/>\n";
+
+
+    public static void main(String[] args) throws Exception
+    {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File directory = new File(FileUtils.getTempDirectory(), "root-qname-benchmark-" + System.nanoTime());
+        File[] files = new File[fileCount];
+        byte[][] contents = new byte[fileCount][];
+
+        try
+        {
+            for (int i = 0; i < fileCount; i++)
+            {
+                files[i] = new File(directory, "model" + i + ".xml");
+                FileUtils.writeStringToFile(files[i], String.format(MODEL, i, StringUtils.repeat(PROPERTY, 50)), "UTF-8");
+                contents[i] = FileUtils.readFileToByteArray(files[i]);
+            }
+
+            for (int round = 0; round < rounds; round++)
+            {
+                System.out.println("Round " + (round + 1) + " with " + fileCount + " files:");
+                report("  new SAX parser per file", measureNewParserPerFile(files), fileCount);
+                report("  pooled SAX parser      ", measurePooledParser(files), fileCount);
+                report("  prolog scanner, file   ", measureScannerOnFiles(files), fileCount);
+                report("  prolog scanner, buffer ", measureScannerOnContents(contents), fileCount);
+            }
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+
+    private static long measureNewParserPerFile(File[] files) throws Exception
+    {
+        long start = System.nanoTime();
+
+        for (File file : files)
+        {
+            InputStream inputStream = new FileInputStream(file);
+
+            try
+            {
+                SAXParserFactory.newInstance().newSAXParser().parse(inputStream, new DefaultHandler()
+                {
+                    @Override
+                    public void startElement(String uri, String localName, String qName, Attributes attributes)
+                        throws SAXException
+                    {
+                        throw new SAXException(qName);
+                    }
+                });
+            }
+            catch (SAXException e)
+            {
+                // The root element was found
+            }
+            finally
+            {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+
+    private static long measurePooledParser(File[] files) throws Exception
+    {
+        long start = System.nanoTime();
+
+        for (File file : files)
+        {
+            InputStream inputStream = new FileInputStream(file);
+
+            try
+            {
+                DocumentRootQNameResolver.resolveRootElement(inputStream);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+
+    private static long measureScannerOnFiles(File[] files)
+    {
+        long start = System.nanoTime();
+
+        for (File file : files)
+        {
+            RootElementScanner.scanRootElementName(file);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+
+    private static long measureScannerOnContents(byte[][] contents)
+    {
+        long start = System.nanoTime();
+
+        for (byte[] content : contents)
+        {
+            RootElementScanner.scanRootElementName(content);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+
+    private static void report(String name, long nanos, int fileCount)
+    {
+        System.out.println(String.format("%s %10.2f us/file", name, nanos / 1000.0 / fileCount));
+    }
+}
@@ -0,0 +1,48 @@
+package org.opensaga.plugin.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class ThreadCountTest
+{
+
+    @Test
+    public void absoluteThreadCountIsUsed()
+    {
+        assertThat(ThreadCount.resolve("4", 32), equalTo(4));
+    }
+
+
+    @Test
+    public void multiplierIsAppliedToAvailableProcessors()
+    {
+        assertThat(ThreadCount.resolve("1C", 32), equalTo(32));
+        assertThat(ThreadCount.resolve("2c", 8), equalTo(16));
+        assertThat(ThreadCount.resolve("0.5C", 3), equalTo(1));
+    }
+
+
+    @Test
+    public void emptySpecificationResolvesToAvailableProcessors()
+    {
+        assertThat(ThreadCount.resolve(null, 6), equalTo(6));
+        assertThat(ThreadCount.resolve(" ", 6), equalTo(6));
+    }
+
+
+    @Test
+    public void atLeastOneThreadIsUsed()
+    {
+        assertThat(ThreadCount.resolve("0", 6), equalTo(1));
+        assertThat(ThreadCount.resolve("0.1C", 2), equalTo(1));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSpecificationIsRejected()
+    {
+        ThreadCount.resolve("many", 6);
+    }
+}